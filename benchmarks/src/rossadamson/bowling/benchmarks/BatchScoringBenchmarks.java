@@ -0,0 +1,51 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BatchScorer;
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.TableDrivenScorer;
+
+/**
+ * Benchmarks for scoring many complete games at once.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchScoringBenchmarks {
+    
+    @Benchmark
+    public int batchScorer(PackedGamesState state) {
+        return BatchScorer.scoreGames(state.rolls, state.offsets, state.finalScores, state.cumulativeScores);
+    }
+    
+    @Benchmark
+    public int tableDriven(PackedGamesState state) {
+        return TableDrivenScorer.scoreGames(state.rolls, state.offsets, state.gameCount, state.finalScores);
+    }
+    
+    @Benchmark
+    public int bowlingGame(PackedGamesState state) {
+        int total = 0;
+        for (int game = 0; game < state.gameCount; ++game) {
+            BowlingGame bowling = new BowlingGame();
+            for (int rollIndex = state.offsets[game]; rollIndex < state.offsets[game + 1]; ++rollIndex) {
+                bowling.tryAddRoll(state.rolls[rollIndex]);
+            }
+            state.finalScores[game] = bowling.totalScore();
+            total += state.finalScores[game];
+        }
+        return total;
+    }
+}
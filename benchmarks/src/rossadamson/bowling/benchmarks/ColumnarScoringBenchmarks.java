@@ -0,0 +1,67 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.ColumnarGames;
+import rossadamson.bowling.ColumnarScorer;
+import rossadamson.bowling.ScalarColumnarScorer;
+
+/**
+ * Benchmarks for scoring games laid out column by column, with and
+ * without the Vector API. Compare with {@link BatchScoringBenchmarks} on
+ * the same games.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ColumnarScoringBenchmarks {
+    
+    /**
+     * The packed random games, laid out column by column.
+     */
+    @State(Scope.Thread)
+    public static class ColumnarState {
+        public ColumnarGames games;
+        public int[] finalScores;
+        public ColumnarScorer scalarScorer = new ScalarColumnarScorer();
+        public ColumnarScorer bestScorer = ColumnarScorer.create();
+        
+        @Setup(Level.Trial)
+        public void setUp(PackedGamesState packed) {
+            games = new ColumnarGames(packed.gameCount);
+            finalScores = new int[packed.gameCount];
+            int[] rolls = new int[packed.rolls.length];
+            for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+                rolls[rollIndex] = packed.rolls[rollIndex];
+            }
+            for (int game = 0; game < packed.gameCount; ++game) {
+                games.addGame(rolls, packed.offsets[game], packed.offsets[game + 1]);
+            }
+        }
+    }
+    
+    @Benchmark
+    public int scalar(ColumnarState state) {
+        return state.scalarScorer.scoreGames(state.games, state.finalScores);
+    }
+    
+    @Benchmark
+    public int vector(ColumnarState state) {
+        return state.bestScorer.scoreGames(state.games, state.finalScores);
+    }
+}
@@ -0,0 +1,93 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+
+/**
+ * Benchmarks for correcting rolls early in a game full of strikes, where
+ * the most later frames depend on the corrected roll.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CorrectionBenchmarks {
+    
+    /**
+     * A spare of 0 and 10 in the first frame, and strikes after it.
+     */
+    @State(Scope.Thread)
+    public static class StrikesState {
+        public int[] rolls;
+        public BowlingGame game;
+        public int nextPins;
+        
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            rolls = new int[BowlingGame.NUMBER_OF_FRAMES + 3];
+            for (int rollIndex = 1; rollIndex < rolls.length; ++rollIndex) {
+                rolls[rollIndex] = BowlingGame.ALL_PINS;
+            }
+            game = Games.game(rolls, rolls.length);
+        }
+    }
+    
+    /**
+     * Turn the second roll of frame 1 from a spare to an open frame and
+     * back. The frames stay the same, so only frame 1 is scored again.
+     */
+    @Benchmark
+    public int correctSpare(StrikesState state) {
+        state.nextPins = (state.nextPins == BowlingGame.ALL_PINS) ? BowlingGame.ALL_PINS - 1 : BowlingGame.ALL_PINS;
+        return state.game.correctRoll(1, state.nextPins);
+    }
+    
+    /**
+     * Try to turn the first roll into a strike, which moves every frame
+     * after it. The game would then have too many rolls, so the rolls are
+     * added again twice: once changed and once to put them back.
+     */
+    @Benchmark
+    public int correctShiftingFrames(StrikesState state) {
+        return state.game.correctRoll(0, BowlingGame.ALL_PINS);
+    }
+    
+    /**
+     * Undo the last roll and make it again.
+     */
+    @Benchmark
+    public int undoLastRoll(StrikesState state) {
+        state.game.undoLastRoll();
+        return state.game.tryAddRoll(BowlingGame.ALL_PINS);
+    }
+    
+    /**
+     * The old way to correct a roll: start the game over and add every roll.
+     */
+    @Benchmark
+    public int replayGame(StrikesState state) {
+        state.nextPins = (state.nextPins == BowlingGame.ALL_PINS) ? BowlingGame.ALL_PINS - 1 : BowlingGame.ALL_PINS;
+        state.game.init();
+        state.game.tryAddRoll(0);
+        state.game.tryAddRoll(state.nextPins);
+        for (int rollIndex = 2; rollIndex < state.rolls.length; ++rollIndex) {
+            state.game.tryAddRoll(state.rolls[rollIndex]);
+        }
+        return state.game.totalScore();
+    }
+}
@@ -0,0 +1,65 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+
+/**
+ * Benchmarks for the cost of the flight recorder events, with no recording
+ * and with a recording in memory, in separate JVMs.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventsBenchmarks {
+    /**
+     * JVM option that records every event in memory from the start.
+     */
+    private static final String RECORDING = "-XX:StartFlightRecording=disk=false,maxsize=64m";
+    
+    /**
+     * Play a game from a new start, one roll at a time.
+     */
+    private static BowlingGame play(GameState state) {
+        BowlingGame game = state.partialGame;
+        game.init();
+        int[] rolls = state.rolls;
+        for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+            game.tryAddRoll(rolls[rollIndex]);
+        }
+        return game;
+    }
+    
+    @Benchmark
+    public BowlingGame rollsNotRecording(GameState state) {
+        return play(state);
+    }
+    
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = RECORDING)
+    public BowlingGame rollsRecording(GameState state) {
+        return play(state);
+    }
+    
+    @Benchmark
+    public String scoreboardNotRecording(GameState state) {
+        return state.game.toString();
+    }
+    
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = RECORDING)
+    public String scoreboardRecording(GameState state) {
+        return state.game.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.GameCounter;
+
+/**
+ * Benchmarks for counting every complete game by final score.
+ * @author Ross Adamson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameCounterBenchmarks {
+    
+    /**
+     * Count with a new counter, so every state is counted again.
+     */
+    @Benchmark
+    public long[] countGames() {
+        return new GameCounter(ForkJoinPool.commonPool()).countGames();
+    }
+}
@@ -0,0 +1,72 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.GamePool;
+
+/**
+ * Benchmarks for simulating many short random games, with a new game for
+ * each one or with games from a {@link GamePool}. Run with the GC profiler
+ * to compare the bytes allocated per game.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GamePoolBenchmarks {
+    
+    /**
+     * The pool, and where the random rolls come from.
+     */
+    @State(Scope.Thread)
+    public static class SimulationState {
+        public GamePool pool;
+        public SplittableRandom random;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new GamePool();
+            random = new SplittableRandom(Games.RANDOM_SEED);
+        }
+    }
+    
+    /**
+     * Play a random game to the end.
+     * @return The final score.
+     */
+    private static int play(BowlingGame game, SplittableRandom random) {
+        while (!game.isFinished()) {
+            game.tryAddRoll(random.nextInt(game.maxNextRoll() + 1));
+        }
+        return game.totalScore();
+    }
+    
+    @Benchmark
+    public int newGame(SimulationState state) {
+        return play(new BowlingGame(), state.random);
+    }
+    
+    @Benchmark
+    public int pooledGame(SimulationState state) {
+        BowlingGame game = state.pool.acquire();
+        int score = play(game, state.random);
+        state.pool.release(game);
+        return score;
+    }
+}
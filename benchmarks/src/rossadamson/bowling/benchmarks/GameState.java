@@ -0,0 +1,53 @@
+package rossadamson.bowling.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.ScoreboardRenderer;
+
+/**
+ * A game for each benchmark thread to score.
+ * @author Ross Adamson
+ */
+@State(Scope.Thread)
+public class GameState {
+    /**
+     * The kind of game.
+     */
+    @Param({"Perfect", "Gutter", "Spares", "Random"})
+    public Games kind;
+    /**
+     * The pins of every roll in the game.
+     */
+    public int[] rolls;
+    /**
+     * The complete game.
+     */
+    public BowlingGame game;
+    /**
+     * The game missing its last roll, so there are rolls left to check.
+     */
+    public BowlingGame partialGame;
+    /**
+     * Renderer reused for every score board.
+     */
+    public ScoreboardRenderer renderer = new ScoreboardRenderer();
+    /**
+     * Buffer reused for every score board.
+     */
+    public ByteBuffer scoreboard = ByteBuffer.allocate(256);
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        rolls = kind.rolls(new Random(Games.RANDOM_SEED));
+        game = Games.game(rolls, rolls.length);
+        partialGame = Games.game(rolls, rolls.length - 1);
+    }
+}
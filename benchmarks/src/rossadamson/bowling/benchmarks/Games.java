@@ -0,0 +1,99 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.Random;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.GameFinishedException;
+import rossadamson.bowling.InvalidRollException;
+import rossadamson.bowling.Roll;
+
+/**
+ * The kinds of games the benchmarks are run on.
+ * @author Ross Adamson
+ */
+public enum Games {
+    /** Twelve strikes. */
+    Perfect,
+    /** Twenty rolls of zero. */
+    Gutter,
+    /** Ten spares of 5 and 5, and a final roll of 5. */
+    Spares,
+    /** A complete game of random, valid rolls. */
+    Random;
+    
+    /**
+     * Seed for random games, so every run scores the same games.
+     */
+    public static final long RANDOM_SEED = 20111017L;
+    
+    /**
+     * Get the pins of every roll in a complete game of this kind.
+     * @param random Source of random rolls, used by {@link #Random} games.
+     */
+    public int[] rolls(Random random) {
+        int[] rolls = null;
+        
+        switch (this) {
+        case Perfect:
+            rolls = repeat(BowlingGame.ALL_PINS, BowlingGame.NUMBER_OF_FRAMES + 2);
+            break;
+        case Gutter:
+            rolls = repeat(0, BowlingGame.NUMBER_OF_FRAMES * 2);
+            break;
+        case Spares:
+            rolls = repeat(BowlingGame.ALL_PINS / 2, BowlingGame.MAX_ROLLS);
+            break;
+        case Random:
+            rolls = randomRolls(random);
+            break;
+        default:
+            break;
+        }
+        
+        return rolls;
+    }
+    
+    /**
+     * Build a game from rolls.
+     * @param rolls Pins of each roll.
+     * @param count Number of rolls to add.
+     */
+    public static BowlingGame game(int[] rolls, int count) throws GameFinishedException, InvalidRollException {
+        BowlingGame game = new BowlingGame();
+        for (int rollIndex = 0; rollIndex < count; ++rollIndex) {
+            game.addRoll(Roll.of(rolls[rollIndex]));
+        }
+        return game;
+    }
+    
+    /**
+     * Get the same pin count repeated.
+     */
+    private static int[] repeat(int pins, int count) {
+        int[] rolls = new int[count];
+        for (int rollIndex = 0; rollIndex < count; ++rollIndex) {
+            rolls[rollIndex] = pins;
+        }
+        return rolls;
+    }
+    
+    /**
+     * Get the rolls of a random, complete game. Each roll is picked from
+     * every valid roll, the same way the unit tests build random games.
+     */
+    private static int[] randomRolls(Random random) {
+        BowlingGame game = new BowlingGame();
+        int[] rolls = new int[BowlingGame.MAX_ROLLS];
+        int rollCount = 0;
+        
+        while (!game.isFinished()) {
+            int pins = random.nextInt(game.maxNextRoll() + 1);
+            game.tryAddRoll(pins);
+            rolls[rollCount++] = pins;
+        }
+        
+        int[] result = new int[rollCount];
+        System.arraycopy(rolls, 0, result, 0, rollCount);
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package rossadamson.bowling.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.JsonWriter;
+import rossadamson.bowling.ScoringHttpServer;
+
+/**
+ * Benchmarks for scoring games over HTTP: writing a game as JSON, and
+ * scoring a whole game over loopback one roll per request or in one batch.
+ * The forks turn off Nagle's algorithm, as a server application would.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-D" + ScoringHttpServer.NODELAY_PROPERTY + "=true")
+public class HttpBenchmarks {
+
+    /**
+     * A server on loopback, shared by every thread.
+     */
+    @State(Scope.Benchmark)
+    public static class ServerState {
+        public ScoringHttpServer server;
+        public String gamesUrl;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            server = new ScoringHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            gamesUrl = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                    server.port() + "/games";
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    /**
+     * Output reused for every game written as JSON.
+     */
+    @State(Scope.Thread)
+    public static class JsonState {
+        public StringBuilder out = new StringBuilder(1024);
+        public JsonWriter json = new JsonWriter(out);
+    }
+
+    /**
+     * Send a request and read the answer.
+     * @return The status code.
+     */
+    private static int request(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+            out.close();
+        }
+        int code = connection.getResponseCode();
+        InputStream in = (code < 400) ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+                // keep-alive only reuses connections that are read to the end
+            }
+            in.close();
+        }
+        return code;
+    }
+
+    /**
+     * Make a game on the server.
+     * @return The URL of the game.
+     */
+    private static String createGame(ServerState server) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.gamesUrl).openConnection();
+        connection.setRequestMethod("POST");
+        connection.getResponseCode();
+        String location = connection.getHeaderField("Location");
+        InputStream in = connection.getInputStream();
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) >= 0) {
+            // read to the end so the connection is reused
+        }
+        in.close();
+        return server.gamesUrl + location.substring("/games".length());
+    }
+
+    @Benchmark
+    public int gameJson(GameState state, JsonState json) throws IOException {
+        json.out.setLength(0);
+        json.json.init(json.out);
+        ScoringHttpServer.writeGame(state.game, json.json);
+        return json.out.length();
+    }
+
+    @Benchmark
+    public int gameRollByRoll(GameState state, ServerState server) throws IOException {
+        String game = createGame(server);
+        int code = 0;
+        for (int roll : state.rolls) {
+            code += request("POST", game + "/rolls", "{\"pins\":" + roll + "}");
+        }
+        return code + request("DELETE", game, null);
+    }
+
+    @Benchmark
+    public int gameInOneBatch(GameState state, ServerState server) throws IOException {
+        String game = createGame(server);
+        StringBuilder body = new StringBuilder("{\"rolls\":[");
+        for (int rollIndex = 0; rollIndex < state.rolls.length; ++rollIndex) {
+            body.append(rollIndex == 0 ? "" : ",").append(state.rolls[rollIndex]);
+        }
+        int code = request("POST", game + "/rolls", body.append("]}").toString());
+        return code + request("DELETE", game, null);
+    }
+}
@@ -0,0 +1,89 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.LaneManager;
+
+/**
+ * Benchmarks for many sensor threads rolling on shared lanes.
+ * Run with increasing thread counts to see how it scales, for example
+ * <code>-t 1</code>, <code>-t 8</code> and <code>-t max</code>. One stripe
+ * is the same as a single global lock, for comparison.
+ * @author Ross Adamson
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LaneManagerBenchmarks {
+    
+    /**
+     * The lanes, shared by every thread.
+     */
+    @State(Scope.Benchmark)
+    public static class LanesState {
+        @Param({"4096"})
+        public int laneCount;
+        @Param({"1", "256"})
+        public int stripes;
+        public LaneManager manager;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new LaneManager(laneCount, stripes);
+        }
+    }
+    
+    /**
+     * What one sensor thread rolls next.
+     */
+    @State(Scope.Thread)
+    public static class SensorState {
+        public int[] lanes;
+        public int[] pins;
+        public int next;
+        
+        @Setup(Level.Trial)
+        public void setUp(LanesState lanes) {
+            Random random = new Random();
+            this.lanes = new int[1024];
+            pins = new int[this.lanes.length];
+            for (int i = 0; i < this.lanes.length; ++i) {
+                this.lanes[i] = random.nextInt(lanes.laneCount);
+                pins[i] = random.nextInt(BowlingGame.ALL_PINS / 2 + 1);
+            }
+        }
+    }
+    
+    @Benchmark
+    public int roll(LanesState lanes, SensorState sensor) {
+        int index = sensor.next++ & (sensor.lanes.length - 1);
+        int lane = sensor.lanes[index];
+        int status = lanes.manager.tryAddRoll(lane, sensor.pins[index]);
+        if (status == BowlingGame.ROLL_GAME_FINISHED) {
+            lanes.manager.newGame(lane);
+        }
+        return status;
+    }
+    
+    @Benchmark
+    public int rollAndRead(LanesState lanes, SensorState sensor) {
+        return roll(lanes, sensor) + lanes.manager.totalScore(sensor.lanes[sensor.next & (sensor.lanes.length - 1)]);
+    }
+}
@@ -0,0 +1,62 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.ScoringMetrics;
+
+/**
+ * Benchmarks for the cost of the scoring metrics, with the metrics off and
+ * on in separate JVMs.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MetricsBenchmarks {
+    
+    /**
+     * Play a game from a new start, one roll at a time.
+     */
+    private static BowlingGame play(GameState state) {
+        BowlingGame game = state.partialGame;
+        game.init();
+        int[] rolls = state.rolls;
+        for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+            game.tryAddRoll(rolls[rollIndex]);
+        }
+        return game;
+    }
+    
+    @Benchmark
+    public BowlingGame rollsMetricsOff(GameState state) {
+        return play(state);
+    }
+    
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-D" + ScoringMetrics.ENABLED_PROPERTY + "=true")
+    public BowlingGame rollsMetricsOn(GameState state) {
+        return play(state);
+    }
+    
+    @Benchmark
+    public String scoreboardMetricsOff(GameState state) {
+        return state.game.toString();
+    }
+    
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-D" + ScoringMetrics.ENABLED_PROPERTY + "=true")
+    public String scoreboardMetricsOn(GameState state) {
+        return state.game.toString();
+    }
+}
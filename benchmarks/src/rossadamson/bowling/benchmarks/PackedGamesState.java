@@ -0,0 +1,59 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rossadamson.bowling.BowlingGame;
+
+/**
+ * Many random, complete games packed one after another into a roll array.
+ * @author Ross Adamson
+ */
+@State(Scope.Thread)
+public class PackedGamesState {
+    /**
+     * The number of games.
+     */
+    @Param({"10000"})
+    public int gameCount;
+    /**
+     * Pins of every roll of every game.
+     */
+    public byte[] rolls;
+    /**
+     * Where the rolls of each game start, plus where the last game ends.
+     */
+    public int[] offsets;
+    /**
+     * Final score of each game.
+     */
+    public int[] finalScores;
+    /**
+     * Running score through each frame of each game.
+     */
+    public int[] cumulativeScores;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Games.RANDOM_SEED);
+        rolls = new byte[gameCount * BowlingGame.MAX_ROLLS];
+        offsets = new int[gameCount + 1];
+        finalScores = new int[gameCount];
+        cumulativeScores = new int[gameCount * BowlingGame.NUMBER_OF_FRAMES];
+        
+        int rollCount = 0;
+        for (int game = 0; game < gameCount; ++game) {
+            offsets[game] = rollCount;
+            int[] gameRolls = Games.Random.rolls(random);
+            for (int rollIndex = 0; rollIndex < gameRolls.length; ++rollIndex) {
+                rolls[rollCount++] = (byte) gameRolls[rollIndex];
+            }
+        }
+        offsets[gameCount] = rollCount;
+    }
+}
@@ -0,0 +1,111 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BinomialPinFallModel;
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.FinalScoreDistribution;
+import rossadamson.bowling.PinFallModel;
+import rossadamson.bowling.ScoreHistogram;
+import rossadamson.bowling.ScoreProjector;
+
+/**
+ * Benchmarks for projecting the final score of a game four frames in, the
+ * way a lane display does, from 100,000 simulated finishes.
+ * @author Ross Adamson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProjectionBenchmarks {
+    /**
+     * Number of simulated finishes per projection.
+     */
+    public static final int SIMULATIONS = 100000;
+    
+    /**
+     * A game four frames in, and projectors for it.
+     */
+    @State(Scope.Benchmark)
+    public static class ProjectionState {
+        public BowlingGame game;
+        public int[] rolls;
+        public ScoreProjector uniform;
+        public ScoreProjector binomial;
+        public FinalScoreDistribution distribution;
+        public Random random;
+        public long seed;
+        
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            rolls = new int[] {10, 7, 3, 9, 0, 10};
+            game = Games.game(rolls, rolls.length);
+            uniform = new ScoreProjector(PinFallModel.UNIFORM, ForkJoinPool.commonPool());
+            binomial = new ScoreProjector(new BinomialPinFallModel(0.85), ForkJoinPool.commonPool());
+            distribution = new FinalScoreDistribution(new BinomialPinFallModel(0.85));
+            random = new Random(Games.RANDOM_SEED);
+        }
+    }
+    
+    @Benchmark
+    public ScoreHistogram projectUniform(ProjectionState state) {
+        return state.uniform.project(state.game, SIMULATIONS, ++state.seed);
+    }
+    
+    @Benchmark
+    public ScoreHistogram projectBinomial(ProjectionState state) {
+        return state.binomial.project(state.game, SIMULATIONS, ++state.seed);
+    }
+    
+    /**
+     * The exact chances of every final score, from the shared table.
+     */
+    @Benchmark
+    public double[] exactDistribution(ProjectionState state) {
+        return state.distribution.probabilities(state.game);
+    }
+    
+    /**
+     * Build the table of a model, done once for each bowler.
+     */
+    @Benchmark
+    public FinalScoreDistribution buildDistribution() {
+        return new FinalScoreDistribution(new BinomialPinFallModel(0.85));
+    }
+    
+    /**
+     * The way the unit tests finish games: replay the rolls into a new
+     * game and add random rolls from one shared generator.
+     */
+    @Benchmark
+    public long replayWithSharedRandom(ProjectionState state) {
+        long total = 0;
+        for (int simulation = 0; simulation < SIMULATIONS; ++simulation) {
+            BowlingGame game = new BowlingGame();
+            for (int pins : state.rolls) {
+                game.tryAddRoll(pins);
+            }
+            while (!game.isFinished()) {
+                game.tryAddRoll(state.random.nextInt(game.maxNextRoll() + 1));
+            }
+            total += game.totalScore();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,96 @@
+package rossadamson.bowling.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.LaneManager;
+import rossadamson.bowling.RollJournal;
+
+/**
+ * Benchmarks for durable rolls, each waiting for its journal commit.
+ * Run with more threads, for example <code>-t 16</code>, to see commits
+ * shared between threads; the number of records per commit is printed
+ * at the end of each trial.
+ * @author Ross Adamson
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollJournalBenchmarks {
+    
+    /**
+     * The lanes and their journal, shared by every thread.
+     */
+    @State(Scope.Benchmark)
+    public static class JournalState {
+        public static final int LANE_COUNT = 1024;
+        public File journalFile;
+        public RollJournal journal;
+        public LaneManager lanes;
+        
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            journalFile = File.createTempFile("lanes", ".journal");
+            journal = new RollJournal(journalFile);
+            lanes = new LaneManager(LANE_COUNT);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            System.out.printf("%n%.1f records per commit%n",
+                    (double) journal.recordCount() / Math.max(1, journal.commitCount()));
+            journal.close();
+            journalFile.delete();
+        }
+    }
+    
+    /**
+     * What one sensor thread rolls next.
+     */
+    @State(Scope.Thread)
+    public static class SensorState {
+        public int[] lanes;
+        public int[] pins;
+        public int next;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random();
+            lanes = new int[1024];
+            pins = new int[lanes.length];
+            for (int i = 0; i < lanes.length; ++i) {
+                lanes[i] = random.nextInt(JournalState.LANE_COUNT);
+                pins[i] = random.nextInt(BowlingGame.ALL_PINS / 2 + 1);
+            }
+        }
+    }
+    
+    @Benchmark
+    public int durableRoll(JournalState state, SensorState sensor) throws IOException {
+        int index = sensor.next++ & (sensor.lanes.length - 1);
+        int lane = sensor.lanes[index];
+        int status = state.lanes.tryAddRoll(lane, sensor.pins[index], state.journal);
+        if (status == BowlingGame.ROLL_GAME_FINISHED) {
+            state.lanes.newGame(lane, state.journal);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,39 @@
+package rossadamson.bowling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading games in score sheet notation.
+ * Divide the text size by the time to get the parsing rate.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScoreSheetBenchmarks {
+    
+    @Benchmark
+    public int parse(ScoreSheetState state) {
+        state.packed.clear();
+        state.parser.reset();
+        state.parser.feed(state.text.duplicate());
+        state.parser.end();
+        return state.packed.gameCount();
+    }
+    
+    @Benchmark
+    public int parseAndScore(ScoreSheetState state) {
+        parse(state);
+        return state.packed.score(state.finalScores, null);
+    }
+}
@@ -0,0 +1,85 @@
+package rossadamson.bowling.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.CompactBowlingGame;
+import rossadamson.bowling.PackedGames;
+import rossadamson.bowling.ScoreSheetParser;
+
+/**
+ * Many random, complete games written in score sheet notation, one per line.
+ * @author Ross Adamson
+ */
+@State(Scope.Thread)
+public class ScoreSheetState {
+    /**
+     * The number of games.
+     */
+    @Param({"10000"})
+    public int gameCount;
+    /**
+     * The score sheet text, as ASCII bytes.
+     */
+    public ByteBuffer text;
+    /**
+     * Where the parser puts the games.
+     */
+    public PackedGames packed;
+    /**
+     * The parser.
+     */
+    public ScoreSheetParser parser;
+    /**
+     * Final score of each game.
+     */
+    public int[] finalScores;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(Games.RANDOM_SEED);
+        StringBuilder sheet = new StringBuilder();
+        CompactBowlingGame game = new CompactBowlingGame();
+        
+        for (int count = 0; count < gameCount; ++count) {
+            int[] rolls = Games.Random.rolls(random);
+            game.init();
+            for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+                int pins = rolls[rollIndex];
+                int pinsUp = game.pinsUp();
+                int frameIndex = game.nextRollFrameIndex();
+                game.addRoll(pins);
+                
+                if (pins == BowlingGame.ALL_PINS && pinsUp == BowlingGame.ALL_PINS) {
+                    sheet.append('X');
+                } else if (pins == pinsUp) {
+                    sheet.append('/');
+                } else if (pins == 0) {
+                    sheet.append('-');
+                } else {
+                    sheet.append(pins);
+                }
+                
+                if (game.nextRollFrameIndex() != frameIndex) {
+                    sheet.append(' ');
+                }
+            }
+            sheet.append('\n');
+        }
+        
+        byte[] bytes = sheet.toString().getBytes("US-ASCII");
+        text = ByteBuffer.allocateDirect(bytes.length);
+        text.put(bytes);
+        text.flip();
+        packed = new PackedGames(gameCount);
+        parser = new ScoreSheetParser(packed);
+        finalScores = new int[gameCount];
+    }
+}
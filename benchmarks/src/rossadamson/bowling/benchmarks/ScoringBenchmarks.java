@@ -0,0 +1,96 @@
+package rossadamson.bowling.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.GameSnapshot;
+import rossadamson.bowling.ReachableScores;
+import rossadamson.bowling.Roll;
+
+/**
+ * Benchmarks for the scoring hot paths of {@link BowlingGame}.
+ * @author Ross Adamson
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScoringBenchmarks {
+    
+    @Benchmark
+    public BowlingGame addRoll(GameState state) throws Exception {
+        BowlingGame game = new BowlingGame();
+        int[] rolls = state.rolls;
+        for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+            game.addRoll(Roll.of(rolls[rollIndex]));
+        }
+        return game;
+    }
+    
+    @Benchmark
+    public int totalScore(GameState state) {
+        return state.game.totalScore();
+    }
+    
+    @Benchmark
+    public GameSnapshot snapshot(GameState state) {
+        return state.game.snapshot();
+    }
+    
+    @Benchmark
+    public String scoreboard(GameState state) {
+        return state.game.toString();
+    }
+    
+    @Benchmark
+    public ByteBuffer scoreboardToBuffer(GameState state) {
+        ByteBuffer scoreboard = state.scoreboard;
+        scoreboard.clear();
+        state.renderer.render(state.game, scoreboard);
+        return scoreboard;
+    }
+    
+    @Benchmark
+    public Collection<Roll> possibleRolls(GameState state) {
+        return state.partialGame.possibleRolls();
+    }
+    
+    @Benchmark
+    public void canRoll(GameState state, Blackhole blackhole) {
+        BowlingGame game = state.partialGame;
+        for (int pins = 0; pins <= BowlingGame.ALL_PINS; ++pins) {
+            blackhole.consume(game.canRoll(Roll.of(pins)));
+        }
+    }
+    
+    @Benchmark
+    public int maxFinalScore(GameState state) {
+        return ReachableScores.maxFinalScore(state.partialGame);
+    }
+    
+    @Benchmark
+    public int[] finalScores(GameState state) {
+        return ReachableScores.finalScores(state.partialGame);
+    }
+    
+    @Benchmark
+    public int frameScores(GameState state) {
+        int score = 0;
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+            score += state.game.frames[frameIndex].getScore();
+        }
+        return score;
+    }
+}
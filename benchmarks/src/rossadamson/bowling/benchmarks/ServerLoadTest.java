@@ -0,0 +1,222 @@
+package rossadamson.bowling.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import rossadamson.bowling.BowlingGame;
+import rossadamson.bowling.LatencyHistogram;
+import rossadamson.bowling.ScorerServer;
+
+/**
+ * Load test for {@link ScorerServer}: many lane terminals, each sending one
+ * command and waiting for the answer before sending the next, all driven
+ * from one client thread. Reports the commands answered per second and per
+ * core, and the latency of each command from sending it to reading its
+ * answer.
+ * <p>
+ * Not a JMH benchmark, since what matters is latency under many
+ * connections. Run it with
+ * <pre>
+ * java -cp target/benchmarks.jar rossadamson.bowling.benchmarks.ServerLoadTest [connections [seconds [host:port]]]
+ * </pre>
+ * Without a host and port, it starts a server on loopback in the same JVM.
+ * @author Ross Adamson
+ */
+public class ServerLoadTest {
+    /**
+     * Default number of connections.
+     */
+    public static final int DEFAULT_CONNECTIONS = 500;
+    /**
+     * Default length of the test in seconds.
+     */
+    public static final int DEFAULT_SECONDS = 10;
+    /**
+     * Commands each terminal sends, in order, over and over: a game of
+     * open frames, a look at the board, and a new game.
+     */
+    private static final byte[][] COMMANDS = commands();
+
+    /**
+     * Make the commands each terminal sends.
+     */
+    private static byte[][] commands() {
+        byte[][] commands = new byte[BowlingGame.NUMBER_OF_FRAMES * 2 + 2][];
+        for (int roll = 0; roll < BowlingGame.NUMBER_OF_FRAMES * 2; ++roll) {
+            commands[roll] = ("roll " + (roll % 2 == 0 ? 3 : 4) + "\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        commands[BowlingGame.NUMBER_OF_FRAMES * 2] = "board\n".getBytes(StandardCharsets.US_ASCII);
+        commands[BowlingGame.NUMBER_OF_FRAMES * 2 + 1] = "reset\n".getBytes(StandardCharsets.US_ASCII);
+        return commands;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_CONNECTIONS;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        ScorerServer server = null;
+        InetSocketAddress address;
+
+        if (args.length > 2) {
+            String[] hostPort = args[2].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            server = new ScorerServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+        }
+
+        try {
+            // warm up, then measure
+            run(address, connections, Math.max(1, seconds / 5));
+            LatencyHistogram latencies = new LatencyHistogram();
+            long answered = run(address, connections, seconds, latencies);
+            report(connections, seconds, answered, latencies);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Run the terminals without keeping their latencies.
+     */
+    private static long run(InetSocketAddress address, int connections, int seconds) throws IOException {
+        return run(address, connections, seconds, new LatencyHistogram());
+    }
+
+    /**
+     * Run the terminals.
+     * @param address Address of the server.
+     * @param connections Number of terminals.
+     * @param seconds How long to run.
+     * @param latencies Gets the latency of every command.
+     * @return Number of commands answered.
+     * @throws IOException If a connection fails.
+     */
+    private static long run(InetSocketAddress address, int connections, int seconds,
+            LatencyHistogram latencies) throws IOException {
+        Selector selector = Selector.open();
+        Terminal[] terminals = new Terminal[connections];
+        long answered = 0;
+
+        try {
+            for (int i = 0; i < connections; ++i) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                terminals[i] = new Terminal(channel);
+                channel.register(selector, SelectionKey.OP_READ, terminals[i]);
+            }
+            for (Terminal terminal : terminals) {
+                terminal.send();
+            }
+
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < end) {
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    Terminal terminal = (Terminal) keys.next().attachment();
+                    keys.remove();
+                    answered += terminal.receive(latencies);
+                }
+            }
+        } finally {
+            for (Terminal terminal : terminals) {
+                if (terminal != null) {
+                    terminal.channel.close();
+                }
+            }
+            selector.close();
+        }
+
+        return answered;
+    }
+
+    /**
+     * Print the results.
+     */
+    private static void report(int connections, int seconds, long answered, LatencyHistogram latencies) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        double perSecond = (double) answered / seconds;
+        System.out.printf("connections:        %d (%d per core, %d cores, client and server share them)%n",
+                connections, connections / cores, cores);
+        System.out.printf("commands/s:         %.0f (%.0f per core)%n", perSecond, perSecond / cores);
+        System.out.printf("latency p50:        %.1f us%n", latencies.percentile(50) / 1e3);
+        System.out.printf("latency p99:        %.1f us%n", latencies.percentile(99) / 1e3);
+        System.out.printf("latency p99.9:      %.1f us%n", latencies.percentile(99.9) / 1e3);
+        System.out.printf("latency max:        %.1f us%n", latencies.max() / 1e3);
+    }
+
+    /**
+     * One lane terminal, with one command waiting for its answer at a time.
+     */
+    private static final class Terminal {
+        /**
+         * The connection to the server.
+         */
+        final SocketChannel channel;
+        /**
+         * Answers read so far.
+         */
+        private final ByteBuffer in = ByteBuffer.allocateDirect(1024);
+        /**
+         * Index of the next command to send.
+         */
+        private int command;
+        /**
+         * When the waiting command was sent.
+         */
+        private long sentNanos;
+
+        /**
+         * Constructor.
+         */
+        Terminal(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Send the next command.
+         */
+        void send() throws IOException {
+            ByteBuffer out = ByteBuffer.wrap(COMMANDS[command]);
+            command = (command + 1) % COMMANDS.length;
+            sentNanos = System.nanoTime();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+
+        /**
+         * Read answers, and send the next command once the waiting one is
+         * answered.
+         * @param latencies Gets the latency of the answered command.
+         * @return The number of commands answered.
+         */
+        int receive(LatencyHistogram latencies) throws IOException {
+            int answered = 0;
+            if (channel.read(in) < 0) {
+                throw new IOException("server closed the connection");
+            }
+            for (int i = 0; i < in.position(); ++i) {
+                if (in.get(i) == '\n') {
+                    latencies.record(System.nanoTime() - sentNanos);
+                    ++answered;
+                    in.clear();
+                    send();
+                }
+            }
+            return answered;
+        }
+    }
+}
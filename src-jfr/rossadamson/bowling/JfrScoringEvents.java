@@ -0,0 +1,264 @@
+package rossadamson.bowling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reports what games do as Java Flight Recorder events: rolls added and
+ * rejected, frames completed, games finished and score boards rendered.
+ * Every event carries the id of its game, or for the games of a
+ * {@link LaneManager}, the lane number, so a recording of many lanes can be
+ * split up by lane.
+ * <p>
+ * Needs the jdk.jfr module, so it is only built by the <code>jfr</code>
+ * profile and loaded through {@link ScoringEvents#INSTANCE}.
+ * @author Ross Adamson
+ */
+public class JfrScoringEvents extends ScoringEvents {
+    /**
+     * Category of every event.
+     */
+    private static final String CATEGORY = "Bowling";
+
+    @Override
+    Object rollStarted() {
+        RollAddedEvent event = new RollAddedEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void rollEnded(Object started, BowlingGame game, int pins, int status) {
+        RollAddedEvent event = (RollAddedEvent) started;
+        event.end();
+
+        if (status == BowlingGame.ROLL_OK) {
+            if (event.shouldCommit()) {
+                event.gameId = game.id();
+                event.pins = pins;
+                event.frameIndex = game.currentFrameIndex;
+                event.score = game.totalScore();
+                event.commit();
+            }
+            frameEnded(game);
+        } else {
+            RollRejectedEvent rejected = new RollRejectedEvent();
+            if (rejected.shouldCommit()) {
+                rejected.gameId = game.id();
+                rejected.pins = pins;
+                rejected.frameIndex = game.nextRollFrameIndex();
+                rejected.status = status;
+                rejected.commit();
+            }
+        }
+    }
+
+    @Override
+    void laneRollEnded(Object started, int lane, CompactBowlingGame game, int pins, int status) {
+        RollAddedEvent event = (RollAddedEvent) started;
+        event.end();
+
+        if (status == BowlingGame.ROLL_OK) {
+            if (event.shouldCommit()) {
+                event.gameId = lane;
+                event.pins = pins;
+                event.frameIndex = game.lastRollFrameIndex();
+                event.score = game.totalScore();
+                event.commit();
+            }
+            laneFrameEnded(lane, game);
+        } else {
+            RollRejectedEvent rejected = new RollRejectedEvent();
+            if (rejected.shouldCommit()) {
+                rejected.gameId = lane;
+                rejected.pins = pins;
+                rejected.frameIndex = game.nextRollFrameIndex();
+                rejected.status = status;
+                rejected.commit();
+            }
+        }
+    }
+
+    /**
+     * Report the frame of the last roll on a lane if the roll completed it,
+     * and the game if the roll finished it.
+     * @param lane Number of the lane.
+     * @param game The game on the lane.
+     */
+    private void laneFrameEnded(int lane, CompactBowlingGame game) {
+        int frameIndex = game.lastRollFrameIndex();
+
+        if (game.hasAllRolls(frameIndex)) {
+            FrameCompletedEvent completed = new FrameCompletedEvent();
+            if (completed.shouldCommit()) {
+                int framePins = 0;
+                for (int rollIndex = game.rollCount() - game.frameRollCount(frameIndex);
+                        rollIndex < game.rollCount(); ++rollIndex) {
+                    framePins += game.rollPins(rollIndex);
+                }
+                completed.gameId = lane;
+                completed.pins = framePins;
+                completed.frameIndex = frameIndex;
+                completed.score = game.totalScore();
+                completed.commit();
+            }
+        }
+
+        if (game.isFinished()) {
+            GameFinishedEvent finished = new GameFinishedEvent();
+            if (finished.shouldCommit()) {
+                finished.gameId = lane;
+                finished.score = game.totalScore();
+                finished.commit();
+            }
+        }
+    }
+
+    /**
+     * Report the frame of the last roll if the roll completed it, and the
+     * game if the roll finished it.
+     * @param game The game.
+     */
+    private void frameEnded(BowlingGame game) {
+        Frame frame = game.frames[game.currentFrameIndex];
+
+        if (frame.hasAllRolls()) {
+            FrameCompletedEvent completed = new FrameCompletedEvent();
+            if (completed.shouldCommit()) {
+                completed.gameId = game.id();
+                completed.pins = frame.pinsDown();
+                completed.frameIndex = game.currentFrameIndex;
+                completed.score = game.totalScore();
+                completed.commit();
+            }
+        }
+
+        if (game.isFinished()) {
+            GameFinishedEvent finished = new GameFinishedEvent();
+            if (finished.shouldCommit()) {
+                finished.gameId = game.id();
+                finished.score = game.totalScore();
+                finished.commit();
+            }
+        }
+    }
+
+    @Override
+    Object renderStarted() {
+        ScoreboardRenderedEvent event = new ScoreboardRenderedEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void renderEnded(Object started, BowlingGame game, int length) {
+        ScoreboardRenderedEvent event = (ScoreboardRenderedEvent) started;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.gameId = game.id();
+            event.frameIndex = game.currentFrameIndex;
+            event.length = length;
+            event.commit();
+        }
+    }
+
+    /**
+     * A roll was added to a game. Lasts as long as adding the roll took.
+     */
+    @Name("rossadamson.bowling.RollAdded")
+    @Label("Roll Added")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class RollAddedEvent extends Event {
+        @Label("Game Id")
+        @Description("Id of the game, or the number of its lane on a LaneManager")
+        long gameId;
+        @Label("Pins")
+        int pins;
+        @Label("Frame Index")
+        int frameIndex;
+        @Label("Score")
+        @Description("Total score of the game after the roll")
+        int score;
+    }
+
+    /**
+     * A roll was rejected by a game.
+     */
+    @Name("rossadamson.bowling.RollRejected")
+    @Label("Roll Rejected")
+    @Category(CATEGORY)
+    static final class RollRejectedEvent extends Event {
+        @Label("Game Id")
+        @Description("Id of the game, or the number of its lane on a LaneManager")
+        long gameId;
+        @Label("Pins")
+        int pins;
+        @Label("Frame Index")
+        @Description("Frame the roll would have gone in")
+        int frameIndex;
+        @Label("Status")
+        @Description("Why the roll was rejected, as returned by BowlingGame.tryAddRoll")
+        int status;
+    }
+
+    /**
+     * A roll completed a frame.
+     */
+    @Name("rossadamson.bowling.FrameCompleted")
+    @Label("Frame Completed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class FrameCompletedEvent extends Event {
+        @Label("Game Id")
+        @Description("Id of the game, or the number of its lane on a LaneManager")
+        long gameId;
+        @Label("Pins")
+        @Description("Pins knocked down in the frame")
+        int pins;
+        @Label("Frame Index")
+        int frameIndex;
+        @Label("Score")
+        @Description("Total score of the game after the frame")
+        int score;
+    }
+
+    /**
+     * A roll finished a game.
+     */
+    @Name("rossadamson.bowling.GameFinished")
+    @Label("Game Finished")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class GameFinishedEvent extends Event {
+        @Label("Game Id")
+        @Description("Id of the game, or the number of its lane on a LaneManager")
+        long gameId;
+        @Label("Score")
+        @Description("Final score of the game")
+        int score;
+    }
+
+    /**
+     * A score board was rendered. Lasts as long as rendering took.
+     */
+    @Name("rossadamson.bowling.ScoreboardRendered")
+    @Label("Scoreboard Rendered")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ScoreboardRenderedEvent extends Event {
+        @Label("Game Id")
+        long gameId;
+        @Label("Frame Index")
+        @Description("Frame the game was in")
+        int frameIndex;
+        @Label("Length")
+        @Description("Characters in the score board")
+        int length;
+    }
+}
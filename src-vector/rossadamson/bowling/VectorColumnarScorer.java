@@ -0,0 +1,121 @@
+package rossadamson.bowling;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scores complete games laid out column by column, a whole vector of
+ * games at a time.
+ * Every lane of the vectors is one game, and every step of the state
+ * machine is done for all the lanes at once with masks instead of
+ * branches. Games left over after the last full vector are scored by
+ * {@link ScalarColumnarScorer}.
+ * <p>
+ * Needs the jdk.incubator.vector module, so it is only built by the
+ * <code>vector</code> profile and loaded through
+ * {@link ColumnarScorer#create()}.
+ * @author Ross Adamson
+ */
+public class VectorColumnarScorer extends ColumnarScorer {
+    /**
+     * The widest vector shape the hardware supports.
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+    private static final IntVector ONE = IntVector.broadcast(SPECIES, 1);
+    private static final IntVector ALL_PINS = IntVector.broadcast(SPECIES, BowlingGame.ALL_PINS);
+    private static final IntVector INVALID = IntVector.broadcast(SPECIES, BatchScorer.INVALID_GAME);
+
+    @Override
+    public int scoreGames(ColumnarGames games, int[] finalScores) {
+        int gameCount = games.gameCount();
+        int vectorEnd = SPECIES.loopBound(gameCount);
+        int validGames = 0;
+
+        for (int game = 0; game < vectorEnd; game += SPECIES.length()) {
+            validGames += scoreLanes(games, game, finalScores);
+        }
+
+        for (int game = vectorEnd; game < gameCount; ++game) {
+            finalScores[game] = ScalarColumnarScorer.scoreGame(games, game);
+            if (finalScores[game] != BatchScorer.INVALID_GAME) {
+                ++validGames;
+            }
+        }
+
+        return validGames;
+    }
+
+    /**
+     * Score one vector of games.
+     * @param games The games.
+     * @param firstGame Index of the game in the first lane.
+     * @param finalScores Gets the final score of each game.
+     * @return The number of valid games.
+     */
+    private static int scoreLanes(ColumnarGames games, int firstGame, int[] finalScores) {
+        final int lastFrameIndex = BowlingGame.NUMBER_OF_FRAMES - 1;
+        int capacity = games.capacity();
+
+        IntVector rollCounts = IntVector.fromArray(SPECIES, games.rollCounts, firstGame);
+        IntVector score = ZERO;
+        IntVector frameIndex = ZERO;
+        IntVector rollInFrame = ZERO;
+        IntVector pinsUp = ALL_PINS;
+        // bonus owed to the next roll, and to the roll after it
+        IntVector nextBonus = ZERO;
+        IntVector secondBonus = ZERO;
+        VectorMask<Integer> lastFrameStrike = SPECIES.maskAll(false);
+        VectorMask<Integer> done = SPECIES.maskAll(false);
+        VectorMask<Integer> valid = rollCounts.compare(VectorOperators.LE, BowlingGame.MAX_ROLLS);
+
+        int rollLimit = Math.min(rollCounts.reduceLanes(VectorOperators.MAX), BowlingGame.MAX_ROLLS);
+        for (int rollIndex = 0; rollIndex < rollLimit; ++rollIndex) {
+            VectorMask<Integer> active = rollCounts.compare(VectorOperators.GT, rollIndex);
+            IntVector pins = IntVector.fromArray(SPECIES, games.rolls, rollIndex * capacity + firstGame);
+
+            VectorMask<Integer> bad = pins.compare(VectorOperators.LT, 0)
+                    .or(pins.compare(VectorOperators.GT, pinsUp))
+                    .or(done);
+            valid = valid.andNot(bad.and(active));
+
+            score = score.add(pins.mul(nextBonus.add(ONE)), active);
+            IntVector pinsLeft = pinsUp.sub(pins);
+            VectorMask<Integer> cleared = pinsLeft.compare(VectorOperators.EQ, 0);
+            VectorMask<Integer> firstRoll = rollInFrame.compare(VectorOperators.EQ, 0);
+            VectorMask<Integer> secondRoll = rollInFrame.compare(VectorOperators.EQ, 1);
+
+            // frames before the last
+            VectorMask<Integer> strike = firstRoll.and(cleared);
+            VectorMask<Integer> frameEnds = strike.or(secondRoll);
+            IntVector framesNextBonus = secondBonus.add(ONE, cleared);
+            IntVector framesSecondBonus = ZERO.blend(ONE, strike);
+            IntVector framesFrameIndex = frameIndex.add(ONE, frameEnds);
+            IntVector framesRollInFrame = ONE.blend(ZERO, frameEnds);
+            IntVector framesPinsUp = pinsLeft.blend(ALL_PINS, frameEnds);
+
+            // the last frame, which holds its own bonus rolls
+            VectorMask<Integer> lastFrameDone = secondRoll.andNot(lastFrameStrike.or(cleared))
+                    .or(rollInFrame.compare(VectorOperators.EQ, 2));
+            IntVector lastPinsUp = pinsLeft.blend(ALL_PINS, cleared);
+
+            VectorMask<Integer> inLastFrame = frameIndex.compare(VectorOperators.EQ, lastFrameIndex).and(active);
+            VectorMask<Integer> inFrames = inLastFrame.not().and(active);
+
+            nextBonus = nextBonus.blend(framesNextBonus, inFrames).blend(secondBonus, inLastFrame);
+            secondBonus = secondBonus.blend(framesSecondBonus, inFrames).blend(ZERO, inLastFrame);
+            pinsUp = pinsUp.blend(framesPinsUp, inFrames).blend(lastPinsUp, inLastFrame);
+            rollInFrame = rollInFrame.blend(framesRollInFrame, inFrames).add(ONE, inLastFrame);
+            frameIndex = frameIndex.blend(framesFrameIndex, inFrames);
+            lastFrameStrike = lastFrameStrike.or(firstRoll.and(cleared).and(inLastFrame));
+            done = done.or(lastFrameDone.and(inLastFrame));
+        }
+
+        VectorMask<Integer> scored = valid.and(done);
+        score.blend(INVALID, scored.not()).intoArray(finalScores, firstGame);
+
+        return scored.trueCount();
+    }
+}
@@ -0,0 +1,123 @@
+package rossadamson.bowling;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A view of a game in a {@link GameArchiveReader}.
+ * The view reads the game straight from the archive's mapped bytes. It can
+ * be pointed at another game with {@link GameArchiveReader#game(long, ArchivedGame)}.
+ * Games in an archive were checked when they were written, so the view
+ * trusts their rolls.
+ * @author Ross Adamson
+ */
+public class ArchivedGame {
+    /**
+     * The mapped bytes holding the game.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Position of the game's record in the buffer.
+     */
+    private int position;
+    /**
+     * Number of rolls in the game.
+     */
+    private int rollCount;
+
+    /**
+     * Point the view at a game.
+     * @param buffer The mapped bytes holding the game.
+     * @param position Position of the game's record in the buffer.
+     * @param rollCount Number of rolls in the game.
+     */
+    void point(ByteBuffer buffer, int position, int rollCount) {
+        this.buffer = buffer;
+        this.position = position;
+        this.rollCount = rollCount;
+    }
+
+    /**
+     * Get the number of rolls in the game.
+     */
+    public int rollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Get the number of pins knocked down by a roll.
+     * @param rollIndex Index of the roll in the game.
+     */
+    public int rollPins(int rollIndex) {
+        int packed = buffer.get(position + rollIndex / 2);
+        return ((rollIndex & 1) == 0) ? (packed >> 4) & 0xf : packed & 0xf;
+    }
+
+    /**
+     * Get the pins of a roll, or 0 if the roll hasn't been made.
+     * @param rollIndex Index of the roll in the game.
+     */
+    private int pinsOrZero(int rollIndex) {
+        return (rollIndex < rollCount) ? rollPins(rollIndex) : 0;
+    }
+
+    /**
+     * Get the index of the first roll of the last frame.
+     * @return -1 if the game hasn't reached the last frame.
+     */
+    private int lastFrameStart() {
+        int rollIndex = 0;
+
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES - 1 && rollIndex < rollCount; ++frameIndex) {
+            rollIndex += (rollPins(rollIndex) == BowlingGame.ALL_PINS) ? 1 : 2;
+        }
+
+        return (rollIndex < rollCount) ? rollIndex : -1;
+    }
+
+    /**
+     * Get the total score of the game.
+     * Include scores from frames that are incomplete.
+     */
+    public int totalScore() {
+        int score = 0;
+        int rollIndex = 0;
+
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES && rollIndex < rollCount; ++frameIndex) {
+            int first = rollPins(rollIndex);
+            int second = pinsOrZero(rollIndex + 1);
+
+            if (frameIndex == BowlingGame.NUMBER_OF_FRAMES - 1) {
+                // the last frame holds its own bonus rolls
+                score += first + second + pinsOrZero(rollIndex + 2);
+            } else if (first == BowlingGame.ALL_PINS) {
+                score += first + second + pinsOrZero(rollIndex + 2);
+                rollIndex += 1;
+            } else if (first + second == BowlingGame.ALL_PINS) {
+                score += first + second + pinsOrZero(rollIndex + 2);
+                rollIndex += 2;
+            } else {
+                score += first + second;
+                rollIndex += 2;
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Whether the game is finished.
+     */
+    public boolean isFinished() {
+        boolean finished = false;
+        int start = lastFrameStart();
+
+        if (start >= 0) {
+            int first = rollPins(start);
+            int second = pinsOrZero(start + 1);
+            boolean bonus = (first == BowlingGame.ALL_PINS) || (first + second == BowlingGame.ALL_PINS);
+            finished = (rollCount - start == (bonus ? 3 : 2));
+        }
+
+        return finished;
+    }
+}
@@ -0,0 +1,252 @@
+package rossadamson.bowling;
+
+/**
+ * Scores many complete games at once from packed roll arrays.
+ * The rolls of every game are stored one after another in one array, and
+ * an offsets array gives where each game starts: the rolls of game
+ * <i>g</i> are at <code>offsets[g]</code> up to (not including)
+ * <code>offsets[g + 1]</code>, so there is one more offset than there are
+ * games.
+ * Each game is checked with the same rules as {@link Frame#canRoll(Roll)},
+ * and must have exactly the rolls of a finished game. Scoring creates no
+ * objects.
+ * @author Ross Adamson
+ */
+public final class BatchScorer {
+    /**
+     * Score given for a game that isn't a valid, complete game.
+     */
+    public static final int INVALID_GAME = -1;
+
+    /**
+     * Not instantiable.
+     */
+    private BatchScorer() {
+    }
+
+    /**
+     * Score every game in a packed roll array.
+     * @param rolls Pins of every roll of every game.
+     * @param offsets Where the rolls of each game start, plus where the
+     * last game ends.
+     * @param finalScores Gets the final score of each game, or
+     * {@link #INVALID_GAME}. Must have room for every game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame of each game, {@link BowlingGame#NUMBER_OF_FRAMES} entries
+     * per game. Entries of invalid games are unspecified.
+     * @return The number of valid games.
+     */
+    public static int scoreGames(byte[] rolls, int[] offsets, int[] finalScores, int[] cumulativeScores) {
+        return scoreGames(rolls, offsets, offsets.length - 1, finalScores, cumulativeScores);
+    }
+
+    /**
+     * Score the first games in a packed roll array.
+     * @param rolls Pins of every roll of every game.
+     * @param offsets Where the rolls of each game start, plus where the
+     * last game ends. Only the first gameCount + 1 entries are used.
+     * @param gameCount Number of games to score.
+     * @param finalScores Gets the final score of each game, or
+     * {@link #INVALID_GAME}. Must have room for every game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame of each game, {@link BowlingGame#NUMBER_OF_FRAMES} entries
+     * per game. Entries of invalid games are unspecified.
+     * @return The number of valid games.
+     */
+    public static int scoreGames(byte[] rolls, int[] offsets, int gameCount, int[] finalScores, int[] cumulativeScores) {
+        return scoreGames(rolls, null, offsets, gameCount, finalScores, cumulativeScores);
+    }
+
+    /**
+     * Score every game in a packed roll array.
+     * @param rolls Pins of every roll of every game.
+     * @param offsets Where the rolls of each game start, plus where the
+     * last game ends.
+     * @param finalScores Gets the final score of each game, or
+     * {@link #INVALID_GAME}. Must have room for every game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame of each game, {@link BowlingGame#NUMBER_OF_FRAMES} entries
+     * per game. Entries of invalid games are unspecified.
+     * @return The number of valid games.
+     */
+    public static int scoreGames(int[] rolls, int[] offsets, int[] finalScores, int[] cumulativeScores) {
+        return scoreGames(rolls, offsets, offsets.length - 1, finalScores, cumulativeScores);
+    }
+
+    /**
+     * Score the first games in a packed roll array.
+     * @param rolls Pins of every roll of every game.
+     * @param offsets Where the rolls of each game start, plus where the
+     * last game ends. Only the first gameCount + 1 entries are used.
+     * @param gameCount Number of games to score.
+     * @param finalScores Gets the final score of each game, or
+     * {@link #INVALID_GAME}. Must have room for every game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame of each game, {@link BowlingGame#NUMBER_OF_FRAMES} entries
+     * per game. Entries of invalid games are unspecified.
+     * @return The number of valid games.
+     */
+    public static int scoreGames(int[] rolls, int[] offsets, int gameCount, int[] finalScores, int[] cumulativeScores) {
+        return scoreGames(null, rolls, offsets, gameCount, finalScores, cumulativeScores);
+    }
+
+    /**
+     * Score the first games in a packed roll array of either type.
+     * @param bytes Pins of every roll of every game, or null to use ints.
+     * @param ints Pins of every roll of every game, used if bytes is null.
+     * @see #scoreGames(byte[], int[], int, int[], int[])
+     */
+    private static int scoreGames(byte[] bytes, int[] ints, int[] offsets, int gameCount,
+            int[] finalScores, int[] cumulativeScores) {
+        int validGames = 0;
+
+        for (int game = 0; game < gameCount; ++game) {
+            int score = scoreGame(bytes, ints, offsets[game], offsets[game + 1],
+                    cumulativeScores, game * BowlingGame.NUMBER_OF_FRAMES);
+            finalScores[game] = score;
+            if (score != INVALID_GAME) {
+                ++validGames;
+            }
+        }
+
+        return validGames;
+    }
+
+    /**
+     * Score one complete game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame.
+     * @param cumulativeOffset Where the running score of the first frame goes.
+     * @return The final score, or {@link #INVALID_GAME}.
+     */
+    public static int scoreGame(byte[] rolls, int start, int end, int[] cumulativeScores, int cumulativeOffset) {
+        return scoreGame(rolls, null, start, end, cumulativeScores, cumulativeOffset);
+    }
+
+    /**
+     * Score one complete game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame.
+     * @param cumulativeOffset Where the running score of the first frame goes.
+     * @return The final score, or {@link #INVALID_GAME}.
+     */
+    public static int scoreGame(int[] rolls, int start, int end, int[] cumulativeScores, int cumulativeOffset) {
+        return scoreGame(null, rolls, start, end, cumulativeScores, cumulativeOffset);
+    }
+
+    /**
+     * Score one complete game from a packed roll array of either type.
+     * Both public types share this one scorer, reading the rolls through
+     * {@link #pins(byte[], int[], int)}, so the frame rules live in one place.
+     * @param bytes Pins of the rolls, or null to use ints.
+     * @param ints Pins of the rolls, used if bytes is null.
+     * @see #scoreGame(byte[], int, int, int[], int)
+     */
+    private static int scoreGame(byte[] bytes, int[] ints, int start, int end,
+            int[] cumulativeScores, int cumulativeOffset) {
+        final int lastFrameIndex = BowlingGame.NUMBER_OF_FRAMES - 1;
+        final int allPins = BowlingGame.ALL_PINS;
+        int score = 0;
+        int rollIndex = start;
+        boolean valid = true;
+
+        for (int frameIndex = 0; valid && frameIndex < lastFrameIndex; ++frameIndex) {
+            if (rollIndex + 2 >= end) {
+                // the last frame alone takes at least two more rolls
+                valid = false;
+            } else {
+                int first = pins(bytes, ints, rollIndex);
+                int second = pins(bytes, ints, rollIndex + 1);
+                if (first < 0 || first > allPins) {
+                    valid = false;
+                } else if (first == allPins) {
+                    // the bonus rolls get checked in their own frames
+                    score += allPins + second + pins(bytes, ints, rollIndex + 2);
+                    rollIndex += 1;
+                } else if (second < 0 || first + second > allPins) {
+                    valid = false;
+                } else if (first + second == allPins) {
+                    score += allPins + pins(bytes, ints, rollIndex + 2);
+                    rollIndex += 2;
+                } else {
+                    score += first + second;
+                    rollIndex += 2;
+                }
+
+                if (cumulativeScores != null) {
+                    cumulativeScores[cumulativeOffset + frameIndex] = score;
+                }
+            }
+        }
+
+        if (valid && rollIndex + 1 < end) {
+            int lastFrameRolls = lastFrameRolls(rollIndex, end,
+                    pins(bytes, ints, rollIndex), pins(bytes, ints, rollIndex + 1),
+                    (rollIndex + 2 < end) ? pins(bytes, ints, rollIndex + 2) : 0);
+            for (int count = 0; count < lastFrameRolls; ++count) {
+                score += pins(bytes, ints, rollIndex + count);
+            }
+            valid = (lastFrameRolls != 0);
+        } else {
+            valid = false;
+        }
+
+        if (valid && cumulativeScores != null) {
+            cumulativeScores[cumulativeOffset + lastFrameIndex] = score;
+        }
+
+        return valid ? score : INVALID_GAME;
+    }
+
+    /**
+     * Get the pins of a roll from a packed roll array of either type.
+     * The choice is the same for every roll of a batch, so the branch
+     * costs next to nothing.
+     * @param bytes Pins of the rolls, or null to use ints.
+     * @param ints Pins of the rolls, used if bytes is null.
+     * @param rollIndex Index of the roll.
+     */
+    private static int pins(byte[] bytes, int[] ints, int rollIndex) {
+        return (bytes != null) ? bytes[rollIndex] : ints[rollIndex];
+    }
+
+    /**
+     * Check the rolls of the last frame.
+     * @param rollIndex Index of the first roll of the last frame.
+     * @param end Index just past the last roll of the game.
+     * @param first Pins of the first roll.
+     * @param second Pins of the second roll.
+     * @param third Pins of the third roll, or 0 if there isn't one.
+     * @return The number of rolls in the last frame, or 0 if the rolls
+     * aren't a valid last frame that ends the game.
+     */
+    private static int lastFrameRolls(int rollIndex, int end, int first, int second, int third) {
+        final int allPins = BowlingGame.ALL_PINS;
+        int rollCount = 0;
+        boolean valid = false;
+
+        if (first < 0 || first > allPins || second < 0) {
+            valid = false;
+        } else if (first == allPins) {
+            // a strike gets two more rolls, with a new rack after another strike
+            int pinsUp = (second == allPins) ? allPins : allPins - second;
+            rollCount = 3;
+            valid = second <= allPins && third >= 0 && third <= pinsUp;
+        } else if (first + second == allPins) {
+            // a spare gets one more roll at a new rack
+            rollCount = 3;
+            valid = third >= 0 && third <= allPins;
+        } else {
+            rollCount = 2;
+            valid = first + second < allPins;
+        }
+
+        return (valid && rollIndex + rollCount == end) ? rollCount : 0;
+    }
+}
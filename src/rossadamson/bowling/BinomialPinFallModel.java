@@ -0,0 +1,40 @@
+package rossadamson.bowling;
+
+/**
+ * A bowler who knocks down each standing pin on its own, with the same
+ * chance for every pin and every roll, first ball or not.
+ * @author Ross Adamson
+ */
+public class BinomialPinFallModel implements PinFallModel {
+    /**
+     * The chance of each number of pins falling, indexed by
+     * pinsUp * (ALL_PINS + 1) + pins.
+     */
+    private final double[] probabilities;
+
+    /**
+     * Constructor.
+     * @param pinProbability Chance that each standing pin falls, from 0 to 1.
+     */
+    public BinomialPinFallModel(double pinProbability) {
+        if (!(pinProbability >= 0.0 && pinProbability <= 1.0)) {
+            throw new IllegalArgumentException("pin probability must be from 0 to 1");
+        }
+
+        final int columns = BowlingGame.ALL_PINS + 1;
+        probabilities = new double[columns * columns];
+        for (int pinsUp = 0; pinsUp <= BowlingGame.ALL_PINS; ++pinsUp) {
+            double choose = 1.0;
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                probabilities[pinsUp * columns + pins] = choose *
+                        Math.pow(pinProbability, pins) * Math.pow(1.0 - pinProbability, pinsUp - pins);
+                choose = choose * (pinsUp - pins) / (pins + 1);
+            }
+        }
+    }
+
+    @Override
+    public double probability(boolean firstBall, int pinsUp, int pins) {
+        return probabilities[pinsUp * (BowlingGame.ALL_PINS + 1) + pins];
+    }
+}
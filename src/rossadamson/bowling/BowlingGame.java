@@ -1,8 +1,9 @@
 package rossadamson.bowling;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a bowling game.
@@ -19,6 +20,62 @@ public class BowlingGame {
      * made, or 0 if no rolls have been made.
      */
     public int currentFrameIndex;
+    /**
+     * The rolls owned by the game, in the order they were made.
+     * Rolls passed to {@link #addRoll(Roll)} are copied into these, so
+     * callers may pass shared rolls from {@link Roll#of(int)}.
+     */
+    private Roll[] rolls;
+    /**
+     * The number of rolls made so far.
+     */
+    private int rollCount;
+    /**
+     * The score of each frame so far, including bonuses from
+     * rolls made after the frame.
+     */
+    private int[] frameScores;
+    /**
+     * The running score through each frame, up to the current frame.
+     */
+    private int[] cumulativeScores;
+    /**
+     * The number of rolls each frame is still waiting on for a
+     * strike or spare bonus.
+     */
+    private int[] bonusRollsPending;
+    /**
+     * The index of the frame each roll is in.
+     */
+    private int[] rollFrameIndexes;
+    /**
+     * Holds the rolls to add back while a correction rebuilds the end of
+     * the game.
+     */
+    private int[] correctionRolls;
+    /**
+     * Whether publishing for {@link #snapshot()} waits until a correction
+     * is done.
+     */
+    private boolean publishSuspended;
+    /**
+     * Identifies the game in flight recorder events.
+     */
+    private long id;
+    /**
+     * Sequence of the rolls published for {@link #snapshot()}. It is odd
+     * while the published rolls are being changed.
+     */
+    private volatile int publishSequence;
+    /**
+     * Published pins of the first rolls, packed as described in
+     * {@link GameSnapshot}.
+     */
+    private volatile long publishedLowRolls;
+    /**
+     * Published pins of the rest of the rolls, and the roll count.
+     */
+    private volatile long publishedHighRolls;
     /**
      * Number of frames in a bowling game.
      */
@@ -36,9 +93,33 @@ public class BowlingGame {
      */
     public static final int MIN_ROLLS = 11;
     /**
-     * Roll types used by {@link #rollToString()}.
+     * Highest final score possible, from a perfect game.
+     */
+    public static final int MAX_SCORE = 300;
+    /**
+     * Status from {@link #tryAddRoll(int)}: the roll was added.
      */
-    private enum RollType {Normal, Strike, Spare};
+    public static final int ROLL_OK = 0;
+    /**
+     * Status from {@link #tryAddRoll(int)}: the game is already finished.
+     */
+    public static final int ROLL_GAME_FINISHED = 1;
+    /**
+     * Status from {@link #tryAddRoll(int)}: more pins than are standing.
+     */
+    public static final int ROLL_TOO_MANY_PINS = 2;
+    /**
+     * Status from {@link #tryAddRoll(int)}: a negative number of pins.
+     */
+    public static final int ROLL_NEGATIVE = 3;
+    /**
+     * Room for the longest string from {@link #toString()}.
+     */
+    private static final int SCOREBOARD_CAPACITY = 192;
+    /**
+     * The id of the next game made.
+     */
+    private static final AtomicLong NEXT_ID = new AtomicLong();
      
     /**
      * Constructor.
@@ -48,6 +129,16 @@ public class BowlingGame {
         for (int frameIndex = 0; frameIndex < NUMBER_OF_FRAMES; ++frameIndex) {
             frames[frameIndex] = new Frame();
         }
+        rolls = new Roll[MAX_ROLLS];
+        for (int rollIndex = 0; rollIndex < MAX_ROLLS; ++rollIndex) {
+            rolls[rollIndex] = new Roll(0);
+        }
+        frameScores = new int[NUMBER_OF_FRAMES];
+        cumulativeScores = new int[NUMBER_OF_FRAMES];
+        bonusRollsPending = new int[NUMBER_OF_FRAMES];
+        rollFrameIndexes = new int[MAX_ROLLS];
+        correctionRolls = new int[MAX_ROLLS];
+        id = NEXT_ID.getAndIncrement();
         init();
     }
     
@@ -57,23 +148,50 @@ public class BowlingGame {
     public void init() {
         for (int frameIndex = 0; frameIndex < NUMBER_OF_FRAMES; ++frameIndex) {
             frames[frameIndex].init();
+            frameScores[frameIndex] = 0;
+            cumulativeScores[frameIndex] = 0;
+            bonusRollsPending[frameIndex] = 0;
         }
         frames[NUMBER_OF_FRAMES - 1].isLast = true;
         currentFrameIndex = 0;
+        rollCount = 0;
+        publish(0, 0);
     }
    
+    /**
+     * Get the id that identifies the game in flight recorder events.
+     * Each game starts with its own id, and keeps it when it is
+     * initialized again.
+     */
+    public long id() {
+        return id;
+    }
+    
+    /**
+     * Set the id that identifies the game in flight recorder events, such
+     * as a number the application knows the game by. Games on a
+     * {@link LaneManager} are identified by their lane number instead.
+     * @param id The id.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+    
     /**
      * Get the total score of the game so far.
      * Include scores from frames that are incomplete.
      */
     public int totalScore() {
-        int score = 0;
-        
-        for (int frameIndex = 0; frameIndex <= currentFrameIndex; ++frameIndex) {
-            score += frames[frameIndex].getScore();
-        }
-        
-        return score;
+        return cumulativeScores[currentFrameIndex];
+    }
+    
+    /**
+     * Get the running score of the game through a frame.
+     * Include scores from frames that are incomplete.
+     * @param frameIndex Index of the last frame to include.
+     */
+    public int cumulativeScore(int frameIndex) {
+        return cumulativeScores[Math.min(frameIndex, currentFrameIndex)];
     }
     
     /**
@@ -101,192 +219,440 @@ public class BowlingGame {
         return frame;
     }
     
+    /**
+     * Get the index of the frame the next roll goes in, or of the last
+     * frame if the game is finished.
+     */
+    int nextRollFrameIndex() {
+        int frameIndex = currentFrameIndex;
+        if (frames[currentFrameIndex].hasAllRolls() && !frames[currentFrameIndex].isLast) {
+            ++frameIndex;
+        }
+        return frameIndex;
+    }
+    
     /**
      * Add a roll to the game.
-     * @param pinsDown Number of pins down in the roll.
+     * @param roll The roll to add. Only its pins are kept, so the roll
+     * is not linked into the game and may be shared.
      * @throws GameFinishedException
      * @throws InvalidRollException
      */
     public void addRoll(Roll roll) throws GameFinishedException, InvalidRollException {
+        checkRollStatus(tryAddRoll(roll.pins()));
+    }
+    
+    /**
+     * Add a roll to the game if it is valid.
+     * This reports a rejected roll without throwing.
+     * @param pins Number of pins down in the roll.
+     * @return {@link #ROLL_OK} if the roll was added, otherwise the reason
+     * it was rejected.
+     */
+    public int tryAddRoll(int pins) {
+        int status = ROLL_OK;
+        Object event = ScoringEvents.INSTANCE.rollStarted();
+        
+        if (ScoringMetrics.ENABLED) {
+            long startNanos = System.nanoTime();
+            status = rollPins(pins);
+            ScoringMetrics.INSTANCE.rollTried(status, startNanos);
+        } else {
+            status = rollPins(pins);
+        }
+        
+        ScoringEvents.INSTANCE.rollEnded(event, this, pins, status);
+        return status;
+    }
+    
+    /**
+     * Add a roll to the game if it is valid, without counting it in the
+     * {@link ScoringMetrics}.
+     * @param pins Number of pins down in the roll.
+     * @return {@link #ROLL_OK} if the roll was added, otherwise the reason
+     * it was rejected.
+     */
+    private int rollPins(int pins) {
+        int status = ROLL_OK;
+        
         if (isFinished()) {
-            throw new GameFinishedException();
-        } else if (roll.pins() > nextRollFrame().pinsUp()) {
-            throw new InvalidRollException();
+            status = ROLL_GAME_FINISHED;
+        } else if (pins < 0) {
+            status = ROLL_NEGATIVE;
+        } else if (pins > nextRollFrame().pinsUp()) {
+            status = ROLL_TOO_MANY_PINS;
         } else {
+            Roll ownRoll = rolls[rollCount++];
+            ownRoll.init(pins);
+            
             // check for frame change
             if (frames[currentFrameIndex].hasAllRolls()) {
                 // link the roll from the last frame to the new roll
-                frames[currentFrameIndex].lastRoll.nextRoll = roll;
+                frames[currentFrameIndex].lastRoll.nextRoll = ownRoll;
                 ++currentFrameIndex;
             }
             
-            frames[currentFrameIndex].addRoll(roll);
+            frames[currentFrameIndex].addRoll(ownRoll);
+            rollFrameIndexes[rollCount - 1] = currentFrameIndex;
+            updateScores(pins);
+            publishRoll(rollCount - 1, pins);
         }
+        
+        return status;
     }
     
     /**
-     * Get the set of possible rolls.
-     * @return Zero sized result means no more rolls are possible
-     * because the game is over.
+     * Remove the last roll from the game.
+     * This takes constant time: only the frame of the roll and the two
+     * frames before it are scored again.
+     * @return Whether there was a roll to remove.
      */
-    public Collection<Roll> possibleRolls() {
-        Frame frame = nextRollFrame();
-        Collection<Roll> result = null;
+    public boolean undoLastRoll() {
+        boolean undone = (rollCount > 0);
         
-        if (frame == null) {
-            result = new ArrayList<Roll>();
-        } else {
-            result = frame.possibleRolls();
+        if (undone) {
+            Frame frame = frames[currentFrameIndex];
+            frame.removeLastRoll();
+            --rollCount;
+            publishRoll(rollCount, 0);
+            
+            int changedFrameIndex = currentFrameIndex;
+            if (frame.rollCount() == 0 && currentFrameIndex > 0) {
+                // back to the frame before, which now ends the rolls
+                frameScores[currentFrameIndex] = 0;
+                cumulativeScores[currentFrameIndex] = 0;
+                bonusRollsPending[currentFrameIndex] = 0;
+                --currentFrameIndex;
+                frames[currentFrameIndex].lastRoll.nextRoll = null;
+            }
+            
+            rescoreFrames(Math.max(0, changedFrameIndex - 2));
         }
         
-        return result;
+        return undone;
     }
     
     /**
-     * Determine whether a roll would be a valid next
-     * roll in the game.
-     * @param roll A hypothetical roll.
+     * Change the pins of a roll already made.
+     * If the frames stay the same, only the frame of the roll and the two
+     * frames before it are scored again. If the change moves where frames
+     * start, such as a strike becoming a spare, the rolls after it are
+     * added again; the frames before the roll are never rebuilt.
+     * @param rollIndex Index of the roll in the game.
+     * @param pins The right number of pins down in the roll.
+     * @return {@link #ROLL_OK} if the roll was changed, otherwise the
+     * reason the corrected game wouldn't be valid, and the game is left
+     * as it was.
+     * @throws IndexOutOfBoundsException If the roll hasn't been made.
      */
-    public boolean canRoll(Roll roll) {
-        Frame frame = nextRollFrame();
-        boolean result = false;
+    public int correctRoll(int rollIndex, int pins) {
+        if (rollIndex < 0 || rollIndex >= rollCount) {
+            throw new IndexOutOfBoundsException("no roll " + rollIndex);
+        }
+        
+        int status = ROLL_OK;
+        int frameIndex = rollFrameIndexes[rollIndex];
+        Frame frame = frames[frameIndex];
+        boolean firstInFrame = (rollIndex == 0 || rollFrameIndexes[rollIndex - 1] != frameIndex);
+        Roll roll = rolls[rollIndex];
         
-        if (frame != null) {
-            result = frame.canRoll(roll);
+        // without a change to the strike, the frames stay the same if the frame still fits
+        boolean framesKept = false;
+        if (pins < 0) {
+            status = ROLL_NEGATIVE;
+        } else if (frame.isLast) {
+            framesKept = false;
+        } else if (firstInFrame) {
+            int secondPins = (frame.rollCount() > 1) ? roll.nextRoll.pins() : 0;
+            framesKept = (roll.pins() == ALL_PINS) ? (pins == ALL_PINS) :
+                    (pins < ALL_PINS && pins + secondPins <= ALL_PINS);
+        } else {
+            framesKept = (frame.firstRoll.pins() + pins <= ALL_PINS);
         }
         
-        return result;
-    }
-   
-    /**
-     * Get an iterator over all the rolls in the game.
-     */
-    public Iterator<Roll> rollIterator() {
-        return new RollIterator(frames[0].firstRoll, frames[currentFrameIndex].lastRoll);
+        if (status != ROLL_OK) {
+            // nothing to change
+        } else if (framesKept) {
+            roll.setPins(pins);
+            frame.recount();
+            publishRoll(rollIndex, pins);
+            rescoreFrames(Math.max(0, frameIndex - 2));
+        } else {
+            status = rebuildFrom(rollIndex, pins);
+        }
+        
+        return status;
     }
     
     /**
-     * Convert roll to a string representation used in {@link #toString()}.
-     * @param roll
-     * @param type The type of roll.
+     * Add the rolls from one roll to the end again, with that roll changed.
+     * @param rollIndex Index of the roll to change.
+     * @param pins The new pins of the roll.
+     * @return {@link #ROLL_OK} if the game was rebuilt, otherwise the
+     * reason the rolls didn't fit, and the game is left as it was.
      */
-    protected static String rollToString(Roll roll, RollType type) {
-        String result = null;
+    private int rebuildFrom(int rollIndex, int pins) {
+        int tailCount = rollCount - rollIndex;
+        for (int tailIndex = 0; tailIndex < tailCount; ++tailIndex) {
+            correctionRolls[tailIndex] = rolls[rollIndex + tailIndex].pins();
+        }
+        int oldPins = correctionRolls[0];
+        correctionRolls[0] = pins;
+        
+        // snapshots see only the game before and after
+        publishSuspended = true;
+        while (rollCount > rollIndex) {
+            undoLastRoll();
+        }
+        int status = ROLL_OK;
+        for (int tailIndex = 0; status == ROLL_OK && tailIndex < tailCount; ++tailIndex) {
+            status = rollPins(correctionRolls[tailIndex]);
+        }
         
-        switch (type) {
-        case Normal:
-            if (roll == null) {
-                result = "";
-            } else if (roll.pins() == 0) {
-                result = "-";
+        if (status != ROLL_OK) {
+            // put back the rolls as they were
+            while (rollCount > rollIndex) {
+                undoLastRoll();
+            }
+            correctionRolls[0] = oldPins;
+            for (int tailIndex = 0; tailIndex < tailCount; ++tailIndex) {
+                rollPins(correctionRolls[tailIndex]);
+            }
+        }
+        publishSuspended = false;
+        
+        long lowRolls = 0;
+        long highRolls = (long) rollCount << GameSnapshot.COUNT_SHIFT;
+        for (int index = 0; index < rollCount; ++index) {
+            long pinsBits = (long) rolls[index].pins() << ((index % GameSnapshot.LOW_ROLLS) * GameSnapshot.BITS_PER_ROLL);
+            if (index < GameSnapshot.LOW_ROLLS) {
+                lowRolls |= pinsBits;
             } else {
-                result = "" + roll.pins();
+                highRolls |= pinsBits;
             }
-            break;
-        case Strike:
-           result = "X"; 
-           break;
-        case Spare:
-            result = "/";
-            break;
-        default:
-            break;
         }
-       
-        return result;
+        publish(lowRolls, highRolls);
+        
+        return status;
     }
     
     /**
-     * Get a string representation of the score.
+     * Score frames again from their rolls, and carry the running score
+     * forward to the current frame.
+     * @param firstFrameIndex Index of the first frame to score again. The
+     * frames after it are scored again up to two frames past it, which
+     * is as far as a roll's bonus reaches.
      */
-    @Override
-    public String toString() {
-        String result = "|";
-        String frameDivider = " | ";
-        String emptyBox = " ";
-        String skipSymbol = ".";
-        String currentLocationSymbol = "@";
-       
-        // layout the frames in order
-        for (int frameIndex = 0; frameIndex < NUMBER_OF_FRAMES; ++frameIndex) {
+    private void rescoreFrames(int firstFrameIndex) {
+        int lastFrameIndex = Math.min(firstFrameIndex + 2, currentFrameIndex);
+        for (int frameIndex = firstFrameIndex; frameIndex <= lastFrameIndex; ++frameIndex) {
             Frame frame = frames[frameIndex];
+            frameScores[frameIndex] = frame.getScore();
             
-            // put the frame score first
-            String frameScore = null;
-            if (frame.scoreIsComplete()) {
-                frameScore = "" + frame.getScore();
-            } else if (frame.getScore() == 0) {
-                frameScore = " ? ";
-            } else {
-                frameScore = "" + frame.getScore() + "+?";
-            }
-            result += "(" + frameScore + ") ";
-            
-            // obtain values for first, second, third roll boxes
-            if (frame.isLast) {
-                String firstBox, secondBox, thirdBox;
-                firstBox = secondBox = thirdBox = emptyBox;
-                
-                Iterator<Roll> rolls = frame.rollIterator();
-                if (rolls.hasNext()) {
-                    Roll firstRoll = rolls.next();
-                    firstBox = rollToString(firstRoll, (frame.isStrike() ? RollType.Strike : RollType.Normal));
-                    
-                    if (rolls.hasNext()) {
-                        Roll secondRoll = rolls.next();
-                        if (frame.isSpare()) {
-                            secondBox = rollToString(secondRoll, RollType.Spare);
-                        } else {
-                            secondBox = rollToString(secondRoll, RollType.Normal);
-                        }
-                        
-                        if (rolls.hasNext()) {
-                            Roll thirdRoll = rolls.next();
-                            thirdBox = rollToString(thirdRoll, RollType.Normal);
-                        } else if (frame == nextRollFrame()) {
-                            thirdBox = currentLocationSymbol;
-                        } else if (frame.hasAllRolls()) {
-                            thirdBox = skipSymbol;
-                        }
-                    } else if (frame == nextRollFrame()) {
-                        secondBox = currentLocationSymbol;
-                    }
-                } else if (frame == nextRollFrame()) {
-                    firstBox = currentLocationSymbol;
+            // the last frame holds its own bonus rolls
+            int pending = 0;
+            if (!frame.isLast && frame.hasAllRolls() && (frame.isStrike() || frame.isSpare())) {
+                pending = frame.isStrike() ? 2 : 1;
+                for (Roll roll = frame.lastRoll.nextRoll; pending > 0 && roll != null; roll = roll.nextRoll) {
+                    --pending;
                 }
-                
-                result += firstBox + frameDivider + secondBox + frameDivider + thirdBox;
-                
+            }
+            bonusRollsPending[frameIndex] = pending;
+        }
+        
+        int score = (firstFrameIndex == 0) ? 0 : cumulativeScores[firstFrameIndex - 1];
+        for (int frameIndex = firstFrameIndex; frameIndex <= currentFrameIndex; ++frameIndex) {
+            score += frameScores[frameIndex];
+            cumulativeScores[frameIndex] = score;
+        }
+    }
+    
+    /**
+     * Publish a change to one roll for {@link #snapshot()}, along with
+     * the roll count.
+     * @param rollIndex Index of the roll.
+     * @param pins Number of pins down in the roll, or 0 if it was removed.
+     */
+    private void publishRoll(int rollIndex, int pins) {
+        if (!publishSuspended) {
+            int shift = (rollIndex % GameSnapshot.LOW_ROLLS) * GameSnapshot.BITS_PER_ROLL;
+            long lowRolls = publishedLowRolls;
+            long highRolls = publishedHighRolls & ~(-1L << GameSnapshot.COUNT_SHIFT);
+            if (rollIndex < GameSnapshot.LOW_ROLLS) {
+                lowRolls = (lowRolls & ~(GameSnapshot.ROLL_MASK << shift)) | ((long) pins << shift);
             } else {
-                String firstBox, secondBox;
-                firstBox = secondBox = emptyBox;
-                
-                Iterator<Roll> rolls = frame.rollIterator();
-                if (rolls.hasNext()) {
-                    Roll firstRoll = rolls.next();
-                    firstBox = rollToString(firstRoll, (frame.isStrike() ? RollType.Strike : RollType.Normal));
-                    
-                    if (rolls.hasNext()) {
-                        Roll secondRoll = rolls.next();
-                        secondBox = rollToString(secondRoll, (frame.isSpare() ? RollType.Spare : RollType.Normal));
-                    } else if (frame == nextRollFrame()) {
-                        secondBox = currentLocationSymbol;
-                    } else if (frame.hasAllRolls()) {
-                        secondBox = skipSymbol; 
-                    }
-                } else if (frame == nextRollFrame()) {
-                    firstBox = currentLocationSymbol;
-                }
-                
-                result += firstBox + frameDivider + secondBox;
+                highRolls = (highRolls & ~(GameSnapshot.ROLL_MASK << shift)) | ((long) pins << shift);
+            }
+            highRolls |= (long) rollCount << GameSnapshot.COUNT_SHIFT;
+            publish(lowRolls, highRolls);
+        }
+    }
+    
+    /**
+     * Publish the rolls for {@link #snapshot()}.
+     * @param lowRolls Pins of the first rolls, packed as described in
+     * {@link GameSnapshot}.
+     * @param highRolls Pins of the rest of the rolls, and the roll count.
+     */
+    private void publish(long lowRolls, long highRolls) {
+        int sequence = publishSequence;
+        publishSequence = sequence + 1;
+        publishedLowRolls = lowRolls;
+        publishedHighRolls = highRolls;
+        publishSequence = sequence + 2;
+    }
+    
+    /**
+     * Take an unchanging copy of the game.
+     * This is the only method that may be called from another thread while
+     * the game goes on. The rolls are published with a sequence lock, so
+     * the copy is always of the game between two rolls, and neither this
+     * nor adding rolls ever waits on a lock.
+     */
+    public GameSnapshot snapshot() {
+        int sequence;
+        long lowRolls;
+        long highRolls;
+        
+        do {
+            sequence = publishSequence;
+            lowRolls = publishedLowRolls;
+            highRolls = publishedHighRolls;
+        } while ((sequence & 1) != 0 || sequence != publishSequence);
+        
+        return new GameSnapshot(lowRolls, highRolls);
+    }
+    
+    /**
+     * Throw the shared exception for a rejected roll.
+     * @param status A status from {@link #tryAddRoll(int)}.
+     * @throws GameFinishedException
+     * @throws InvalidRollException
+     */
+    static void checkRollStatus(int status) throws GameFinishedException, InvalidRollException {
+        if (ScoringMetrics.ENABLED && status != ROLL_OK) {
+            ScoringMetrics.INSTANCE.exceptionThrown(status);
+        }
+        
+        if (status == ROLL_GAME_FINISHED) {
+            throw GameFinishedException.INSTANCE;
+        } else if (status != ROLL_OK) {
+            throw InvalidRollException.INSTANCE;
+        }
+    }
+    
+    /**
+     * Update the cached scores for a roll just added to the current frame.
+     * Only the current frame and the two frames before it can change, so
+     * this takes constant time.
+     * @param pins Number of pins down in the roll.
+     */
+    private void updateScores(int pins) {
+        int firstChangedFrameIndex = currentFrameIndex;
+        
+        // pay the bonus owed to earlier strike and spare frames
+        for (int frameIndex = Math.max(0, currentFrameIndex - 2); frameIndex < currentFrameIndex; ++frameIndex) {
+            if (bonusRollsPending[frameIndex] > 0) {
+                frameScores[frameIndex] += pins;
+                --bonusRollsPending[frameIndex];
+                firstChangedFrameIndex = Math.min(firstChangedFrameIndex, frameIndex);
+            }
+        }
+        
+        frameScores[currentFrameIndex] += pins;
+        
+        // the last frame holds its own bonus rolls
+        Frame frame = frames[currentFrameIndex];
+        if (!frame.isLast && frame.hasAllRolls()) {
+            if (frame.isStrike()) {
+                bonusRollsPending[currentFrameIndex] = 2;
+            } else if (frame.isSpare()) {
+                bonusRollsPending[currentFrameIndex] = 1;
             }
-          
-            result += " |";
         }
         
-        // add the total score
-        result += "| Total: " + totalScore();
+        // carry the running score forward from the first frame that changed
+        int score = (firstChangedFrameIndex == 0) ? 0 : cumulativeScores[firstChangedFrameIndex - 1];
+        for (int frameIndex = firstChangedFrameIndex; frameIndex <= currentFrameIndex; ++frameIndex) {
+            score += frameScores[frameIndex];
+            cumulativeScores[frameIndex] = score;
+        }
+    }
+    
+    /**
+     * Get the highest number of pins the next roll can knock down.
+     * @return -1 if the game is over.
+     */
+    public int maxNextRoll() {
+        Frame frame = nextRollFrame();
+        return (frame == null) ? -1 : frame.maxNextRoll();
+    }
+    
+    /**
+     * Get the set of possible rolls as a bit mask. See {@link Roll#rangeMask(int)}.
+     * @return Zero means no more rolls are possible because the game is over.
+     */
+    public int possibleRollsMask() {
+        return Roll.rangeMask(maxNextRoll());
+    }
+    
+    /**
+     * Get the set of possible rolls.
+     * The result is unmodifiable and holds shared rolls from {@link Roll#of(int)}.
+     * @return Zero sized result means no more rolls are possible
+     * because the game is over.
+     */
+    public Collection<Roll> possibleRolls() {
+        return Roll.getRangeOfRolls(maxNextRoll());
+    }
+    
+    /**
+     * Determine whether a roll would be a valid next
+     * roll in the game.
+     * @param roll A hypothetical roll.
+     */
+    public boolean canRoll(Roll roll) {
+        return canRoll(roll.pins());
+    }
+    
+    /**
+     * Determine whether a roll would be a valid next
+     * roll in the game.
+     * @param pins Pins knocked down by a hypothetical roll.
+     */
+    public boolean canRoll(int pins) {
+        return (pins >= 0) && (pins <= maxNextRoll());
+    }
+   
+    /**
+     * Get an iterator over all the rolls in the game.
+     */
+    public Iterator<Roll> rollIterator() {
+        return new RollIterator(frames[0].firstRoll, frames[currentFrameIndex].lastRoll);
+    }
+    
+    /**
+     * Get a string representation of the score.
+     * See {@link ScoreboardRenderer} to write it without making a string.
+     */
+    @Override
+    public String toString() {
+        Object event = ScoringEvents.INSTANCE.renderStarted();
+        long startNanos = ScoringMetrics.ENABLED ? System.nanoTime() : 0;
+        StringBuilder result = new StringBuilder(SCOREBOARD_CAPACITY);
         
-        return result;
+        try {
+            new ScoreboardRenderer().render(this, result);
+        } catch (IOException e) {
+            // a StringBuilder never throws this
+            throw new IllegalStateException(e);
+        }
+        
+        String scoreboard = result.toString();
+        if (ScoringMetrics.ENABLED) {
+            ScoringMetrics.INSTANCE.rendered(startNanos);
+        }
+        ScoringEvents.INSTANCE.renderEnded(event, this, scoreboard.length());
+        return scoreboard;
     }
 }
@@ -0,0 +1,108 @@
+package rossadamson.bowling;
+
+/**
+ * Complete games laid out column by column for scoring many at once.
+ * Roll <i>r</i> of every game is stored together, so roll <i>r</i> of
+ * game <i>g</i> is at <code>r * capacity() + g</code>. Scorers can then
+ * load the same roll of neighboring games with one contiguous read.
+ * Rolls after the end of a game are zero.
+ * @author Ross Adamson
+ */
+public class ColumnarGames {
+    /**
+     * The most games that fit.
+     */
+    private final int capacity;
+    /**
+     * Pins of every roll, column by column.
+     */
+    final int[] rolls;
+    /**
+     * The number of rolls given for each game.
+     */
+    final int[] rollCounts;
+    /**
+     * The number of games added.
+     */
+    private int gameCount;
+
+    /**
+     * Constructor.
+     * @param capacity The most games that fit.
+     */
+    public ColumnarGames(int capacity) {
+        this.capacity = capacity;
+        rolls = new int[BowlingGame.MAX_ROLLS * capacity];
+        rollCounts = new int[capacity];
+        gameCount = 0;
+    }
+
+    /**
+     * Remove every game.
+     */
+    public void clear() {
+        for (int index = 0; index < rolls.length; ++index) {
+            rolls[index] = 0;
+        }
+        for (int game = 0; game < gameCount; ++game) {
+            rollCounts[game] = 0;
+        }
+        gameCount = 0;
+    }
+
+    /**
+     * Add a game.
+     * A game with more than {@link BowlingGame#MAX_ROLLS} rolls is kept,
+     * but scores as invalid.
+     * @param gameRolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @return The index of the game.
+     * @throws IllegalStateException If there is no room for the game.
+     */
+    public int addGame(int[] gameRolls, int start, int end) {
+        if (gameCount == capacity) {
+            throw new IllegalStateException("no room for another game");
+        }
+
+        int game = gameCount++;
+        int count = Math.min(end - start, BowlingGame.MAX_ROLLS);
+        for (int rollIndex = 0; rollIndex < count; ++rollIndex) {
+            rolls[rollIndex * capacity + game] = gameRolls[start + rollIndex];
+        }
+        rollCounts[game] = end - start;
+
+        return game;
+    }
+
+    /**
+     * The most games that fit.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The number of games added.
+     */
+    public int gameCount() {
+        return gameCount;
+    }
+
+    /**
+     * The number of rolls given for a game.
+     * @param game Index of the game.
+     */
+    public int rollCount(int game) {
+        return rollCounts[game];
+    }
+
+    /**
+     * The pins knocked down by a roll of a game.
+     * @param rollIndex Index of the roll in the game.
+     * @param game Index of the game.
+     */
+    public int pins(int rollIndex, int game) {
+        return rolls[rollIndex * capacity + game];
+    }
+}
@@ -0,0 +1,49 @@
+package rossadamson.bowling;
+
+/**
+ * Scores complete games laid out column by column.
+ * Every game is checked with the same rules as {@link BatchScorer}, and
+ * scores {@link BatchScorer#INVALID_GAME} if it breaks them.
+ * <p>
+ * The games are scored as a state machine that takes one roll of every
+ * game per step. Each game carries its frame, the roll within the frame,
+ * the pins standing and the bonus owed to the next two rolls, so every game
+ * takes the same steps no matter where its frames start.
+ * @author Ross Adamson
+ */
+public abstract class ColumnarScorer {
+    /**
+     * The scorer that uses the Vector API, only built and loaded on
+     * runtimes that have the jdk.incubator.vector module.
+     */
+    private static final String VECTOR_SCORER = "rossadamson.bowling.VectorColumnarScorer";
+
+    /**
+     * Get the fastest scorer this runtime supports.
+     * That is the Vector API scorer when the jdk.incubator.vector module is
+     * available, and the scalar scorer otherwise.
+     */
+    public static ColumnarScorer create() {
+        ColumnarScorer scorer = null;
+
+        try {
+            scorer = (ColumnarScorer) Class.forName(VECTOR_SCORER).getConstructor().newInstance();
+        } catch (Exception e) {
+            scorer = new ScalarColumnarScorer();
+        } catch (LinkageError e) {
+            // the class is there, but the module isn't
+            scorer = new ScalarColumnarScorer();
+        }
+
+        return scorer;
+    }
+
+    /**
+     * Score every game.
+     * @param games The games.
+     * @param finalScores Gets the final score of each game, or
+     * {@link BatchScorer#INVALID_GAME}. Must have room for every game.
+     * @return The number of valid games.
+     */
+    public abstract int scoreGames(ColumnarGames games, int[] finalScores);
+}
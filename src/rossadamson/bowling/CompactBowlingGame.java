@@ -0,0 +1,443 @@
+package rossadamson.bowling;
+
+import java.util.Collection;
+
+/**
+ * A bowling game that keeps its rolls in a single primitive array.
+ * It offers the same game operations as {@link BowlingGame}, but instead of
+ * {@link Frame} objects linked through {@link Roll#nextRoll}, it stores the
+ * pins of each roll in a byte array along with the index of the first roll of
+ * each frame. Frame scores are index lookups into that array.
+ * @author Ross Adamson
+ */
+public class CompactBowlingGame {
+    /**
+     * Pins knocked down by each roll, in the order they were rolled.
+     * Slots past {@link #rollCount} are always zero.
+     */
+    private final byte[] rolls;
+    /**
+     * Index into {@link #rolls} of the first roll of each frame.
+     */
+    private final byte[] frameStarts;
+    /**
+     * The number of rolls made so far.
+     */
+    private int rollCount;
+    /**
+     * The index to the frame where the last roll was
+     * made, or 0 if no rolls have been made.
+     */
+    private int currentFrameIndex;
+    /**
+     * Pins standing for the next roll.
+     */
+    private int pinsUp;
+    /**
+     * Whether the game is finished.
+     */
+    private boolean finished;
+
+    /**
+     * Constructor.
+     */
+    public CompactBowlingGame() {
+        rolls = new byte[BowlingGame.MAX_ROLLS];
+        frameStarts = new byte[BowlingGame.NUMBER_OF_FRAMES];
+        init();
+    }
+
+    /**
+     * Initialize the object.
+     */
+    public void init() {
+        for (int rollIndex = 0; rollIndex < rollCount; ++rollIndex) {
+            rolls[rollIndex] = 0;
+        }
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+            frameStarts[frameIndex] = 0;
+        }
+        rollCount = 0;
+        currentFrameIndex = 0;
+        pinsUp = BowlingGame.ALL_PINS;
+        finished = false;
+    }
+
+    /**
+     * Make this game a copy of another game.
+     * @param other The game to copy.
+     */
+    public void copyFrom(CompactBowlingGame other) {
+        System.arraycopy(other.rolls, 0, rolls, 0, rolls.length);
+        System.arraycopy(other.frameStarts, 0, frameStarts, 0, frameStarts.length);
+        rollCount = other.rollCount;
+        currentFrameIndex = other.currentFrameIndex;
+        pinsUp = other.pinsUp;
+        finished = other.finished;
+    }
+
+    /**
+     * Get the total score of the game so far.
+     * Include scores from frames that are incomplete.
+     */
+    public int totalScore() {
+        int score = 0;
+
+        for (int frameIndex = 0; frameIndex <= currentFrameIndex; ++frameIndex) {
+            score += frameScore(frameIndex);
+        }
+
+        return score;
+    }
+
+    /**
+     * Whether the game is finished.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Get the number of rolls made so far.
+     */
+    public int rollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Get the number of pins knocked down by a roll.
+     * @param rollIndex Index of the roll in the game. Must be less
+     * than {@link #rollCount()}.
+     */
+    public int rollPins(int rollIndex) {
+        return rolls[rollIndex];
+    }
+
+    /**
+     * Get the index of the frame the next roll should go in.
+     * If no more rolls can be made, return -1.
+     */
+    public int nextRollFrameIndex() {
+        int frameIndex = -1;
+
+        if (!finished) {
+            if (hasAllRolls(currentFrameIndex)) {
+                frameIndex = currentFrameIndex + 1;
+            } else {
+                frameIndex = currentFrameIndex;
+            }
+        }
+
+        return frameIndex;
+    }
+
+    /**
+     * Get the index of the frame of the last roll, or 0 if no rolls have
+     * been made.
+     */
+    int lastRollFrameIndex() {
+        return currentFrameIndex;
+    }
+
+    /**
+     * Get the number of pins standing for the next roll.
+     * If the game is finished, return 0.
+     */
+    public int pinsUp() {
+        return finished ? 0 : pinsUp;
+    }
+
+    /**
+     * Add a roll to the game.
+     * @param roll The roll to add. Only its pins are kept.
+     * @throws GameFinishedException
+     * @throws InvalidRollException
+     */
+    public void addRoll(Roll roll) throws GameFinishedException, InvalidRollException {
+        addRoll(roll.pins());
+    }
+
+    /**
+     * Add a roll to the game.
+     * @param pins Number of pins down in the roll.
+     * @throws GameFinishedException
+     * @throws InvalidRollException
+     */
+    public void addRoll(int pins) throws GameFinishedException, InvalidRollException {
+        BowlingGame.checkRollStatus(tryAddRoll(pins));
+    }
+
+    /**
+     * Add a roll to the game if it is valid.
+     * This reports a rejected roll without throwing.
+     * @param pins Number of pins down in the roll.
+     * @return {@link BowlingGame#ROLL_OK} if the roll was added, otherwise
+     * the reason it was rejected.
+     */
+    public int tryAddRoll(int pins) {
+        int status = BowlingGame.ROLL_OK;
+
+        if (finished) {
+            status = BowlingGame.ROLL_GAME_FINISHED;
+        } else if (pins < 0) {
+            status = BowlingGame.ROLL_NEGATIVE;
+        } else if (pins > pinsUp) {
+            status = BowlingGame.ROLL_TOO_MANY_PINS;
+        } else {
+            // check for frame change
+            if (rollCount > 0 && hasAllRolls(currentFrameIndex)) {
+                ++currentFrameIndex;
+                frameStarts[currentFrameIndex] = (byte) rollCount;
+            }
+
+            rolls[rollCount++] = (byte) pins;
+
+            pinsUp -= pins;
+            if (hasAllRolls(currentFrameIndex)) {
+                finished = (currentFrameIndex == BowlingGame.NUMBER_OF_FRAMES - 1);
+                pinsUp = BowlingGame.ALL_PINS;
+            } else if (pinsUp == 0) {
+                // only the last frame gets a new rack within the frame
+                pinsUp = BowlingGame.ALL_PINS;
+            }
+        }
+
+        return status;
+    }
+
+    /**
+     * Get the highest number of pins the next roll can knock down.
+     * @return -1 if the game is over.
+     */
+    public int maxNextRoll() {
+        return finished ? -1 : pinsUp;
+    }
+    
+    /**
+     * Get the set of possible rolls as a bit mask. See {@link Roll#rangeMask(int)}.
+     * @return Zero means no more rolls are possible because the game is over.
+     */
+    public int possibleRollsMask() {
+        return Roll.rangeMask(maxNextRoll());
+    }
+
+    /**
+     * Get the set of possible rolls.
+     * The result is unmodifiable and holds shared rolls from {@link Roll#of(int)}.
+     * @return Zero sized result means no more rolls are possible
+     * because the game is over.
+     */
+    public Collection<Roll> possibleRolls() {
+        return Roll.getRangeOfRolls(maxNextRoll());
+    }
+
+    /**
+     * Determine whether a roll would be a valid next
+     * roll in the game.
+     * @param roll A hypothetical roll.
+     */
+    public boolean canRoll(Roll roll) {
+        return canRoll(roll.pins());
+    }
+
+    /**
+     * Determine whether a roll would be a valid next
+     * roll in the game.
+     * @param pins Pins knocked down by a hypothetical roll.
+     */
+    public boolean canRoll(int pins) {
+        return (pins >= 0) && (pins <= maxNextRoll());
+    }
+
+    /**
+     * Get the number of rolls made in a frame.
+     * @param frameIndex Index of the frame.
+     */
+    public int frameRollCount(int frameIndex) {
+        int count = 0;
+
+        if (frameIndex < currentFrameIndex) {
+            count = frameStarts[frameIndex + 1] - frameStarts[frameIndex];
+        } else if (frameIndex == currentFrameIndex) {
+            count = rollCount - frameStarts[frameIndex];
+        }
+
+        return count;
+    }
+
+    /**
+     * Determine whether a frame is a strike frame.
+     * @param frameIndex Index of the frame.
+     */
+    public boolean isStrike(int frameIndex) {
+        return frameIndex <= currentFrameIndex &&
+                rolls[frameStarts[frameIndex]] == BowlingGame.ALL_PINS;
+    }
+
+    /**
+     * Determine whether a frame is a spare frame.
+     * @param frameIndex Index of the frame.
+     */
+    public boolean isSpare(int frameIndex) {
+        int start = frameStarts[frameIndex];
+        return !isStrike(frameIndex) &&
+                (frameRollCount(frameIndex) >= 2) &&
+                (rolls[start] + rolls[start + 1] == BowlingGame.ALL_PINS);
+    }
+
+    /**
+     * Calculate the score for a frame.
+     * If {@link #scoreIsComplete(int)} == false, this will return an
+     * incomplete score.
+     * @param frameIndex Index of the frame.
+     */
+    public int frameScore(int frameIndex) {
+        int score = 0;
+
+        if (frameIndex <= currentFrameIndex) {
+            // rolls that haven't been made are zero in the array
+            int start = frameStarts[frameIndex];
+            score = rolls[start] + rolls[start + 1];
+            if (isStrike(frameIndex) || isSpare(frameIndex)) {
+                score += rolls[start + 2];
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Determine whether a frame's score is complete.
+     * A frame is complete if all the rolls it depends on for a frame
+     * score have been made.
+     * @param frameIndex Index of the frame.
+     */
+    public boolean scoreIsComplete(int frameIndex) {
+        boolean complete = false;
+
+        if (frameIndex <= currentFrameIndex) {
+            int rollsNeeded = (isStrike(frameIndex) || isSpare(frameIndex)) ? 3 : 2;
+            complete = (rollCount - frameStarts[frameIndex] >= rollsNeeded);
+        }
+
+        return complete;
+    }
+
+    /**
+     * Determine whether a frame has all the rolls it needs to be complete.
+     * @param frameIndex Index of the frame.
+     */
+    public boolean hasAllRolls(int frameIndex) {
+        boolean complete = false;
+        int count = frameRollCount(frameIndex);
+
+        if (frameIndex == BowlingGame.NUMBER_OF_FRAMES - 1) {
+            if (isStrike(frameIndex) || isSpare(frameIndex)) {
+                // frame needs three rolls
+                complete = (count == 3);
+            } else {
+                // frame needs two rolls
+                complete = (count == 2);
+            }
+        } else if (isStrike(frameIndex)) {
+            // a strike frame only needs one roll
+            complete = true;
+        } else {
+            // a frame that isn't a strike needs two rolls
+            complete = (count == 2);
+        }
+
+        return complete;
+    }
+
+    /**
+     * Convert a roll to a string representation used in {@link #toString()}.
+     * @param pins Pins knocked down by the roll.
+     * @param mark The mark to use in place of the pins, or null.
+     */
+    private static String rollToString(int pins, String mark) {
+        String result = null;
+
+        if (mark != null) {
+            result = mark;
+        } else if (pins == 0) {
+            result = "-";
+        } else {
+            result = "" + pins;
+        }
+
+        return result;
+    }
+
+    /**
+     * Get a string representation of the score.
+     * The layout is the same as {@link BowlingGame#toString()}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("|");
+        String frameDivider = " | ";
+        String emptyBox = " ";
+        String skipSymbol = ".";
+        String currentLocationSymbol = "@";
+        int nextFrameIndex = nextRollFrameIndex();
+
+        // layout the frames in order
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+            int start = frameStarts[frameIndex];
+            int count = frameRollCount(frameIndex);
+            boolean isLast = (frameIndex == BowlingGame.NUMBER_OF_FRAMES - 1);
+            boolean isNext = (frameIndex == nextFrameIndex);
+
+            // put the frame score first
+            int score = frameScore(frameIndex);
+            result.append('(');
+            if (scoreIsComplete(frameIndex)) {
+                result.append(score);
+            } else if (score == 0) {
+                result.append(" ? ");
+            } else {
+                result.append(score).append("+?");
+            }
+            result.append(") ");
+
+            // obtain values for the roll boxes
+            String firstBox, secondBox, thirdBox;
+            firstBox = secondBox = thirdBox = emptyBox;
+
+            if (count > 0) {
+                firstBox = rollToString(rolls[start], isStrike(frameIndex) ? "X" : null);
+
+                if (count > 1) {
+                    secondBox = rollToString(rolls[start + 1], isSpare(frameIndex) ? "/" : null);
+
+                    if (count > 2) {
+                        thirdBox = rollToString(rolls[start + 2], null);
+                    } else if (isLast && isNext) {
+                        thirdBox = currentLocationSymbol;
+                    } else if (isLast && hasAllRolls(frameIndex)) {
+                        thirdBox = skipSymbol;
+                    }
+                } else if (isNext) {
+                    secondBox = currentLocationSymbol;
+                } else if (!isLast && hasAllRolls(frameIndex)) {
+                    secondBox = skipSymbol;
+                }
+            } else if (isNext) {
+                firstBox = currentLocationSymbol;
+            }
+
+            result.append(firstBox).append(frameDivider).append(secondBox);
+            if (isLast) {
+                result.append(frameDivider).append(thirdBox);
+            }
+
+            result.append(" |");
+        }
+
+        // add the total score
+        result.append("| Total: ").append(totalScore());
+
+        return result.toString();
+    }
+}
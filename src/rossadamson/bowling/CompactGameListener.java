@@ -0,0 +1,63 @@
+package rossadamson.bowling;
+
+/**
+ * Plays the games read by a {@link ScoreSheetParser} straight into a
+ * {@link CompactBowlingGame}, one roll at a time, and hands over each game
+ * once its line ends. The same game is reset and reused for every line, so
+ * reading a score sheet creates no games; a subclass that keeps a game
+ * must copy it with {@link CompactBowlingGame#copyFrom(CompactBowlingGame)}.
+ * <p>
+ * For scoring many games at once, {@link PackedGames} gathers them for
+ * {@link BatchScorer} instead.
+ * @author Ross Adamson
+ */
+public abstract class CompactGameListener implements ScoreSheetListener {
+    /**
+     * The game of the current line.
+     */
+    private final CompactBowlingGame game = new CompactBowlingGame();
+    /**
+     * Byte offset of the start of the current game in the input.
+     */
+    private long gameOffset;
+
+    /**
+     * A game has been read.
+     * @param game The game, with every roll of its line. Only valid until
+     * this returns.
+     * @param offset Byte offset of the start of the game in the input.
+     */
+    protected abstract void gameRead(CompactBowlingGame game, long offset);
+
+    /**
+     * A game had a mistake and was dropped. Does nothing unless
+     * overridden.
+     * @param offset Byte offset of the mistake in the input.
+     * @param message What the mistake is.
+     */
+    protected void gameDropped(long offset, String message) {
+    }
+
+    @Override
+    public void startGame(long offset) {
+        game.init();
+        gameOffset = offset;
+    }
+
+    @Override
+    public void roll(int pins) {
+        // the parser only gives rolls that are valid for the game so far
+        game.tryAddRoll(pins);
+    }
+
+    @Override
+    public void endGame() {
+        gameRead(game, gameOffset);
+    }
+
+    @Override
+    public void error(long offset, String message) {
+        game.init();
+        gameDropped(offset, message);
+    }
+}
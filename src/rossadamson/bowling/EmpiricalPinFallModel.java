@@ -0,0 +1,73 @@
+package rossadamson.bowling;
+
+/**
+ * A bowler's pin fall chances, taken from counts of their past rolls: how
+ * often each first ball knocked down each number of pins, and how often
+ * each second ball did at each number of pins left standing. Leaves the
+ * bowler has never had are given every roll the same chance.
+ * @author Ross Adamson
+ */
+public class EmpiricalPinFallModel implements PinFallModel {
+    /**
+     * The chance of each first ball, by pins knocked down.
+     */
+    private final double[] firstBall;
+    /**
+     * The chance of each second ball, indexed by
+     * pinsUp * (ALL_PINS + 1) + pins.
+     */
+    private final double[] secondBall;
+
+    /**
+     * Constructor.
+     * @param firstBallCounts Number of first balls that knocked down each
+     * number of pins, from 0 to {@link BowlingGame#ALL_PINS}.
+     * @param secondBallCounts Number of second balls that knocked down each
+     * number of pins, indexed by pins standing and then pins knocked down.
+     * Entries for pins standing that are missing or have no rolls use the
+     * same chance for every roll.
+     */
+    public EmpiricalPinFallModel(long[] firstBallCounts, long[][] secondBallCounts) {
+        final int columns = BowlingGame.ALL_PINS + 1;
+        firstBall = new double[columns];
+        secondBall = new double[columns * columns];
+
+        normalize(firstBallCounts, BowlingGame.ALL_PINS, firstBall, 0);
+        for (int pinsUp = 1; pinsUp <= BowlingGame.ALL_PINS; ++pinsUp) {
+            long[] counts = (secondBallCounts != null && pinsUp < secondBallCounts.length) ?
+                    secondBallCounts[pinsUp] : null;
+            normalize(counts, pinsUp, secondBall, pinsUp * columns);
+        }
+    }
+
+    /**
+     * Turn counts of rolls into chances.
+     * @param counts Number of rolls that knocked down each number of pins,
+     * or null if there are none.
+     * @param pinsUp Pins standing.
+     * @param chances Gets the chance of each number of pins.
+     * @param offset Where the chance of 0 pins goes.
+     */
+    private static void normalize(long[] counts, int pinsUp, double[] chances, int offset) {
+        long total = 0;
+        for (int pins = 0; counts != null && pins <= pinsUp && pins < counts.length; ++pins) {
+            if (counts[pins] < 0) {
+                throw new IllegalArgumentException("negative count of rolls");
+            }
+            total += counts[pins];
+        }
+
+        for (int pins = 0; pins <= pinsUp; ++pins) {
+            if (total == 0) {
+                chances[offset + pins] = 1.0 / (pinsUp + 1);
+            } else {
+                chances[offset + pins] = (pins < counts.length) ? (double) counts[pins] / total : 0.0;
+            }
+        }
+    }
+
+    @Override
+    public double probability(boolean firstBall, int pinsUp, int pins) {
+        return firstBall ? this.firstBall[pins] : secondBall[pinsUp * (BowlingGame.ALL_PINS + 1) + pins];
+    }
+}
@@ -0,0 +1,171 @@
+package rossadamson.bowling;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Gives the exact chance of every final score of a game in progress, for a
+ * bowler whose rolls follow a {@link PinFallModel}. The points a game can
+ * still score depend only on its {@link TableDrivenScorer} state, so the
+ * chance of scoring each number of points more is worked out once for
+ * every state, each from the chances of the states after it, with no
+ * sampling. Every game with the same model then shares the table, and
+ * answering for a game is a walk of its rolls and a copy.
+ * <p>
+ * A distribution doesn't change once it is made, so it can be used from
+ * any number of threads.
+ * @author Ross Adamson
+ */
+public final class FinalScoreDistribution {
+    /**
+     * Number of final scores, from 0 to {@link BowlingGame#MAX_SCORE}.
+     */
+    private static final int SCORES = BowlingGame.MAX_SCORE + 1;
+    /**
+     * Distributions made by {@link #of(PinFallModel)}, kept until their
+     * model is no longer used.
+     */
+    private static final Map<PinFallModel, FinalScoreDistribution> DISTRIBUTIONS =
+            new WeakHashMap<PinFallModel, FinalScoreDistribution>();
+    /**
+     * The chance of each state scoring each number of points more, indexed
+     * by state * {@link #SCORES} + points.
+     */
+    private final double[] remaining;
+    /**
+     * The most points each state can still score.
+     */
+    private final short[] maxRemaining;
+
+    /**
+     * Constructor.
+     * @param model Chances of the pins of each roll.
+     */
+    public FinalScoreDistribution(PinFallModel model) {
+        ScoreProjector.checkModel(model);
+        int stateCount = TableDrivenScorer.stateCount();
+        remaining = new double[stateCount * SCORES];
+        maxRemaining = new short[stateCount];
+
+        boolean[] done = new boolean[stateCount];
+        fill(model, TableDrivenScorer.START_STATE, done);
+    }
+
+    /**
+     * Get the distribution of a model, made the first time it is asked for
+     * and shared after that.
+     * @param model Chances of the pins of each roll.
+     */
+    public static FinalScoreDistribution of(PinFallModel model) {
+        FinalScoreDistribution distribution = null;
+        synchronized (DISTRIBUTIONS) {
+            distribution = DISTRIBUTIONS.get(model);
+            if (distribution == null) {
+                distribution = new FinalScoreDistribution(model);
+                DISTRIBUTIONS.put(model, distribution);
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * Work out the chances of a state and every state after it. A game has
+     * at most {@link BowlingGame#MAX_ROLLS} rolls, so this recurses no
+     * deeper than that.
+     * @param model Chances of the pins of each roll.
+     * @param state The state.
+     * @param done Which states are already worked out.
+     */
+    private void fill(PinFallModel model, int state, boolean[] done) {
+        int pinsUp = TableDrivenScorer.pinsUp(state);
+        boolean firstBall = TableDrivenScorer.isFirstBall(state);
+        int row = state * SCORES;
+
+        if (pinsUp == 0) {
+            // a finished game scores nothing more
+            remaining[row] = 1.0;
+        } else {
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                double probability = model.probability(firstBall, pinsUp, pins);
+                int entry = TableDrivenScorer.transition(state, pins);
+                int next = TableDrivenScorer.nextState(entry);
+                int delta = TableDrivenScorer.scoreDelta(entry);
+                if (!done[next]) {
+                    fill(model, next, done);
+                }
+
+                int nextRow = next * SCORES;
+                for (int points = 0; points <= maxRemaining[next]; ++points) {
+                    remaining[row + delta + points] += probability * remaining[nextRow + points];
+                }
+                maxRemaining[state] = (short) Math.max(maxRemaining[state], delta + maxRemaining[next]);
+            }
+        }
+
+        done[state] = true;
+    }
+
+    /**
+     * Get the chance of every final score of a game.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     * @return The chance of each final score, indexed by the score.
+     */
+    public double[] probabilities(BowlingGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        return probabilities(TableDrivenScorer.stateOf(snapshot), snapshot.totalScore());
+    }
+
+    /**
+     * Get the chance of every final score of a game.
+     * @param game The game.
+     * @return The chance of each final score, indexed by the score.
+     */
+    public double[] probabilities(CompactBowlingGame game) {
+        return probabilities(TableDrivenScorer.stateOf(game), game.totalScore());
+    }
+
+    /**
+     * Get the chance of every final score of a state.
+     * @param state The state.
+     * @param score The score so far.
+     * @return The chance of each final score, indexed by the score.
+     */
+    private double[] probabilities(int state, int score) {
+        double[] probabilities = new double[SCORES];
+        System.arraycopy(remaining, state * SCORES, probabilities, score, maxRemaining[state] + 1);
+        return probabilities;
+    }
+
+    /**
+     * Get the chance that a game ends with a final score.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     * @param finalScore The final score.
+     */
+    public double probability(BowlingGame game, int finalScore) {
+        GameSnapshot snapshot = game.snapshot();
+        int points = finalScore - snapshot.totalScore();
+        int state = TableDrivenScorer.stateOf(snapshot);
+        return (points >= 0 && points <= maxRemaining[state]) ? remaining[state * SCORES + points] : 0.0;
+    }
+
+    /**
+     * Get the chance that one game ends with a higher score than another,
+     * if the games are played apart.
+     * @param first The chance of each final score of one game.
+     * @param second The chance of each final score of the other game.
+     * @return The chance that the first game ends higher. Ties don't count.
+     */
+    public static double probabilityHigher(double[] first, double[] second) {
+        double result = 0.0;
+        double secondBelow = 0.0;
+
+        for (int score = 0; score < SCORES; ++score) {
+            result += first[score] * secondBelow;
+            secondBelow += second[score];
+        }
+
+        return result;
+    }
+}
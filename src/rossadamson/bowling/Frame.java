@@ -1,6 +1,5 @@
 package rossadamson.bowling;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -25,6 +24,36 @@ public class Frame {
      * This gets set by the BowlingGame object that owns the frame.
      */
     public boolean isLast;
+    /**
+     * What the rolls made so far add up to.
+     */
+    public enum Mark {
+        /** No rolls yet, or one roll that isn't a strike. */
+        None,
+        /** All pins down on the first roll. */
+        Strike,
+        /** All pins down after the second roll. */
+        Spare,
+        /** Pins left standing after the second roll. */
+        Open
+    };
+    /**
+     * The mark made by the rolls so far.
+     */
+    private Mark mark;
+    /**
+     * The number of rolls in this frame.
+     */
+    private int rollCount;
+    /**
+     * Pins knocked down by the rolls in this frame.
+     */
+    private int pinsDown;
+    /**
+     * Pins standing after the last roll, or 0 if the last roll cleared
+     * the rack.
+     */
+    private int pinsStanding;
     
     /**
      * Constructor.
@@ -39,52 +68,147 @@ public class Frame {
     public void init() {
         firstRoll = lastRoll = null;
         isLast = false;
+        resetCounts();
+    }
+    
+    /**
+     * Forget what the rolls add up to, without unlinking them.
+     */
+    private void resetCounts() {
+        mark = Mark.None;
+        rollCount = 0;
+        pinsDown = 0;
+        pinsStanding = BowlingGame.ALL_PINS;
     }
     
     /**
      * Add a roll to the frame.
-     * Precondition: Roll must not be null
+     * Precondition: Roll must not be null.
      * Precondition: Outside checking must determine that roll is valid in the frame.
+     * @throws IllegalArgumentException If the roll is a shared roll from
+     * {@link Roll#of(int)}, since it would get linked to the next roll.
      */
     public void addRoll(Roll roll) {
+        if (roll.isShared()) {
+            throw new IllegalArgumentException("shared rolls can't be linked");
+        }
+
         if (lastRoll == null) {
             firstRoll = lastRoll = roll;
         } else {
             lastRoll.nextRoll = roll;
             lastRoll = roll;
         }
+        
+        countRoll(roll.pins());
     }
     
     /**
-     * Get the number of rolls in this frame.
+     * Remove the last roll from the frame, unlinking it from the roll
+     * before it.
+     * Precondition: The frame must have a roll.
      */
-    public int rollCount() {
-        int count = 0;
-        Iterator<Roll> rolls = rollIterator();
+    public void removeLastRoll() {
+        if (rollCount == 1) {
+            firstRoll = lastRoll = null;
+        } else {
+            Roll roll = firstRoll;
+            for (int rollIndex = 0; rollIndex < rollCount - 2; ++rollIndex) {
+                roll = roll.nextRoll;
+            }
+            roll.nextRoll = null;
+            lastRoll = roll;
+        }
         
-        while (rolls.hasNext()) {
-            ++count;
-            rolls.next();
+        --rollCount;
+        recount();
+    }
+    
+    /**
+     * Recount the frame after the pins of one of its rolls changed.
+     * Precondition: Outside checking must determine that the rolls are
+     * still valid in the frame.
+     */
+    public void recount() {
+        int count = rollCount;
+        resetCounts();
+        Roll roll = firstRoll;
+        for (int rollIndex = 0; rollIndex < count; ++rollIndex) {
+            countRoll(roll.pins());
+            roll = roll.nextRoll;
         }
+    }
+    
+    /**
+     * Count a roll added to the end of the frame.
+     * @param pins Pins knocked down by the roll.
+     */
+    private void countRoll(int pins) {
+        if (pinsStanding == 0) {
+            // a new rack, which only happens in the last frame
+            pinsStanding = BowlingGame.ALL_PINS;
+        }
+        pinsStanding -= pins;
+        pinsDown += pins;
+        ++rollCount;
         
-        return count;
+        if (rollCount == 1) {
+            if (pins == BowlingGame.ALL_PINS) {
+                mark = Mark.Strike;
+            }
+        } else if (rollCount == 2 && mark == Mark.None) {
+            mark = (pinsDown == BowlingGame.ALL_PINS) ? Mark.Spare : Mark.Open;
+        }
+    }
+    
+    /**
+     * Get the number of rolls in this frame.
+     */
+    public int rollCount() {
+        return rollCount;
+    }
+    
+    /**
+     * Get the number of pins knocked down by the rolls in this frame.
+     */
+    public int pinsDown() {
+        return pinsDown;
+    }
+    
+    /**
+     * Get the mark made by the rolls so far.
+     */
+    public Mark mark() {
+        return mark;
     }
     
     /**
      * Determine whether this is a strike frame.
      */
     public boolean isStrike() {
-        return firstRoll != null &&
-                firstRoll.pins() == BowlingGame.ALL_PINS;
+        return mark == Mark.Strike;
     }
     
     /**
      * Determine whether this is a spare frame.
      */
     public boolean isSpare() {
-       return !isStrike() &&
-               (rollCount() >= 2) &&
-               (firstRoll.pins() + firstRoll.nextRoll.pins() == BowlingGame.ALL_PINS);
+       return mark == Mark.Spare;
+    }
+    
+    /**
+     * The number of rolls from outside this frame that count toward
+     * its score.
+     */
+    private int bonusRolls() {
+        int count = 0;
+        
+        if (isStrike() || isSpare()) {
+            // strike and spare frames count 3 rolls, starting at the frame beginning
+            count = Math.max(0, 3 - rollCount);
+        }
+        
+        return count;
     }
     
     /**
@@ -93,14 +217,11 @@ public class Frame {
      * score.
      */
     public int getScore() {
-        int score = 0;
+        int score = pinsDown;
+        int bonusRolls = bonusRolls();
         
-        if (isStrike() || isSpare()) {
-            // add up pins from 3 rolls, starting at the frame beginning
-            score = Roll.pinsFromRollSequence(firstRoll, 3);
-        } else {
-            // add up pins from all the rolls in the frame
-            score = Roll.pinsFromRollSequence(firstRoll, rollCount());
+        if (bonusRolls > 0) {
+            score += Roll.pinsFromRollSequence(lastRoll.nextRoll, bonusRolls);
         }
        
         return score;
@@ -113,16 +234,27 @@ public class Frame {
      */
     public boolean scoreIsComplete() {
         boolean complete = false;
+        int bonusRolls = bonusRolls();
         
-        if (isStrike() || isSpare()) {
-            complete = Roll.hasSequenceSize(firstRoll, 3);
-        } else {
-            complete = Roll.hasSequenceSize(firstRoll, 2);
+        if (bonusRolls > 0) {
+            complete = Roll.hasSequenceSize(lastRoll.nextRoll, bonusRolls);
+        } else if (rollCount >= 2) {
+            complete = true;
+        } else if (rollCount == 1) {
+            complete = lastRoll.hasNext();
         }
        
         return complete;
     }
     
+    /**
+     * Determine whether this frame is a strike or spare still waiting on
+     * rolls after it for its score.
+     */
+    public boolean isBonusPending() {
+        return bonusRolls() > 0 && !scoreIsComplete();
+    }
+    
     /**
      * Determine whether this frame has all the rolls it needs to be complete.
      */
@@ -132,17 +264,17 @@ public class Frame {
         if (isLast) {
             if (isStrike() || isSpare()) {
                     // frame needs three rolls
-                complete = (rollCount() == 3);
+                complete = (rollCount == 3);
             } else {
                     // frame needs two rolls
-                complete = (rollCount() == 2);
+                complete = (rollCount == 2);
             }
         } else if (isStrike()) {
                 // a strike frame only needs one roll
             complete = true;
         } else {
                 // a frame that isn't a strike needs two rolls
-            complete = (rollCount() == 2);
+            complete = (rollCount == 2);
         }
         
         return complete;
@@ -157,34 +289,40 @@ public class Frame {
      * only to the last frame of the game).
      */
     public int pinsUp() {
-        int pinsLeft = BowlingGame.ALL_PINS;
+        int pinsLeft = pinsStanding;
         
-        Iterator<Roll> rolls = rollIterator();
-        while (rolls.hasNext()) {
-            pinsLeft -= rolls.next().pins();
-            if (isLast && (pinsLeft == 0) && !hasAllRolls()) {
-                pinsLeft = BowlingGame.ALL_PINS;
-            }
+        if (isLast && (pinsLeft == 0) && !hasAllRolls()) {
+            pinsLeft = BowlingGame.ALL_PINS;
         }
         
         return pinsLeft;
     }
     
+    /**
+     * Get the highest number of pins the next roll in this frame can
+     * knock down.
+     * @return -1 if no more rolls can be added to this frame.
+     */
+    public int maxNextRoll() {
+        return hasAllRolls() ? -1 : pinsUp();
+    }
+    
+    /**
+     * Get the set of possible rolls as a bit mask. See {@link Roll#rangeMask(int)}.
+     * @return Zero means no more rolls are possible.
+     */
+    public int possibleRollsMask() {
+        return Roll.rangeMask(maxNextRoll());
+    }
+    
     /**
      * Get the set of possible rolls.
+     * The result is unmodifiable and holds shared rolls from {@link Roll#of(int)}.
      * @return Zero sized result means no more rolls are possible
      * because the game is over.
      */
     public Collection<Roll> possibleRolls() {
-        Collection<Roll> possibleRolls = null;
-        
-        if (hasAllRolls()) {
-            possibleRolls = new ArrayList<Roll>();
-        } else {
-            possibleRolls = Roll.getRangeOfRolls(pinsUp());
-        }
- 
-        return possibleRolls;
+        return Roll.getRangeOfRolls(maxNextRoll());
     }
     
     /**
@@ -192,18 +330,15 @@ public class Frame {
      * @param roll A hypothetical roll.
      */
     public boolean canRoll(Roll roll) {
-        Collection<Roll> possibleRolls = possibleRolls();
-        boolean result = false;
-        
-        Iterator<Roll> rolls = possibleRolls.iterator();
-        while (rolls.hasNext()) {
-            if (roll.samePins(rolls.next())) {
-               result = true; 
-               break;
-            }
-        }
-        
-        return result;
+        return canRoll(roll.pins());
+    }
+    
+    /**
+     * Whether a roll can be added to this frame right now.
+     * @param pins Pins knocked down by a hypothetical roll.
+     */
+    public boolean canRoll(int pins) {
+        return (pins >= 0) && (pins <= maxNextRoll());
     }
     
     /**
@@ -0,0 +1,75 @@
+package rossadamson.bowling;
+
+/**
+ * The binary format of a game archive, written by {@link GameArchiveWriter}
+ * and read by {@link GameArchiveReader}.
+ * <p>
+ * An archive has three parts:
+ * <ol>
+ * <li>A fixed header of {@link #HEADER_SIZE} bytes: the magic number, the
+ * format version, the number of games, and the file offset of the index.</li>
+ * <li>The games, one record after another. Each roll takes 4 bits, high
+ * nibble first, so a game of 21 rolls takes 11 bytes. A game with an odd
+ * number of rolls fills its last low nibble with {@link #PADDING}.</li>
+ * <li>The index: one long file offset for the record of each game, plus one
+ * for where the last record ends.</li>
+ * </ol>
+ * All numbers are big-endian.
+ * @author Ross Adamson
+ */
+public final class GameArchive {
+    /**
+     * First bytes of every archive: "BOWL".
+     */
+    public static final int MAGIC = 0x424f574c;
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 24;
+    /**
+     * Offset of the magic number in the header.
+     */
+    static final int MAGIC_OFFSET = 0;
+    /**
+     * Offset of the version in the header.
+     */
+    static final int VERSION_OFFSET = 4;
+    /**
+     * Offset of the number of games in the header.
+     */
+    static final int GAME_COUNT_OFFSET = 8;
+    /**
+     * Offset of the index offset in the header.
+     */
+    static final int INDEX_OFFSET_OFFSET = 16;
+    /**
+     * Size of an index entry in bytes.
+     */
+    static final int INDEX_ENTRY_SIZE = 8;
+    /**
+     * The nibble after the last roll of a game with an odd number of rolls.
+     */
+    static final int PADDING = 0xf;
+    /**
+     * Size of the largest record in bytes.
+     */
+    public static final int MAX_RECORD_SIZE = recordSize(BowlingGame.MAX_ROLLS);
+
+    /**
+     * Not instantiable.
+     */
+    private GameArchive() {
+    }
+
+    /**
+     * Size of the record of a game in bytes.
+     * @param rollCount Number of rolls in the game.
+     */
+    static int recordSize(int rollCount) {
+        return (rollCount + 1) / 2;
+    }
+}
@@ -0,0 +1,160 @@
+package rossadamson.bowling;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads an archive in the {@link GameArchive} format through memory
+ * mapped buffers, without copying the games onto the heap.
+ * The file is mapped in segments, since one mapping can't be more than
+ * 2 GB. Each segment maps a little past its end, so any record or index
+ * entry that starts in a segment can be read from that segment alone.
+ * <p>
+ * A reader may be used by many threads at once, as long as each has its
+ * own {@link ArchivedGame}.
+ * @author Ross Adamson
+ */
+public class GameArchiveReader implements Closeable {
+    /**
+     * Default size of a segment in bytes.
+     */
+    static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+    /**
+     * Extra bytes mapped past the end of each segment.
+     */
+    private static final int SEGMENT_OVERLAP =
+            Math.max(GameArchive.MAX_RECORD_SIZE, GameArchive.INDEX_ENTRY_SIZE);
+    /**
+     * The archive file.
+     */
+    private final RandomAccessFile file;
+    /**
+     * The mapped segments of the file.
+     */
+    private final MappedByteBuffer[] segments;
+    /**
+     * Size of a segment in bytes.
+     */
+    private final long segmentSize;
+    /**
+     * Number of games in the archive.
+     */
+    private final long gameCount;
+    /**
+     * File offset of the index.
+     */
+    private final long indexOffset;
+
+    /**
+     * Open an archive.
+     * @param archiveFile The archive file.
+     * @throws IOException If the file can't be read or isn't an archive.
+     */
+    public GameArchiveReader(File archiveFile) throws IOException {
+        this(archiveFile, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open an archive.
+     * @param archiveFile The archive file.
+     * @param segmentSize Size of a mapped segment in bytes.
+     * @throws IOException If the file can't be read or isn't an archive.
+     */
+    GameArchiveReader(File archiveFile, long segmentSize) throws IOException {
+        this.segmentSize = segmentSize;
+        file = new RandomAccessFile(archiveFile, "r");
+
+        try {
+            FileChannel channel = file.getChannel();
+            long fileSize = channel.size();
+            if (fileSize < GameArchive.HEADER_SIZE) {
+                throw new IOException("not a game archive: " + archiveFile);
+            }
+
+            int segmentCount = (int) ((fileSize + segmentSize - 1) / segmentSize);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int segment = 0; segment < segmentCount; ++segment) {
+                long start = segment * segmentSize;
+                long size = Math.min(segmentSize + SEGMENT_OVERLAP, fileSize - start);
+                segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            }
+
+            ByteBuffer header = segments[0];
+            if (header.getInt(GameArchive.MAGIC_OFFSET) != GameArchive.MAGIC) {
+                throw new IOException("not a game archive: " + archiveFile);
+            } else if (header.getInt(GameArchive.VERSION_OFFSET) != GameArchive.VERSION) {
+                throw new IOException("unsupported game archive version: " + archiveFile);
+            }
+            gameCount = header.getLong(GameArchive.GAME_COUNT_OFFSET);
+            indexOffset = header.getLong(GameArchive.INDEX_OFFSET_OFFSET);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of games in the archive.
+     */
+    public long gameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Get a view of a game.
+     * @param gameIndex Index of the game.
+     */
+    public ArchivedGame game(long gameIndex) {
+        return game(gameIndex, new ArchivedGame());
+    }
+
+    /**
+     * Point a view at a game. Reusing one view for many games reads the
+     * archive without creating any objects.
+     * @param gameIndex Index of the game.
+     * @param view The view to point at the game.
+     * @return The view.
+     */
+    public ArchivedGame game(long gameIndex, ArchivedGame view) {
+        if (gameIndex < 0 || gameIndex >= gameCount) {
+            throw new IndexOutOfBoundsException("game " + gameIndex + " of " + gameCount);
+        }
+
+        long entryOffset = indexOffset + gameIndex * GameArchive.INDEX_ENTRY_SIZE;
+        long start = readLong(entryOffset);
+        long end = readLong(entryOffset + GameArchive.INDEX_ENTRY_SIZE);
+
+        ByteBuffer segment = segments[(int) (start / segmentSize)];
+        int position = (int) (start % segmentSize);
+        int rollCount = (int) (end - start) * 2;
+        if (rollCount > 0 && (segment.get(position + (int) (end - start) - 1) & 0xf) == GameArchive.PADDING) {
+            --rollCount;
+        }
+
+        view.point(segment, position, rollCount);
+        return view;
+    }
+
+    /**
+     * Read a long from the file.
+     * @param offset File offset of the long.
+     */
+    private long readLong(long offset) {
+        return segments[(int) (offset / segmentSize)].getLong((int) (offset % segmentSize));
+    }
+
+    /**
+     * Close the archive file. Views of its games must not be used after
+     * this. The mapped memory is released once the views are garbage.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
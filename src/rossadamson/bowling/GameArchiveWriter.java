@@ -0,0 +1,249 @@
+package rossadamson.bowling;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+
+/**
+ * Writes games to an archive file in the {@link GameArchive} format.
+ * Games are written as they are added, and the index and header are
+ * written by {@link #close()}. Until then the index is kept in a temporary
+ * file next to the archive, so the writer holds no per-game state in memory.
+ * @author Ross Adamson
+ */
+public class GameArchiveWriter implements Closeable {
+    /**
+     * Size of the write buffers in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The archive file.
+     */
+    private final RandomAccessFile file;
+    /**
+     * Channel of the archive file.
+     */
+    private final FileChannel channel;
+    /**
+     * The temporary file holding the index.
+     */
+    private final File indexFile;
+    /**
+     * Channel of the temporary index file.
+     */
+    private final FileChannel indexChannel;
+    /**
+     * Records waiting to be written.
+     */
+    private final ByteBuffer records;
+    /**
+     * Index entries waiting to be written.
+     */
+    private final ByteBuffer index;
+    /**
+     * Checks each game before it is written.
+     */
+    private final CompactBowlingGame checker;
+    /**
+     * File offset where the next record goes.
+     */
+    private long recordOffset;
+    /**
+     * Number of games added.
+     */
+    private long gameCount;
+    /**
+     * Whether the archive has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Create an archive, replacing any file already there.
+     * @param archiveFile The archive file.
+     * @throws IOException
+     */
+    public GameArchiveWriter(File archiveFile) throws IOException {
+        records = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        index = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        checker = new CompactBowlingGame();
+
+        // open the files last, and close them if any of them fails
+        File directory = archiveFile.getAbsoluteFile().getParentFile();
+        indexFile = File.createTempFile(archiveFile.getName(), ".index", directory);
+        RandomAccessFile archive = null;
+        RandomAccessFile indexArchive = null;
+        try {
+            archive = new RandomAccessFile(archiveFile, "rw");
+            archive.setLength(0);
+            indexArchive = new RandomAccessFile(indexFile, "rw");
+        } catch (IOException e) {
+            if (archive != null) {
+                archive.close();
+            }
+            indexFile.delete();
+            throw e;
+        }
+        file = archive;
+        channel = file.getChannel();
+        indexChannel = indexArchive.getChannel();
+        recordOffset = GameArchive.HEADER_SIZE;
+        gameCount = 0;
+        closed = false;
+    }
+
+    /**
+     * Add a game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @throws IllegalArgumentException If the rolls aren't a valid game,
+     * finished or not.
+     * @throws IOException
+     */
+    public void addGame(int[] rolls, int start, int end) throws IOException {
+        checker.init();
+        for (int rollIndex = start; rollIndex < end; ++rollIndex) {
+            if (checker.tryAddRoll(rolls[rollIndex]) != BowlingGame.ROLL_OK) {
+                throw new IllegalArgumentException("invalid roll " + (rollIndex - start) + " in game " + gameCount);
+            }
+        }
+
+        addIndexEntry(recordOffset);
+
+        int rollCount = end - start;
+        if (records.remaining() < GameArchive.MAX_RECORD_SIZE) {
+            flushRecords();
+        }
+        for (int rollIndex = 0; rollIndex < rollCount; rollIndex += 2) {
+            int high = rolls[start + rollIndex];
+            int low = (rollIndex + 1 < rollCount) ? rolls[start + rollIndex + 1] : GameArchive.PADDING;
+            records.put((byte) ((high << 4) | low));
+        }
+
+        recordOffset += GameArchive.recordSize(rollCount);
+        ++gameCount;
+    }
+
+    /**
+     * Add a game.
+     * @param game The game, finished or not.
+     * @throws IOException
+     */
+    public void addGame(BowlingGame game) throws IOException {
+        int[] rolls = new int[BowlingGame.MAX_ROLLS];
+        int rollCount = 0;
+        Iterator<Roll> iterator = game.rollIterator();
+        while (iterator.hasNext()) {
+            rolls[rollCount++] = iterator.next().pins();
+        }
+        addGame(rolls, 0, rollCount);
+    }
+
+    /**
+     * Number of games added.
+     */
+    public long gameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Write the index and header, and close the archive.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                // the entry for where the last record ends
+                addIndexEntry(recordOffset);
+                flushRecords();
+                flushIndex();
+
+                // append the index after the records
+                long indexSize = indexChannel.position();
+                channel.position(recordOffset);
+                transferFully(indexChannel, indexSize, channel);
+
+                ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_SIZE);
+                header.putInt(GameArchive.MAGIC_OFFSET, GameArchive.MAGIC);
+                header.putInt(GameArchive.VERSION_OFFSET, GameArchive.VERSION);
+                header.putLong(GameArchive.GAME_COUNT_OFFSET, gameCount);
+                header.putLong(GameArchive.INDEX_OFFSET_OFFSET, recordOffset);
+                writeFully(header, 0);
+                channel.force(true);
+            } finally {
+                indexChannel.close();
+                file.close();
+                indexFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Add the file offset of a record to the index.
+     * @throws IOException
+     */
+    private void addIndexEntry(long offset) throws IOException {
+        if (index.remaining() < GameArchive.INDEX_ENTRY_SIZE) {
+            flushIndex();
+        }
+        index.putLong(offset);
+    }
+
+    /**
+     * Write the records waiting in the buffer.
+     * @throws IOException
+     */
+    private void flushRecords() throws IOException {
+        records.flip();
+        writeFully(records, recordOffset - records.remaining());
+        records.clear();
+    }
+
+    /**
+     * Write the index entries waiting in the buffer.
+     * @throws IOException
+     */
+    private void flushIndex() throws IOException {
+        index.flip();
+        while (index.hasRemaining()) {
+            indexChannel.write(index);
+        }
+        index.clear();
+    }
+
+    /**
+     * Copy the start of a file to the current position of another.
+     * @param source The file to copy from.
+     * @param count Number of bytes to copy.
+     * @param target The file to copy to.
+     * @throws IOException If the source ends before the last byte, such
+     * as when the temporary index was cut short on disk.
+     */
+    static void transferFully(FileChannel source, long count, FileChannel target) throws IOException {
+        for (long copied = 0; copied < count;) {
+            long transferred = source.transferTo(copied, count - copied, target);
+            if (transferred == 0) {
+                throw new IOException("index ends before its last entry");
+            }
+            copied += transferred;
+        }
+    }
+
+    /**
+     * Write all of a buffer to the archive.
+     * @param buffer The bytes to write.
+     * @param offset File offset to write them at.
+     * @throws IOException
+     */
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
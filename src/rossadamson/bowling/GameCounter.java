@@ -0,0 +1,224 @@
+package rossadamson.bowling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counts every legal way to finish a game, by final score, without
+ * playing the games out. Games that reach the same
+ * {@link TableDrivenScorer} state have the same ways to finish, so the
+ * ways to score each number of points more are counted once for each
+ * state, from the counts of the states after it, and shared by every game
+ * that reaches it.
+ * <p>
+ * The rolls that can come next are counted as separate tasks on a
+ * fork/join pool. The counts of each state are kept once made, and can be
+ * shared by any number of threads. Two threads may count the same state at
+ * once, which only wastes time, since both get the same counts.
+ * <p>
+ * Counts are exact. There are fewer than 2<sup>63</sup> complete games, so
+ * every count fits in a long.
+ * @author Ross Adamson
+ */
+public final class GameCounter {
+    /**
+     * Where the counting runs.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * The number of ways each state can score each number of points more,
+     * indexed by points, or null if the state hasn't been counted.
+     */
+    private final AtomicReferenceArray<long[]> remaining =
+            new AtomicReferenceArray<long[]>(TableDrivenScorer.stateCount());
+
+    /**
+     * Constructor. Counts on the common pool.
+     */
+    public GameCounter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param pool Where the counting runs.
+     */
+    public GameCounter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Count every complete game.
+     * @return The number of games with each final score, indexed by score.
+     */
+    public long[] countGames() {
+        return count(TableDrivenScorer.START_STATE, 0);
+    }
+
+    /**
+     * Count every way to finish a game.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     * @return The number of ways to end with each final score, indexed by
+     * score.
+     */
+    public long[] countCompletions(BowlingGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        return count(TableDrivenScorer.stateOf(snapshot), snapshot.totalScore());
+    }
+
+    /**
+     * Count every way to finish a game.
+     * @param game The game.
+     * @return The number of ways to end with each final score, indexed by
+     * score.
+     */
+    public long[] countCompletions(CompactBowlingGame game) {
+        return count(TableDrivenScorer.stateOf(game), game.totalScore());
+    }
+
+    /**
+     * Add up counts.
+     * @param counts Counts by final score.
+     * @return The total.
+     * @throws ArithmeticException If the total doesn't fit in a long.
+     */
+    public static long total(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total = Math.addExact(total, count);
+        }
+        return total;
+    }
+
+    /**
+     * Count every way to finish from a state.
+     * @param state The state.
+     * @param score The score so far.
+     * @return The number of ways to end with each final score.
+     */
+    private long[] count(int state, int score) {
+        long[] counts = new long[BowlingGame.MAX_SCORE + 1];
+        long[] points = pool.invoke(new CountTask(this, state, true));
+        System.arraycopy(points, 0, counts, score, points.length);
+        return counts;
+    }
+
+    /**
+     * Get the number of ways a state can score each number of points more,
+     * counting it and the states after it if they haven't been.
+     * A game has at most {@link BowlingGame#MAX_ROLLS} rolls, so this
+     * recurses no deeper than that.
+     * @param state The state.
+     * @return The counts, indexed by points, up to the most points the
+     * state can score.
+     */
+    long[] remaining(int state) {
+        long[] counts = remaining.get(state);
+
+        if (counts == null) {
+            int pinsUp = TableDrivenScorer.pinsUp(state);
+            if (pinsUp == 0) {
+                // a finished game has one way to score nothing more
+                counts = new long[] { 1 };
+            } else {
+                long[][] nextCounts = new long[pinsUp + 1][];
+                for (int pins = 0; pins <= pinsUp; ++pins) {
+                    nextCounts[pins] = remaining(TableDrivenScorer.nextState(
+                            TableDrivenScorer.transition(state, pins)));
+                }
+                counts = combine(state, nextCounts);
+            }
+            remaining.set(state, counts);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Combine the counts of the states after each roll into the counts of a
+     * state.
+     * @param state The state.
+     * @param nextCounts The counts after each number of pins.
+     * @return The counts of the state, indexed by points.
+     */
+    static long[] combine(int state, long[][] nextCounts) {
+        int maxPoints = 0;
+        for (int pins = 0; pins < nextCounts.length; ++pins) {
+            int delta = TableDrivenScorer.scoreDelta(TableDrivenScorer.transition(state, pins));
+            maxPoints = Math.max(maxPoints, delta + nextCounts[pins].length - 1);
+        }
+
+        long[] counts = new long[maxPoints + 1];
+        for (int pins = 0; pins < nextCounts.length; ++pins) {
+            int delta = TableDrivenScorer.scoreDelta(TableDrivenScorer.transition(state, pins));
+            long[] next = nextCounts[pins];
+            for (int points = 0; points < next.length; ++points) {
+                counts[delta + points] = Math.addExact(counts[delta + points], next[points]);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Counts the ways to finish from a state.
+     */
+    private static final class CountTask extends RecursiveTask<long[]> {
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The counter that keeps the counts of each state.
+         */
+        private final GameCounter counter;
+        /**
+         * The state to count from.
+         */
+        private final int state;
+        /**
+         * Whether to count each next roll as its own task, rather than on
+         * this thread.
+         */
+        private final boolean split;
+
+        /**
+         * Constructor.
+         */
+        CountTask(GameCounter counter, int state, boolean split) {
+            this.counter = counter;
+            this.state = state;
+            this.split = split;
+        }
+
+        @Override
+        protected long[] compute() {
+            long[] counts = counter.remaining.get(state);
+            int pinsUp = TableDrivenScorer.pinsUp(state);
+
+            if (counts == null && split && pinsUp != 0) {
+                List<CountTask> tasks = new ArrayList<CountTask>();
+                for (int pins = 0; pins <= pinsUp; ++pins) {
+                    tasks.add(new CountTask(counter,
+                            TableDrivenScorer.nextState(TableDrivenScorer.transition(state, pins)), false));
+                }
+                invokeAll(tasks);
+
+                long[][] nextCounts = new long[pinsUp + 1][];
+                for (int pins = 0; pins <= pinsUp; ++pins) {
+                    nextCounts[pins] = tasks.get(pins).join();
+                }
+                counts = combine(state, nextCounts);
+                counter.remaining.set(state, counts);
+            } else if (counts == null) {
+                counts = counter.remaining(state);
+            }
+
+            return counts;
+        }
+    }
+}
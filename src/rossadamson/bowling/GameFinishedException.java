@@ -6,4 +6,25 @@ package rossadamson.bowling;
  */
 @SuppressWarnings("serial")
 public class GameFinishedException extends Exception {
+    /**
+     * A shared instance, thrown by the games whenever a game is finished.
+     * It has no stack trace, so throwing it costs no more than a return.
+     */
+    public static final GameFinishedException INSTANCE = new GameFinishedException("the game is finished");
+
+    /**
+     * Constructor.
+     */
+    public GameFinishedException() {
+    }
+
+    /**
+     * Constructor for the shared instance. It has no stack trace, no
+     * suppressed exceptions and no cause, and none of them can be set,
+     * so no thrower can change what the others see.
+     * @param message The message.
+     */
+    private GameFinishedException(String message) {
+        super(message, null, false, false);
+    }
 }
@@ -0,0 +1,180 @@
+package rossadamson.bowling;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out reset games for workloads that play many short games, such as
+ * simulations, so the games are reused instead of left for the garbage
+ * collector. A game owns its frames, rolls and score arrays, so reusing the
+ * game reuses all of them.
+ * <p>
+ * Each thread has its own free list, so acquiring and releasing take no
+ * locks. A game released on one thread goes to that thread's free list,
+ * even if it was acquired on another. A free list holds at most a fixed
+ * number of games, and games released to a full list are left for the
+ * garbage collector.
+ * <p>
+ * Hits, misses and discards are counted for all threads together in
+ * {@link LongAdder}s, which threads add to without contending, so nothing
+ * is kept per thread once a thread ends.
+ * <p>
+ * A game must not be used after it is released, and must not be released
+ * twice.
+ * @author Ross Adamson
+ */
+public class GamePool {
+    /**
+     * Default number of free games each thread keeps.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+    /**
+     * Most free games each thread keeps.
+     */
+    private final int capacity;
+    /**
+     * The free list of each thread.
+     */
+    private final ThreadLocal<FreeList> freeLists;
+    /**
+     * Games acquired from a free list.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Games made because a free list was empty.
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * Games released when a free list was full.
+     */
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * Constructor. Each thread keeps up to {@link #DEFAULT_CAPACITY} games.
+     */
+    public GamePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity Most free games each thread keeps.
+     */
+    public GamePool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        freeLists = new ThreadLocal<FreeList>() {
+            @Override
+            protected FreeList initialValue() {
+                return new FreeList(GamePool.this.capacity);
+            }
+        };
+    }
+
+    /**
+     * Get the most free games each thread keeps.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Get a game with no rolls, reused from this thread's free list if it
+     * has one.
+     */
+    public BowlingGame acquire() {
+        FreeList freeList = freeLists.get();
+        BowlingGame game = null;
+
+        if (freeList.size > 0) {
+            game = freeList.games[--freeList.size];
+            freeList.games[freeList.size] = null;
+            hits.increment();
+        } else {
+            game = new BowlingGame();
+            misses.increment();
+        }
+
+        return game;
+    }
+
+    /**
+     * Reset a game and put it on this thread's free list.
+     * @param game A game from {@link #acquire()} that is no longer used.
+     */
+    public void release(BowlingGame game) {
+        FreeList freeList = freeLists.get();
+
+        if (freeList.size < capacity) {
+            game.init();
+            freeList.games[freeList.size++] = game;
+        } else {
+            discards.increment();
+        }
+    }
+
+    /**
+     * Get the number of free games on this thread's free list.
+     */
+    public int freeCount() {
+        return freeLists.get().size;
+    }
+
+    /**
+     * Get the number of acquired games that were reused, on all threads.
+     * Counts made while this runs may or may not be included.
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of acquired games that had to be made, on all threads.
+     * Counts made while this runs may or may not be included.
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of released games that didn't fit on a free list, on
+     * all threads. Counts made while this runs may or may not be included.
+     */
+    public long discardCount() {
+        return discards.sum();
+    }
+
+    /**
+     * Get the fraction of acquired games that were reused, or 0 if no
+     * games have been acquired.
+     */
+    public double hitRate() {
+        long reused = hitCount();
+        long acquired = reused + missCount();
+        return (acquired == 0) ? 0.0 : (double) reused / acquired;
+    }
+
+    /**
+     * The free games of one thread.
+     */
+    private static final class FreeList {
+        /**
+         * The free games, in the first size entries.
+         */
+        final BowlingGame[] games;
+        /**
+         * The number of free games.
+         */
+        int size;
+
+        /**
+         * Constructor.
+         * @param capacity Most free games to keep.
+         */
+        FreeList(int capacity) {
+            games = new BowlingGame[capacity];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package rossadamson.bowling;
+
+/**
+ * An unchanging copy of a bowling game, taken by
+ * {@link BowlingGame#snapshot()}. It can be read from any thread while the
+ * game goes on.
+ * @author Ross Adamson
+ */
+public final class GameSnapshot {
+    /**
+     * Bits of pins for each published roll.
+     */
+    static final int BITS_PER_ROLL = 4;
+    /**
+     * Number of rolls published in the low long. The rest go in the high long.
+     */
+    static final int LOW_ROLLS = Long.SIZE / BITS_PER_ROLL;
+    /**
+     * Shift of the roll count in the high long.
+     */
+    static final int COUNT_SHIFT = 32;
+    /**
+     * Mask of the pins of one roll.
+     */
+    static final long ROLL_MASK = (1L << BITS_PER_ROLL) - 1;
+    /**
+     * The copied game. It is never changed after the constructor.
+     */
+    private final CompactBowlingGame game;
+
+    /**
+     * Constructor.
+     * @param lowRolls Pins of the first {@link #LOW_ROLLS} rolls.
+     * @param highRolls Pins of the rest of the rolls, with the roll count
+     * at {@link #COUNT_SHIFT}.
+     */
+    GameSnapshot(long lowRolls, long highRolls) {
+        game = new CompactBowlingGame();
+        int rollCount = (int) (highRolls >>> COUNT_SHIFT);
+        for (int rollIndex = 0; rollIndex < rollCount; ++rollIndex) {
+            long packed = (rollIndex < LOW_ROLLS) ? lowRolls : highRolls;
+            int shift = (rollIndex % LOW_ROLLS) * BITS_PER_ROLL;
+            game.tryAddRoll((int) ((packed >>> shift) & ROLL_MASK));
+        }
+    }
+
+    /**
+     * Get the total score of the game so far.
+     * Include scores from frames that are incomplete.
+     */
+    public int totalScore() {
+        return game.totalScore();
+    }
+
+    /**
+     * Whether the game is finished.
+     */
+    public boolean isFinished() {
+        return game.isFinished();
+    }
+
+    /**
+     * Get the number of rolls made so far.
+     */
+    public int rollCount() {
+        return game.rollCount();
+    }
+
+    /**
+     * Get the number of pins knocked down by a roll.
+     * @param rollIndex Index of the roll in the game. Must be less
+     * than {@link #rollCount()}.
+     */
+    public int rollPins(int rollIndex) {
+        return game.rollPins(rollIndex);
+    }
+
+    /**
+     * Get the index of the frame the next roll should go in.
+     * If no more rolls can be made, return -1.
+     */
+    public int nextRollFrameIndex() {
+        return game.nextRollFrameIndex();
+    }
+
+    /**
+     * Calculate the score for a frame.
+     * If {@link #scoreIsComplete(int)} == false, this will return an
+     * incomplete score.
+     * @param frameIndex Index of the frame.
+     */
+    public int frameScore(int frameIndex) {
+        return game.frameScore(frameIndex);
+    }
+
+    /**
+     * Determine whether a frame's score is complete.
+     * @param frameIndex Index of the frame.
+     */
+    public boolean scoreIsComplete(int frameIndex) {
+        return game.scoreIsComplete(frameIndex);
+    }
+
+    /**
+     * Get a string representation of the score.
+     * The layout is the same as {@link BowlingGame#toString()}.
+     */
+    @Override
+    public String toString() {
+        return game.toString();
+    }
+}
@@ -8,4 +8,25 @@ package rossadamson.bowling;
  */
 @SuppressWarnings("serial")
 public class InvalidRollException extends Exception {
+    /**
+     * A shared instance, thrown by the games whenever a roll is invalid.
+     * It has no stack trace, so throwing it costs no more than a return.
+     */
+    public static final InvalidRollException INSTANCE = new InvalidRollException("the roll is invalid");
+
+    /**
+     * Constructor.
+     */
+    public InvalidRollException() {
+    }
+
+    /**
+     * Constructor for the shared instance. It has no stack trace, no
+     * suppressed exceptions and no cause, and none of them can be set,
+     * so no thrower can change what the others see.
+     * @param message The message.
+     */
+    private InvalidRollException(String message) {
+        super(message, null, false, false);
+    }
 }
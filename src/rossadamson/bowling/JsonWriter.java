@@ -0,0 +1,247 @@
+package rossadamson.bowling;
+
+import java.io.IOException;
+
+/**
+ * Writes JSON straight to an {@link Appendable}, one token at a time, with
+ * no reflection and no tree of values built first. The writer only adds
+ * the commas and colons between tokens and escapes strings; the caller is
+ * trusted to open and close objects and arrays in order and to name every
+ * value in an object.
+ * <p>
+ * A writer can be pointed at a new output with {@link #init(Appendable)}
+ * and reused, but only by one thread at a time.
+ * @author Ross Adamson
+ */
+public final class JsonWriter {
+    /**
+     * Deepest nesting of objects and arrays.
+     */
+    public static final int MAX_DEPTH = 32;
+    /**
+     * Hex digits for escaped characters.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    /**
+     * Where the JSON goes.
+     */
+    private Appendable out;
+    /**
+     * Number of objects and arrays open.
+     */
+    private int depth;
+    /**
+     * Whether the object or array at each depth has a value yet.
+     */
+    private final boolean[] hasValue = new boolean[MAX_DEPTH + 1];
+    /**
+     * Whether a name was just written, so the next value follows it.
+     */
+    private boolean afterName;
+
+    /**
+     * Constructor.
+     * @param out Where the JSON goes.
+     */
+    public JsonWriter(Appendable out) {
+        init(out);
+    }
+
+    /**
+     * Start writing new JSON.
+     * @param out Where the JSON goes.
+     */
+    public void init(Appendable out) {
+        this.out = out;
+        depth = 0;
+        hasValue[0] = false;
+        afterName = false;
+    }
+
+    /**
+     * Open an object.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    /**
+     * Close the innermost object.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    /**
+     * Open an array.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    /**
+     * Close the innermost array.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Write the name of the next value in an object.
+     * @param name The name.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        appendString(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write a number.
+     * @param value The number.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            out.append(Long.toString(value));
+        } else if (value < 0) {
+            out.append('-');
+            appendDigits(-value);
+        } else {
+            appendDigits(value);
+        }
+        return this;
+    }
+
+    /**
+     * Write true or false.
+     * @param value The value.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.append(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Write a string, or null.
+     * @param value The string.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter value(CharSequence value) throws IOException {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Write a null.
+     * @throws IOException If the output throws it.
+     */
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        out.append("null");
+        return this;
+    }
+
+    /**
+     * Open an object or array.
+     * @param bracket The opening bracket.
+     * @throws IOException If the output throws it.
+     */
+    private JsonWriter open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("nested deeper than " + MAX_DEPTH);
+        }
+        separate();
+        out.append(bracket);
+        ++depth;
+        hasValue[depth] = false;
+        return this;
+    }
+
+    /**
+     * Close an object or array.
+     * @param bracket The closing bracket.
+     * @throws IOException If the output throws it.
+     */
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("nothing to close");
+        }
+        out.append(bracket);
+        --depth;
+        return this;
+    }
+
+    /**
+     * Write the comma before a value or name, if one is needed.
+     * @throws IOException If the output throws it.
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else {
+            if (hasValue[depth]) {
+                out.append(',');
+            }
+            hasValue[depth] = true;
+        }
+    }
+
+    /**
+     * Write the decimal digits of a number, without making a string.
+     * @param value The number, not negative.
+     * @throws IOException If the output throws it.
+     */
+    private void appendDigits(long value) throws IOException {
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Write a quoted string, escaping what JSON needs escaped.
+     * @param chars The string.
+     * @throws IOException If the output throws it.
+     */
+    private void appendString(CharSequence chars) throws IOException {
+        out.append('"');
+        for (int i = 0; i < chars.length(); ++i) {
+            char c = chars.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\r') {
+                out.append("\\r");
+            } else if (c == '\t') {
+                out.append("\\t");
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                out.append("\\u")
+                        .append(HEX_DIGITS[c >>> 12]).append(HEX_DIGITS[(c >>> 8) & 0xf])
+                        .append(HEX_DIGITS[(c >>> 4) & 0xf]).append(HEX_DIGITS[c & 0xf]);
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,268 @@
+package rossadamson.bowling;
+
+import java.io.IOException;
+
+/**
+ * Hosts the live games of many lanes that are rolled on from many threads.
+ * Lanes are numbered from 0, and each has its own game. A lane is guarded
+ * by one of a fixed set of lock stripes, chosen by its number, so threads
+ * on lanes with different stripes never wait for each other, and no lock
+ * is held for more than one roll or one read.
+ * <p>
+ * Every method works on one lane and is atomic for that lane: a read sees
+ * the game between two rolls, never in the middle of one.
+ * <p>
+ * Rolls can also be recorded in a {@link RollJournal}, so the lanes can be
+ * rebuilt after a crash. Each game on a lane has a number, counting up from
+ * 0, to tell its rolls apart from those of earlier games in the journal.
+ * <p>
+ * Rolls made through the lanes are reported to Java Flight Recorder where
+ * it is available, with the lane number as the game id.
+ * @author Ross Adamson
+ */
+public class LaneManager {
+    /**
+     * Default number of lock stripes per available processor.
+     */
+    private static final int STRIPES_PER_PROCESSOR = 4;
+    /**
+     * The game of each lane.
+     */
+    private final CompactBowlingGame[] games;
+    /**
+     * The number of the game on each lane.
+     */
+    private final int[] gameNumbers;
+    /**
+     * Lock stripes. Lane <i>n</i> is guarded by
+     * <code>locks[n &amp; stripeMask]</code>.
+     */
+    private final Object[] locks;
+    /**
+     * Selects the lock stripe of a lane.
+     */
+    private final int stripeMask;
+
+    /**
+     * Constructor. Uses a few lock stripes for each available processor.
+     * @param laneCount Number of lanes.
+     */
+    public LaneManager(int laneCount) {
+        this(laneCount, Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR);
+    }
+
+    /**
+     * Constructor.
+     * @param laneCount Number of lanes.
+     * @param stripes Number of locks to share between the lanes. Rounded up
+     * to a power of two.
+     */
+    public LaneManager(int laneCount, int stripes) {
+        if (laneCount <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("need at least one lane and one stripe");
+        }
+
+        games = new CompactBowlingGame[laneCount];
+        gameNumbers = new int[laneCount];
+        for (int lane = 0; lane < laneCount; ++lane) {
+            games[lane] = new CompactBowlingGame();
+        }
+
+        int stripeCount = Integer.highestOneBit(stripes);
+        if (stripeCount < stripes) {
+            stripeCount <<= 1;
+        }
+        locks = new Object[stripeCount];
+        for (int stripe = 0; stripe < stripeCount; ++stripe) {
+            locks[stripe] = new Object();
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Get the number of lanes.
+     */
+    public int laneCount() {
+        return games.length;
+    }
+
+    /**
+     * Get the number of lock stripes.
+     */
+    public int stripeCount() {
+        return locks.length;
+    }
+
+    /**
+     * Get the lock that guards a lane.
+     * @param lane Number of the lane.
+     */
+    private Object lock(int lane) {
+        return locks[lane & stripeMask];
+    }
+
+    /**
+     * Add a roll to the game of a lane if it is valid.
+     * @param lane Number of the lane.
+     * @param pins Number of pins down in the roll.
+     * @return {@link BowlingGame#ROLL_OK} if the roll was added, otherwise
+     * the reason it was rejected.
+     */
+    public int tryAddRoll(int lane, int pins) {
+        CompactBowlingGame game = games[lane];
+        Object event = ScoringEvents.INSTANCE.rollStarted();
+        synchronized (lock(lane)) {
+            int status = game.tryAddRoll(pins);
+            ScoringEvents.INSTANCE.laneRollEnded(event, lane, game, pins, status);
+            return status;
+        }
+    }
+
+    /**
+     * Add a roll to the game of a lane.
+     * @param lane Number of the lane.
+     * @param pins Number of pins down in the roll.
+     * @throws GameFinishedException
+     * @throws InvalidRollException
+     */
+    public void addRoll(int lane, int pins) throws GameFinishedException, InvalidRollException {
+        BowlingGame.checkRollStatus(tryAddRoll(lane, pins));
+    }
+
+    /**
+     * Add a roll to the game of a lane if it is valid, and record it in a
+     * journal. Returns once the roll is durable, which may be after a
+     * commit that includes rolls from other threads.
+     * @param lane Number of the lane.
+     * @param pins Number of pins down in the roll.
+     * @param journal Where to record the roll.
+     * @return {@link BowlingGame#ROLL_OK} if the roll was added, otherwise
+     * the reason it was rejected.
+     * @throws IOException If the journal can't be written. If the roll
+     * couldn't be appended, it isn't added to the game either; if it was
+     * appended but the commit failed, it stays in the game.
+     */
+    public int tryAddRoll(int lane, int pins, RollJournal journal) throws IOException {
+        CompactBowlingGame game = games[lane];
+        Object event = ScoringEvents.INSTANCE.rollStarted();
+        int status;
+        long ticket = 0;
+
+        // append under the lane lock so the journal has the lane's rolls in order,
+        // and before the roll is added so a roll never misses the journal
+        synchronized (lock(lane)) {
+            if (game.canRoll(pins)) {
+                ticket = journal.append(lane, gameNumbers[lane], game.rollCount(), pins);
+            }
+            status = game.tryAddRoll(pins);
+            ScoringEvents.INSTANCE.laneRollEnded(event, lane, game, pins, status);
+        }
+
+        if (status == BowlingGame.ROLL_OK) {
+            journal.sync(ticket);
+        }
+
+        return status;
+    }
+
+    /**
+     * Start a new game on a lane.
+     * @param lane Number of the lane.
+     */
+    public void newGame(int lane) {
+        CompactBowlingGame game = games[lane];
+        synchronized (lock(lane)) {
+            game.init();
+            ++gameNumbers[lane];
+        }
+    }
+
+    /**
+     * Start a new game on a lane, and record it in a journal. Returns once
+     * the new game is durable.
+     * @param lane Number of the lane.
+     * @param journal Where to record the new game.
+     * @throws IOException If the journal can't be written. If the new game
+     * couldn't be appended, the old game stays on the lane; if it was
+     * appended but the commit failed, the new game stays.
+     */
+    public void newGame(int lane, RollJournal journal) throws IOException {
+        CompactBowlingGame game = games[lane];
+        long ticket;
+
+        synchronized (lock(lane)) {
+            ticket = journal.append(lane, gameNumbers[lane] + 1, 0, RollJournal.NEW_GAME);
+            game.init();
+            ++gameNumbers[lane];
+        }
+
+        journal.sync(ticket);
+    }
+
+    /**
+     * Replace the game on a lane with rolls from a journal.
+     * Rolls after the first invalid one are dropped.
+     * @param lane Number of the lane.
+     * @param gameNumber Number of the game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll.
+     * @param rollCount Number of rolls.
+     */
+    void restoreGame(int lane, int gameNumber, byte[] rolls, int start, int rollCount) {
+        CompactBowlingGame game = games[lane];
+        synchronized (lock(lane)) {
+            game.init();
+            gameNumbers[lane] = gameNumber;
+            int status = BowlingGame.ROLL_OK;
+            for (int rollIndex = 0; status == BowlingGame.ROLL_OK && rollIndex < rollCount; ++rollIndex) {
+                status = game.tryAddRoll(rolls[start + rollIndex]);
+            }
+        }
+    }
+
+    /**
+     * Get the number of the game on a lane.
+     * @param lane Number of the lane.
+     */
+    public int gameNumber(int lane) {
+        synchronized (lock(lane)) {
+            return gameNumbers[lane];
+        }
+    }
+
+    /**
+     * Get the total score of the game on a lane so far.
+     * @param lane Number of the lane.
+     */
+    public int totalScore(int lane) {
+        CompactBowlingGame game = games[lane];
+        synchronized (lock(lane)) {
+            return game.totalScore();
+        }
+    }
+
+    /**
+     * Whether the game on a lane is finished.
+     * @param lane Number of the lane.
+     */
+    public boolean isFinished(int lane) {
+        CompactBowlingGame game = games[lane];
+        synchronized (lock(lane)) {
+            return game.isFinished();
+        }
+    }
+
+    /**
+     * Copy the game on a lane, for reading more than one thing about it.
+     * @param lane Number of the lane.
+     * @param copy Gets the game.
+     * @return The number of the game.
+     */
+    public int copyGame(int lane, CompactBowlingGame copy) {
+        CompactBowlingGame game = games[lane];
+        synchronized (lock(lane)) {
+            copy.copyFrom(game);
+            return gameNumbers[lane];
+        }
+    }
+}
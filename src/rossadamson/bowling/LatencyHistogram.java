@@ -0,0 +1,149 @@
+package rossadamson.bowling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long an operation takes, in buckets that are as wide as a
+ * sixteenth of the power of two below them, so every time is kept to
+ * within about 6% however long it is. Times can be recorded from any
+ * number of threads, with no locks.
+ * @author Ross Adamson
+ */
+public final class LatencyHistogram {
+    /**
+     * Bits of a time kept below its highest bit.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    /**
+     * Buckets for each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Number of buckets, enough for any positive long.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    /**
+     * The number of times in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * The number of times recorded.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * The sum of the times recorded.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Record a time.
+     * @param nanos The time, in nanoseconds. Negative times count as 0.
+     */
+    public void record(long nanos) {
+        long time = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(time));
+        count.increment();
+        total.add(time);
+    }
+
+    /**
+     * Get the bucket of a time.
+     * @param nanos The time, not negative.
+     */
+    static int bucket(long nanos) {
+        int bucket = (int) nanos;
+        if (nanos >= SUB_BUCKETS) {
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+            bucket = (exponent + 1) * SUB_BUCKETS + (int) ((nanos >>> exponent) & (SUB_BUCKETS - 1));
+        }
+        return bucket;
+    }
+
+    /**
+     * Get the longest time in a bucket.
+     * @param bucket The bucket.
+     */
+    static long highestTime(int bucket) {
+        long time = bucket;
+        if (bucket >= SUB_BUCKETS) {
+            int exponent = bucket / SUB_BUCKETS - 1;
+            long lowest = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << exponent;
+            time = lowest + (1L << exponent) - 1;
+        }
+        return time;
+    }
+
+    /**
+     * Get the number of times recorded.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean time in nanoseconds, or 0 if none are recorded.
+     */
+    public double mean() {
+        long times = count.sum();
+        return (times == 0) ? 0.0 : (double) total.sum() / times;
+    }
+
+    /**
+     * Get the time that at least a percentage of the times are at or below,
+     * rounded up to the end of its bucket.
+     * @param percent The percentage, from 0 to 100.
+     * @return The time in nanoseconds, or 0 if none are recorded.
+     */
+    public long percentile(double percent) {
+        if (!(percent >= 0.0 && percent <= 100.0)) {
+            throw new IllegalArgumentException("percent must be from 0 to 100");
+        }
+
+        // take the counts once, since other threads may be adding to them
+        long[] snapshot = new long[BUCKETS];
+        long times = 0;
+        for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+            snapshot[bucket] = counts.get(bucket);
+            times += snapshot[bucket];
+        }
+
+        long result = 0;
+        if (times > 0) {
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * times));
+            long seen = 0;
+            int bucket = 0;
+            while (seen + snapshot[bucket] < rank) {
+                seen += snapshot[bucket];
+                ++bucket;
+            }
+            result = highestTime(bucket);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the longest time recorded, rounded up to the end of its bucket,
+     * or 0 if none are recorded.
+     */
+    public long max() {
+        int bucket = BUCKETS - 1;
+        while (bucket > 0 && counts.get(bucket) == 0) {
+            --bucket;
+        }
+        return (counts.get(bucket) == 0) ? 0 : highestTime(bucket);
+    }
+
+    /**
+     * Forget every time recorded. Times recorded at the same time may be
+     * partly kept.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+    }
+}
@@ -0,0 +1,111 @@
+package rossadamson.bowling;
+
+/**
+ * Games packed one after another into a roll array, ready for
+ * {@link BatchScorer}. It can take the games straight from a
+ * {@link ScoreSheetParser}. The arrays grow as needed, so adding a game
+ * usually creates no objects.
+ * @author Ross Adamson
+ */
+public class PackedGames implements ScoreSheetListener {
+    /**
+     * Pins of every roll of every game.
+     */
+    private byte[] rolls;
+    /**
+     * Where the rolls of each game start, plus where the last game ends.
+     */
+    private int[] offsets;
+    /**
+     * Number of complete games.
+     */
+    private int gameCount;
+    /**
+     * Number of rolls, including those of a game still being added.
+     */
+    private int rollCount;
+
+    /**
+     * Constructor.
+     * @param expectedGames How many games to make room for at first.
+     */
+    public PackedGames(int expectedGames) {
+        rolls = new byte[Math.max(1, expectedGames) * BowlingGame.MAX_ROLLS];
+        offsets = new int[Math.max(1, expectedGames) + 1];
+        clear();
+    }
+
+    /**
+     * Remove every game.
+     */
+    public void clear() {
+        gameCount = 0;
+        rollCount = 0;
+        offsets[0] = 0;
+    }
+
+    /**
+     * Number of complete games.
+     */
+    public int gameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Pins of every roll of every game. Only the rolls up to the end of
+     * the last game are used.
+     */
+    public byte[] rolls() {
+        return rolls;
+    }
+
+    /**
+     * Where the rolls of each game start, plus where the last game ends.
+     * Only the first {@link #gameCount()} + 1 entries are used.
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Score every game with {@link BatchScorer}.
+     * @param finalScores Gets the final score of each game.
+     * @param cumulativeScores If not null, gets the running score through
+     * each frame of each game.
+     * @return The number of valid games.
+     */
+    public int score(int[] finalScores, int[] cumulativeScores) {
+        return BatchScorer.scoreGames(rolls, offsets, gameCount, finalScores, cumulativeScores);
+    }
+
+    @Override
+    public void startGame(long offset) {
+        rollCount = offsets[gameCount];
+    }
+
+    @Override
+    public void roll(int pins) {
+        if (rollCount == rolls.length) {
+            byte[] moreRolls = new byte[rolls.length * 2];
+            System.arraycopy(rolls, 0, moreRolls, 0, rollCount);
+            rolls = moreRolls;
+        }
+        rolls[rollCount++] = (byte) pins;
+    }
+
+    @Override
+    public void endGame() {
+        if (gameCount + 1 == offsets.length) {
+            int[] moreOffsets = new int[offsets.length * 2];
+            System.arraycopy(offsets, 0, moreOffsets, 0, offsets.length);
+            offsets = moreOffsets;
+        }
+        offsets[++gameCount] = rollCount;
+    }
+
+    @Override
+    public void error(long offset, String message) {
+        // drop the rolls of the game
+        rollCount = offsets[gameCount];
+    }
+}
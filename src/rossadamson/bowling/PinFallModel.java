@@ -0,0 +1,34 @@
+package rossadamson.bowling;
+
+/**
+ * Gives the chance of each number of pins falling in a roll, for
+ * projecting how a game will end. A model sees whether the roll is the
+ * first ball at a full rack, and how many pins are standing, so it can
+ * give a bowler's first balls and their second balls at each leave
+ * different chances.
+ * @author Ross Adamson
+ */
+public interface PinFallModel {
+    /**
+     * Every number of pins from 0 to the pins standing is as likely. This
+     * is how the unit tests pick random rolls.
+     */
+    PinFallModel UNIFORM = new PinFallModel() {
+        @Override
+        public double probability(boolean firstBall, int pinsUp, int pins) {
+            return 1.0 / (pinsUp + 1);
+        }
+    };
+
+    /**
+     * Get the chance that a roll knocks down a number of pins.
+     * The chances for every pins from 0 to pinsUp must add up to 1.
+     * @param firstBall Whether the roll is the first at a full rack: the
+     * first roll of a frame, or a roll in the last frame after a strike or
+     * spare. A second ball can also have every pin standing, after a gutter
+     * ball.
+     * @param pinsUp Pins standing, from 1 to {@link BowlingGame#ALL_PINS}.
+     * @param pins Pins knocked down, from 0 to pinsUp.
+     */
+    double probability(boolean firstBall, int pinsUp, int pins);
+}
@@ -0,0 +1,228 @@
+package rossadamson.bowling;
+
+/**
+ * Finds, exactly, which final scores a game in progress can still end with.
+ * The points a game can still score depend only on its
+ * {@link TableDrivenScorer} state, so the set of points left is worked out
+ * once for every state, each from the sets of the states after it, and
+ * kept as a bit set. Answering for a game is then a walk of its rolls and a
+ * lookup.
+ * @author Ross Adamson
+ */
+public final class ReachableScores {
+    /**
+     * Number of words in the bit set of one state.
+     */
+    private static final int WORDS = (BowlingGame.MAX_SCORE >>> 6) + 1;
+    /**
+     * The points each state can still score: bit <i>p</i> of the words of
+     * a state is set if the game can score exactly <i>p</i> more points.
+     */
+    private static final long[] REMAINING;
+    /**
+     * The fewest points each state can still score.
+     */
+    private static final short[] MIN_REMAINING;
+    /**
+     * The most points each state can still score.
+     */
+    private static final short[] MAX_REMAINING;
+
+    static {
+        int stateCount = TableDrivenScorer.stateCount();
+        REMAINING = new long[stateCount * WORDS];
+        MIN_REMAINING = new short[stateCount];
+        MAX_REMAINING = new short[stateCount];
+
+        boolean[] done = new boolean[stateCount];
+        fill(TableDrivenScorer.START_STATE, done);
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private ReachableScores() {
+    }
+
+    /**
+     * Work out the points a state and every state after it can still score.
+     * A game has at most {@link BowlingGame#MAX_ROLLS} rolls, so this
+     * recurses no deeper than that.
+     * @param state The state.
+     * @param done Which states are already worked out.
+     */
+    private static void fill(int state, boolean[] done) {
+        int pinsUp = TableDrivenScorer.pinsUp(state);
+        int words = state * WORDS;
+
+        if (pinsUp == 0) {
+            // a finished game scores nothing more
+            REMAINING[words] = 1L;
+        } else {
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                int entry = TableDrivenScorer.transition(state, pins);
+                int next = TableDrivenScorer.nextState(entry);
+                if (!done[next]) {
+                    fill(next, done);
+                }
+                orShifted(next * WORDS, words, TableDrivenScorer.scoreDelta(entry));
+            }
+        }
+
+        MIN_REMAINING[state] = (short) lowestBit(words);
+        MAX_REMAINING[state] = (short) highestBit(words);
+        done[state] = true;
+    }
+
+    /**
+     * Add the points of one bit set, each plus a number of points, to
+     * another.
+     * @param from Index of the first word of the bit set to add.
+     * @param to Index of the first word of the bit set to add to.
+     * @param shift Points to add, less than 64.
+     */
+    private static void orShifted(int from, int to, int shift) {
+        long carry = 0;
+        for (int word = 0; word < WORDS; ++word) {
+            long bits = REMAINING[from + word];
+            REMAINING[to + word] |= (bits << shift) | carry;
+            carry = (shift == 0) ? 0 : bits >>> (64 - shift);
+        }
+    }
+
+    /**
+     * Get the lowest set bit of a bit set.
+     * @param from Index of the first word of the bit set.
+     */
+    private static int lowestBit(int from) {
+        int word = 0;
+        while (REMAINING[from + word] == 0) {
+            ++word;
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(REMAINING[from + word]);
+    }
+
+    /**
+     * Get the highest set bit of a bit set.
+     * @param from Index of the first word of the bit set.
+     */
+    private static int highestBit(int from) {
+        int word = WORDS - 1;
+        while (REMAINING[from + word] == 0) {
+            --word;
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(REMAINING[from + word]);
+    }
+
+    /**
+     * Get the lowest final score a game can still end with.
+     * @param game The game.
+     */
+    public static int minFinalScore(CompactBowlingGame game) {
+        return game.totalScore() + MIN_REMAINING[TableDrivenScorer.stateOf(game)];
+    }
+
+    /**
+     * Get the lowest final score a game can still end with.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     */
+    public static int minFinalScore(BowlingGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        return snapshot.totalScore() + MIN_REMAINING[TableDrivenScorer.stateOf(snapshot)];
+    }
+
+    /**
+     * Get the highest final score a game can still end with.
+     * @param game The game.
+     */
+    public static int maxFinalScore(CompactBowlingGame game) {
+        return game.totalScore() + MAX_REMAINING[TableDrivenScorer.stateOf(game)];
+    }
+
+    /**
+     * Get the highest final score a game can still end with.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     */
+    public static int maxFinalScore(BowlingGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        return snapshot.totalScore() + MAX_REMAINING[TableDrivenScorer.stateOf(snapshot)];
+    }
+
+    /**
+     * Determine whether a game can still end with a final score.
+     * @param game The game.
+     * @param finalScore The final score.
+     */
+    public static boolean canFinishWith(CompactBowlingGame game, int finalScore) {
+        return isRemaining(TableDrivenScorer.stateOf(game), finalScore - game.totalScore());
+    }
+
+    /**
+     * Determine whether a game can still end with a final score.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     * @param finalScore The final score.
+     */
+    public static boolean canFinishWith(BowlingGame game, int finalScore) {
+        GameSnapshot snapshot = game.snapshot();
+        return isRemaining(TableDrivenScorer.stateOf(snapshot), finalScore - snapshot.totalScore());
+    }
+
+    /**
+     * Get every final score a game can still end with.
+     * @param game The game.
+     * @return The scores, lowest first.
+     */
+    public static int[] finalScores(CompactBowlingGame game) {
+        return finalScores(TableDrivenScorer.stateOf(game), game.totalScore());
+    }
+
+    /**
+     * Get every final score a game can still end with.
+     * @param game The game. It is read through {@link BowlingGame#snapshot()},
+     * so it may be rolled on at the same time.
+     * @return The scores, lowest first.
+     */
+    public static int[] finalScores(BowlingGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        return finalScores(TableDrivenScorer.stateOf(snapshot), snapshot.totalScore());
+    }
+
+    /**
+     * Determine whether a state can still score a number of points.
+     * @param state The state.
+     * @param points The points.
+     */
+    private static boolean isRemaining(int state, int points) {
+        return points >= 0 && points <= BowlingGame.MAX_SCORE &&
+                (REMAINING[state * WORDS + (points >>> 6)] & (1L << points)) != 0;
+    }
+
+    /**
+     * Get every final score a state can end with.
+     * @param state The state.
+     * @param score The score so far.
+     * @return The scores, lowest first.
+     */
+    private static int[] finalScores(int state, int score) {
+        int from = state * WORDS;
+        int count = 0;
+        for (int word = 0; word < WORDS; ++word) {
+            count += Long.bitCount(REMAINING[from + word]);
+        }
+
+        int[] scores = new int[count];
+        int index = 0;
+        for (int word = 0; word < WORDS; ++word) {
+            long bits = REMAINING[from + word];
+            while (bits != 0) {
+                scores[index++] = score + (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+
+        return scores;
+    }
+}
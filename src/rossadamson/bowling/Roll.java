@@ -1,48 +1,120 @@
 package rossadamson.bowling;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a bowling roll.
+ * Rolls from {@link #of(int)} are shared instances. They stand for a pin
+ * count only, and can't be changed or linked to other rolls.
  * @author Ross Adamson
  */
 public class Roll {
     /**
      * The roll that comes after this one. Null
-     * if no more roles follow.
+     * if no more roles follow. Always null for a shared roll.
      */
-    public Roll nextRoll;
+    Roll nextRoll;
     /**
      * The number of pins knocked down by the roll.
      */
     private int pins;
+    /**
+     * Whether this is a shared roll from {@link #of(int)}.
+     */
+    private final boolean shared;
+    /**
+     * The shared roll for each pin count, indexed by pins.
+     */
+    private static final Roll[] SHARED_ROLLS;
+    /**
+     * The unmodifiable range of shared rolls from 0 up to each pin count,
+     * indexed by the highest pin count.
+     */
+    private static final List<List<Roll>> RANGES_OF_ROLLS;
+    
+    static {
+        SHARED_ROLLS = new Roll[BowlingGame.ALL_PINS + 1];
+        for (int pins = 0; pins <= BowlingGame.ALL_PINS; ++pins) {
+            SHARED_ROLLS[pins] = new Roll(pins, true);
+        }
+        
+        List<List<Roll>> ranges = new ArrayList<List<Roll>>();
+        for (int maxPins = 0; maxPins <= BowlingGame.ALL_PINS; ++maxPins) {
+            ranges.add(Collections.unmodifiableList(
+                    Arrays.asList(SHARED_ROLLS).subList(0, maxPins + 1)));
+        }
+        RANGES_OF_ROLLS = Collections.unmodifiableList(ranges);
+    }
    
     /**
      * Constructor.
      * @param pins Number of pins knocked down by roll.
      */
     public Roll(int pins) {
-        init(pins);
+        this(pins, false);
+    }
+
+    /**
+     * Constructor.
+     * @param pins Number of pins knocked down by roll.
+     * @param shared Whether the roll is shared.
+     */
+    private Roll(int pins, boolean shared) {
+        this.shared = shared;
+        setPins(pins);
+    }
+    
+    /**
+     * Get the shared roll for a pin count.
+     * Pin counts outside of 0 to {@link BowlingGame#ALL_PINS} get a new roll.
+     * @param pins Number of pins knocked down by roll.
+     */
+    public static Roll of(int pins) {
+        Roll roll = null;
+        
+        if (pins >= 0 && pins <= BowlingGame.ALL_PINS) {
+            roll = SHARED_ROLLS[pins];
+        } else {
+            roll = new Roll(pins);
+        }
+        
+        return roll;
     }
     
     /**
      * Initialize the object.
      * @param pins Number of pins knocked down by roll.
+     * @throws IllegalStateException If this is a shared roll.
      */
     public void init(int pins) {
+        if (shared) {
+            throw new IllegalStateException("shared rolls can't be changed");
+        }
         setPins(pins);
         nextRoll = null;
     }
    
     /**
      * Set the number of pins knocked down by this roll.
-     * Precondition: pins >= 0
+     * Precondition: pins >= 0, and the roll is owned by a game, never
+     * a shared roll.
      */
-    private void setPins(int pins) {
+    void setPins(int pins) {
         this.pins = pins;
     }
     
+    /**
+     * Whether this is a shared roll from {@link #of(int)}, which can't be
+     * changed or linked to other rolls.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
     /**
      * The number of pins knocked down by this roll.
      */
@@ -93,16 +165,37 @@ public class Roll {
      
     /**
      * Get a range of pin rolls, starting from 0 up to the specified maximum.
+     * The result is unmodifiable and holds shared rolls from {@link #of(int)}.
      * @param maxPins The highest pin count in the range.
      */
     public static Collection<Roll> getRangeOfRolls(int maxPins) {
-        ArrayList<Roll> rolls = new ArrayList<Roll>();
-        for (int pins = 0; pins <= maxPins; ++pins) {
-            rolls.add(new Roll(pins));
+        Collection<Roll> rolls = null;
+        
+        if (maxPins < 0) {
+            rolls = Collections.emptyList();
+        } else if (maxPins <= BowlingGame.ALL_PINS) {
+            rolls = RANGES_OF_ROLLS.get(maxPins);
+        } else {
+            ArrayList<Roll> range = new ArrayList<Roll>();
+            for (int pins = 0; pins <= maxPins; ++pins) {
+                range.add(of(pins));
+            }
+            rolls = Collections.unmodifiableList(range);
         }
+        
         return rolls;
     }
     
+    /**
+     * Get a range of pin counts as a bit mask, with bit <i>n</i> set if
+     * a roll of <i>n</i> pins is in the range.
+     * @param maxPins The highest pin count in the range. Negative means
+     * an empty range.
+     */
+    public static int rangeMask(int maxPins) {
+        return (maxPins < 0) ? 0 : (1 << (maxPins + 1)) - 1;
+    }
+    
     /**
      * Whether another roll has the same pins as this one.
      * @param roll The other roll.
@@ -0,0 +1,880 @@
+package rossadamson.bowling;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * An append-only file of the rolls made on the lanes of a
+ * {@link LaneManager}, for rebuilding the lanes after a crash.
+ * <p>
+ * The journal starts with a header of {@link #HEADER_SIZE} bytes: the magic
+ * number, the format version, and the number of the first record in the
+ * file, counting every record ever journaled. Then come records of
+ * {@link #RECORD_SIZE} bytes, each holding the lane, the game number, the
+ * index of the roll in the game, the pins, and a check value. A record with
+ * {@link #NEW_GAME} for pins starts a game with no rolls. All numbers are
+ * big-endian.
+ * <p>
+ * Any number of threads can append. Records are gathered in buffers and
+ * written by whichever thread first needs them durable, with one
+ * {@link FileChannel#force(boolean)} for everything gathered so far, so
+ * threads that append while a commit is under way share the next one.
+ * Appending never touches the file, so it can be done under a lane lock.
+ * <p>
+ * {@link #checkpoint(LaneManager, File)} saves every lane along with the
+ * number of the records it covers, so
+ * {@link #replay(File, File, LaneManager, int)} only reads the records
+ * after them. Once the checkpoint is durable, the journal is replaced by
+ * one holding only the records after it, so the journal doesn't grow
+ * forever. A journal that has been cut this way can only be replayed with
+ * its checkpoint.
+ * @author Ross Adamson
+ */
+public class RollJournal implements Closeable {
+    /**
+     * First bytes of every journal: "ROLL".
+     */
+    public static final int MAGIC = 0x524f4c4c;
+    /**
+     * First bytes of every checkpoint: "CKPT".
+     */
+    public static final int CHECKPOINT_MAGIC = 0x434b5054;
+    /**
+     * Version of the journal and checkpoint formats.
+     */
+    public static final int VERSION = 2;
+    /**
+     * Size of the journal header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+    /**
+     * Size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 16;
+    /**
+     * Pins of a record that starts a new game.
+     */
+    public static final int NEW_GAME = -1;
+    /**
+     * Size of the checkpoint header in bytes: the magic number, the
+     * version, the number of the records covered and the number of lanes.
+     */
+    static final int CHECKPOINT_HEADER_SIZE = 20;
+    /**
+     * Size of the checkpoint of one lane in bytes: the game number, the
+     * roll count and the pins of every roll.
+     */
+    static final int CHECKPOINT_LANE_SIZE = 5 + BowlingGame.MAX_ROLLS;
+    /**
+     * Number of records each buffer holds.
+     */
+    private static final int BUFFER_RECORDS = 4096;
+    /**
+     * Most empty buffers kept for reuse.
+     */
+    private static final int MAX_SPARE_BUFFERS = 2;
+    /**
+     * Size of the buffer each replay thread reads through.
+     */
+    private static final int REPLAY_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Path of the journal file.
+     */
+    private final File journalFile;
+    /**
+     * Lets one checkpoint run at a time.
+     */
+    private final Object checkpointLock = new Object();
+    /**
+     * Guards the fields below.
+     */
+    private final Object lock = new Object();
+    /**
+     * The journal file. Only replaced by the thread committing.
+     */
+    private RandomAccessFile file;
+    /**
+     * Channel of the journal file. Only replaced by the thread committing.
+     */
+    private FileChannel channel;
+    /**
+     * Records appended since the last commit started, after those in
+     * {@link #filled}.
+     */
+    private ByteBuffer pending;
+    /**
+     * Buffers that filled up since the last commit started, oldest first.
+     */
+    private final ArrayDeque<ByteBuffer> filled = new ArrayDeque<ByteBuffer>();
+    /**
+     * Empty buffers for reuse.
+     */
+    private final ArrayDeque<ByteBuffer> spare = new ArrayDeque<ByteBuffer>();
+    /**
+     * Number of the first record in the file.
+     */
+    private long firstRecord;
+    /**
+     * Number of records appended, which is also the ticket of the last one.
+     */
+    private long appendedRecords;
+    /**
+     * Number of records written and forced to the file.
+     */
+    private long durableRecords;
+    /**
+     * File position after the last committed record.
+     */
+    private long durablePosition;
+    /**
+     * Whether a thread is committing.
+     */
+    private boolean commitRunning;
+    /**
+     * Number of commits made.
+     */
+    private long commitCount;
+    /**
+     * The error that stopped the journal, or null.
+     */
+    private IOException failure;
+    /**
+     * Whether the journal has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Open a journal, creating it if it doesn't exist. A record cut short
+     * by a crash at the end of the file is removed.
+     * @param journalFile The journal file.
+     * @throws IOException If the file isn't a journal or can't be opened.
+     */
+    public RollJournal(File journalFile) throws IOException {
+        this.journalFile = journalFile;
+        file = new RandomAccessFile(journalFile, "rw");
+        channel = file.getChannel();
+        pending = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+        spare.add(ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE));
+
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                writeHeader(channel, 0);
+                channel.force(true);
+                durablePosition = HEADER_SIZE;
+            } else {
+                firstRecord = checkHeader(channel);
+                long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+                durablePosition = HEADER_SIZE + records * RECORD_SIZE;
+                channel.truncate(durablePosition);
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Add a record to the journal. It is durable once {@link #sync(long)}
+     * returns for its ticket. This never waits for the file: a full buffer
+     * is left for the next commit and another one taken.
+     * @param lane Number of the lane.
+     * @param game Number of the game on the lane.
+     * @param sequence Index of the roll in the game.
+     * @param pins Number of pins down in the roll, or {@link #NEW_GAME}.
+     * @return The ticket of the record.
+     * @throws IOException If the journal has failed or is closed.
+     */
+    public long append(int lane, int game, int sequence, int pins) throws IOException {
+        synchronized (lock) {
+            checkUsable();
+            if (pending.remaining() < RECORD_SIZE) {
+                filled.add(pending);
+                pending = takeSpare();
+            }
+            pending.putInt(lane).putInt(game).putInt(sequence)
+                    .putShort((short) pins).putShort(check(lane, game, sequence, pins));
+            return ++appendedRecords;
+        }
+    }
+
+    /**
+     * Get an empty buffer, making one if none is spare. Call with the lock
+     * held.
+     */
+    private ByteBuffer takeSpare() {
+        ByteBuffer buffer = spare.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+        }
+        return buffer;
+    }
+
+    /**
+     * Take every record appended so far, to be committed. Call with the
+     * lock held.
+     * @return The buffers of the records, oldest first.
+     */
+    private ByteBuffer[] takeBatch() {
+        ByteBuffer[] batch = new ByteBuffer[filled.size() + 1];
+        for (int i = 0; i < batch.length - 1; ++i) {
+            batch[i] = filled.poll();
+        }
+        batch[batch.length - 1] = pending;
+        pending = takeSpare();
+        return batch;
+    }
+
+    /**
+     * Empty the buffers of a batch and keep some of them for reuse. Call
+     * with the lock held.
+     */
+    private void releaseBatch(ByteBuffer[] batch) {
+        for (ByteBuffer buffer : batch) {
+            buffer.clear();
+            if (spare.size() < MAX_SPARE_BUFFERS) {
+                spare.add(buffer);
+            }
+        }
+    }
+
+    /**
+     * Wait until a record is durable, committing it and every record
+     * appended before it if no other thread is already doing so.
+     * @param ticket The ticket of the record.
+     * @throws IOException If the journal has failed.
+     */
+    public void sync(long ticket) throws IOException {
+        boolean durable = false;
+
+        while (!durable) {
+            ByteBuffer[] batch = null;
+            FileChannel target = null;
+            long batchEnd = 0;
+            long position = 0;
+
+            synchronized (lock) {
+                if (failure != null) {
+                    throw new IOException("journal failed", failure);
+                }
+
+                if (durableRecords >= ticket) {
+                    durable = true;
+                } else if (commitRunning) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("interrupted waiting for a commit");
+                    }
+                } else {
+                    // lead a commit of everything appended so far
+                    commitRunning = true;
+                    batch = takeBatch();
+                    target = channel;
+                    batchEnd = appendedRecords;
+                    position = durablePosition;
+                }
+            }
+
+            if (batch != null) {
+                commit(target, batch, batchEnd, position);
+            }
+        }
+    }
+
+    /**
+     * Write and force a batch of records, outside the lock so other
+     * threads can keep appending.
+     * @param target Channel of the journal file.
+     * @param batch The buffers of the records.
+     * @param batchEnd Ticket of the last record.
+     * @param position File position of the first record.
+     */
+    private void commit(FileChannel target, ByteBuffer[] batch, long batchEnd, long position) {
+        IOException error = null;
+        long end = position;
+
+        try {
+            end = writeBatch(target, batch, position);
+            target.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (lock) {
+            releaseBatch(batch);
+            if (error == null) {
+                durableRecords = batchEnd;
+                durablePosition = end;
+                ++commitCount;
+            } else {
+                failure = error;
+            }
+            commitRunning = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Get the number of commits made, each with one force of the file.
+     */
+    public long commitCount() {
+        synchronized (lock) {
+            return commitCount;
+        }
+    }
+
+    /**
+     * Get the number of records appended.
+     */
+    public long recordCount() {
+        synchronized (lock) {
+            return appendedRecords;
+        }
+    }
+
+    /**
+     * Save every lane to a checkpoint file, replacing any checkpoint there,
+     * then cut the journal down to the records after the checkpoint.
+     * The lanes can keep rolling meanwhile. The checkpoint covers the
+     * journal up to the last commit before it started, and a replay
+     * starting from it reads only the records after that.
+     * @param lanes The lanes whose rolls are in this journal.
+     * @param checkpointFile The checkpoint file. Keep it with the journal:
+     * the journal no longer has the rolls it covers.
+     * @throws IOException
+     */
+    public void checkpoint(LaneManager lanes, File checkpointFile) throws IOException {
+        synchronized (checkpointLock) {
+            rotate(writeCheckpoint(lanes, checkpointFile));
+        }
+    }
+
+    /**
+     * Save every lane to a checkpoint file, replacing any checkpoint there.
+     * @param lanes The lanes whose rolls are in this journal.
+     * @param checkpointFile The checkpoint file.
+     * @return The number of the records the checkpoint covers.
+     * @throws IOException
+     */
+    private long writeCheckpoint(LaneManager lanes, File checkpointFile) throws IOException {
+        long covered;
+        synchronized (lock) {
+            checkUsable();
+            covered = firstRecord + (durablePosition - HEADER_SIZE) / RECORD_SIZE;
+        }
+
+        // every roll committed by now is already on its lane
+        File directory = checkpointFile.getAbsoluteFile().getParentFile();
+        File temporaryFile = File.createTempFile(checkpointFile.getName(), ".tmp", directory);
+        RandomAccessFile checkpoint = new RandomAccessFile(temporaryFile, "rw");
+        try {
+            FileChannel checkpointChannel = checkpoint.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(REPLAY_BUFFER_SIZE);
+            buffer.putInt(CHECKPOINT_MAGIC).putInt(VERSION).putLong(covered).putInt(lanes.laneCount());
+
+            CompactBowlingGame game = new CompactBowlingGame();
+            for (int lane = 0; lane < lanes.laneCount(); ++lane) {
+                if (buffer.remaining() < CHECKPOINT_LANE_SIZE) {
+                    buffer.flip();
+                    checkpointChannel.write(buffer);
+                    buffer.clear();
+                }
+
+                buffer.putInt(lanes.copyGame(lane, game));
+                buffer.put((byte) game.rollCount());
+                for (int rollIndex = 0; rollIndex < BowlingGame.MAX_ROLLS; ++rollIndex) {
+                    buffer.put((byte) (rollIndex < game.rollCount() ? game.rollPins(rollIndex) : 0));
+                }
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                checkpointChannel.write(buffer);
+            }
+            checkpointChannel.force(true);
+        } finally {
+            checkpoint.close();
+        }
+
+        Files.move(temporaryFile.toPath(), checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return covered;
+    }
+
+    /**
+     * Replace the journal with one holding only the records after a
+     * durable checkpoint, along with every record appended so far. This
+     * takes the place of a commit, so appending goes on meanwhile. If the
+     * new journal can't be made, the records are committed to the old one.
+     * A crash at any point leaves either journal on disk, and either can be
+     * replayed with the checkpoint.
+     * @param covered Number of the records the checkpoint covers.
+     * @throws IOException If the new journal can't be made.
+     */
+    private void rotate(long covered) throws IOException {
+        ByteBuffer[] batch;
+        long batchEnd;
+        long position;
+        long keepFrom;
+
+        synchronized (lock) {
+            while (commitRunning) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for a commit");
+                }
+            }
+            checkUsable();
+            commitRunning = true;
+            batch = takeBatch();
+            batchEnd = appendedRecords;
+            position = durablePosition;
+            keepFrom = HEADER_SIZE + (covered - firstRecord) * RECORD_SIZE;
+        }
+
+        // only this thread uses the file until the commit is over
+        IOException rotateError = null;
+        File temporaryFile = null;
+        RandomAccessFile rotated = null;
+        long end = 0;
+        try {
+            File directory = journalFile.getAbsoluteFile().getParentFile();
+            temporaryFile = File.createTempFile(journalFile.getName(), ".tmp", directory);
+            rotated = new RandomAccessFile(temporaryFile, "rw");
+            FileChannel rotatedChannel = rotated.getChannel();
+            writeHeader(rotatedChannel, covered);
+
+            // the records committed since the checkpoint started, then the new ones
+            long keepSize = position - keepFrom;
+            rotatedChannel.position(HEADER_SIZE);
+            transferFully(channel, keepFrom, keepSize, rotatedChannel);
+            end = writeBatch(rotatedChannel, batch, HEADER_SIZE + keepSize);
+            rotatedChannel.force(true);
+            Files.move(temporaryFile.toPath(), journalFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            rotateError = e;
+        }
+
+        if (rotateError == null) {
+            RandomAccessFile old;
+            synchronized (lock) {
+                old = file;
+                file = rotated;
+                channel = rotated.getChannel();
+                releaseBatch(batch);
+                durableRecords = batchEnd;
+                durablePosition = end;
+                firstRecord = covered;
+                ++commitCount;
+                commitRunning = false;
+                lock.notifyAll();
+            }
+            try {
+                old.close();
+            } catch (IOException e) {
+                // every record in it is in the new journal
+            }
+        } else {
+            if (rotated != null) {
+                rotated.close();
+            }
+            if (temporaryFile != null) {
+                temporaryFile.delete();
+            }
+            commit(channel, batch, batchEnd, position);
+            throw rotateError;
+        }
+    }
+
+    /**
+     * Commit every record appended, and close the journal.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        long ticket;
+        synchronized (lock) {
+            ticket = closed ? 0 : appendedRecords;
+            closed = true;
+        }
+
+        try {
+            sync(ticket);
+        } finally {
+            RandomAccessFile journal;
+            synchronized (lock) {
+                journal = file;
+            }
+            journal.close();
+        }
+    }
+
+    /**
+     * Rebuild the lanes from a journal, starting from a checkpoint if there
+     * is one. The records are read in parallel, each thread taking one part
+     * of the journal. Each lane gets the latest game found, with every roll
+     * of it that was recorded. Lanes not in the checkpoint or the journal
+     * are left as they are.
+     * @param journalFile The journal file.
+     * @param checkpointFile The checkpoint file, or null. If it doesn't
+     * exist, the whole journal is read, which only rebuilds every roll if
+     * the journal was never cut by a checkpoint.
+     * @param lanes Gets the games. Must have at least as many lanes as
+     * were journaled.
+     * @param threads Number of threads to read the journal with.
+     * @throws IOException
+     */
+    public static void replay(File journalFile, File checkpointFile, LaneManager lanes, int threads)
+            throws IOException {
+        LaneRecords replayed = new LaneRecords(lanes.laneCount());
+        long covered = 0;
+        if (checkpointFile != null && checkpointFile.exists()) {
+            covered = readCheckpoint(checkpointFile, replayed);
+        }
+
+        int threadCount = Math.max(1, threads);
+        RandomAccessFile journal = new RandomAccessFile(journalFile, "r");
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final FileChannel journalChannel = journal.getChannel();
+            long start = HEADER_SIZE + Math.max(0, covered - checkHeader(journalChannel)) * RECORD_SIZE;
+
+            // split the records after the checkpoint between the threads
+            long recordCount = Math.max(0, (journalChannel.size() - start) / RECORD_SIZE);
+            long recordsPerPart = (recordCount + threadCount - 1) / threadCount;
+            List<Future<LaneRecords>> parts = new ArrayList<Future<LaneRecords>>();
+            for (long first = 0; first < recordCount; first += recordsPerPart) {
+                final long partStart = start + first * RECORD_SIZE;
+                final long partEnd = start + Math.min(recordCount, first + recordsPerPart) * RECORD_SIZE;
+                final int laneCount = lanes.laneCount();
+                parts.add(executor.submit(new Callable<LaneRecords>() {
+                    @Override
+                    public LaneRecords call() throws IOException {
+                        LaneRecords records = new LaneRecords(laneCount);
+                        records.read(journalChannel, partStart, partEnd);
+                        return records;
+                    }
+                }));
+            }
+
+            for (Future<LaneRecords> part : parts) {
+                replayed.merge(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted during replay");
+        } catch (ExecutionException e) {
+            throw new IOException("can't read journal", e.getCause());
+        } finally {
+            executor.shutdown();
+            journal.close();
+        }
+
+        replayed.restore(lanes);
+    }
+
+    /**
+     * Read a checkpoint.
+     * @param checkpointFile The checkpoint file.
+     * @param records Gets the lanes.
+     * @return The number of the records the checkpoint covers.
+     * @throws IOException
+     */
+    private static long readCheckpoint(File checkpointFile, LaneRecords records) throws IOException {
+        long covered;
+        RandomAccessFile checkpoint = new RandomAccessFile(checkpointFile, "r");
+        try {
+            FileChannel checkpointChannel = checkpoint.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(REPLAY_BUFFER_SIZE);
+            buffer.limit(CHECKPOINT_HEADER_SIZE);
+            readFully(checkpointChannel, buffer);
+            buffer.flip();
+            if (buffer.getInt() != CHECKPOINT_MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("not a roll journal checkpoint: " + checkpointFile);
+            }
+            covered = buffer.getLong();
+            int laneCount = Math.min(buffer.getInt(), records.laneCount);
+
+            buffer.clear();
+            buffer.flip();
+            for (int lane = 0; lane < laneCount; ++lane) {
+                if (buffer.remaining() < CHECKPOINT_LANE_SIZE) {
+                    buffer.compact();
+                    readFully(checkpointChannel, buffer);
+                    buffer.flip();
+                }
+
+                int game = buffer.getInt();
+                int rollCount = buffer.get();
+                records.add(lane, game, 0, NEW_GAME);
+                for (int rollIndex = 0; rollIndex < BowlingGame.MAX_ROLLS; ++rollIndex) {
+                    int pins = buffer.get();
+                    if (rollIndex < rollCount) {
+                        records.add(lane, game, rollIndex, pins);
+                    }
+                }
+            }
+        } finally {
+            checkpoint.close();
+        }
+
+        return covered;
+    }
+
+    /**
+     * Write the header of a journal.
+     * @param journalChannel Channel of the journal file.
+     * @param first Number of the first record in the file.
+     * @throws IOException
+     */
+    private static void writeHeader(FileChannel journalChannel, long first) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(first).flip();
+        writeFully(journalChannel, header, 0);
+    }
+
+    /**
+     * Check the header of a journal.
+     * @param journalChannel Channel of the journal file.
+     * @return Number of the first record in the file.
+     * @throws IOException If the file isn't a journal.
+     */
+    private static long checkHeader(FileChannel journalChannel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && journalChannel.read(header, header.position()) >= 0) {
+            // keep reading
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("not a roll journal");
+        }
+        return header.getLong();
+    }
+
+    /**
+     * Throw if the journal can't take more records.
+     * @throws IOException
+     */
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("journal failed", failure);
+        } else if (closed) {
+            throw new IOException("journal is closed");
+        }
+    }
+
+    /**
+     * Get the check value of a record. It is never 0, so a record of zeros
+     * left by a crash is never taken for a roll.
+     */
+    static short check(int lane, int game, int sequence, int pins) {
+        int hash = ((lane * 31 + game) * 31 + sequence) * 31 + pins;
+        hash ^= hash >>> 16;
+        return (short) (hash | 1);
+    }
+
+    /**
+     * Write all of a buffer at a file position.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * Copy bytes from one file to the current position of another.
+     * @param source The file to copy from.
+     * @param position Where the bytes start in the source.
+     * @param count Number of bytes to copy.
+     * @param target The file to copy to.
+     * @throws IOException If the source ends before the last byte, such
+     * as after it was cut short on disk.
+     */
+    static void transferFully(FileChannel source, long position, long count, FileChannel target)
+            throws IOException {
+        for (long copied = 0; copied < count;) {
+            long transferred = source.transferTo(position + copied, count - copied, target);
+            if (transferred == 0) {
+                throw new IOException("journal ends before its last record");
+            }
+            copied += transferred;
+        }
+    }
+
+    /**
+     * Write the buffers of a batch of records one after another.
+     * @return The file position after the last record.
+     */
+    private static long writeBatch(FileChannel channel, ByteBuffer[] batch, long position) throws IOException {
+        long end = position;
+        for (ByteBuffer buffer : batch) {
+            // a duplicate, so the batch can be written again if this fails
+            ByteBuffer records = buffer.duplicate();
+            records.flip();
+            int size = records.remaining();
+            writeFully(channel, records, end);
+            end += size;
+        }
+        return end;
+    }
+
+    /**
+     * Fill a buffer from a channel, or as much as the channel has left.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+    }
+
+    /**
+     * The latest game of each lane found in part of a journal.
+     * Rolls are kept by their index in the game, so the parts can be read
+     * in any order and merged.
+     */
+    private static class LaneRecords {
+        /**
+         * Number of lanes.
+         */
+        final int laneCount;
+        /**
+         * The latest game number of each lane.
+         */
+        final int[] games;
+        /**
+         * Whether any record of each lane was found.
+         */
+        final boolean[] found;
+        /**
+         * Bit <i>n</i> is set if roll <i>n</i> of the latest game of a lane
+         * was found.
+         */
+        final int[] present;
+        /**
+         * Pins of the rolls of the latest game of each lane.
+         */
+        final byte[] rolls;
+
+        /**
+         * Constructor.
+         * @param laneCount Number of lanes.
+         */
+        LaneRecords(int laneCount) {
+            this.laneCount = laneCount;
+            games = new int[laneCount];
+            found = new boolean[laneCount];
+            present = new int[laneCount];
+            rolls = new byte[laneCount * BowlingGame.MAX_ROLLS];
+        }
+
+        /**
+         * Take in one record.
+         */
+        void add(int lane, int game, int sequence, int pins) {
+            if (lane >= 0 && lane < laneCount) {
+                if (!found[lane] || game > games[lane]) {
+                    found[lane] = true;
+                    games[lane] = game;
+                    present[lane] = 0;
+                }
+                if (game == games[lane] && pins != NEW_GAME &&
+                        sequence >= 0 && sequence < BowlingGame.MAX_ROLLS) {
+                    rolls[lane * BowlingGame.MAX_ROLLS + sequence] = (byte) pins;
+                    present[lane] |= 1 << sequence;
+                }
+            }
+        }
+
+        /**
+         * Take in the records of a part of a journal.
+         * @param channel Channel of the journal file.
+         * @param start File position of the first record.
+         * @param end File position just past the last record.
+         * @throws IOException
+         */
+        void read(FileChannel channel, long start, long end) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(REPLAY_BUFFER_SIZE);
+            long position = start;
+
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                    // keep reading
+                }
+                buffer.flip();
+                position += buffer.remaining();
+
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    int lane = buffer.getInt();
+                    int game = buffer.getInt();
+                    int sequence = buffer.getInt();
+                    int pins = buffer.getShort();
+                    short check = buffer.getShort();
+                    if (check == check(lane, game, sequence, pins)) {
+                        add(lane, game, sequence, pins);
+                    }
+                }
+
+                if (buffer.hasRemaining()) {
+                    // the file ended early
+                    position = end;
+                }
+            }
+        }
+
+        /**
+         * Take in the records of another part.
+         */
+        void merge(LaneRecords other) {
+            for (int lane = 0; lane < laneCount; ++lane) {
+                if (other.found[lane]) {
+                    add(lane, other.games[lane], 0, NEW_GAME);
+                    if (other.games[lane] == games[lane]) {
+                        for (int sequence = 0; sequence < BowlingGame.MAX_ROLLS; ++sequence) {
+                            if ((other.present[lane] & (1 << sequence)) != 0) {
+                                add(lane, games[lane], sequence,
+                                        other.rolls[lane * BowlingGame.MAX_ROLLS + sequence]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Put the games on the lanes, with the rolls up to the first
+         * missing one.
+         */
+        void restore(LaneManager lanes) {
+            for (int lane = 0; lane < laneCount; ++lane) {
+                if (found[lane]) {
+                    int rollCount = Integer.numberOfTrailingZeros(~present[lane]);
+                    lanes.restoreGame(lane, games[lane], rolls, lane * BowlingGame.MAX_ROLLS, rollCount);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package rossadamson.bowling;
+
+/**
+ * Scores complete games laid out column by column, one game at a time.
+ * This works on every runtime, and is what {@link ColumnarScorer#create()}
+ * falls back to when the Vector API isn't available.
+ * @author Ross Adamson
+ */
+public class ScalarColumnarScorer extends ColumnarScorer {
+
+    @Override
+    public int scoreGames(ColumnarGames games, int[] finalScores) {
+        int validGames = 0;
+
+        for (int game = 0; game < games.gameCount(); ++game) {
+            finalScores[game] = scoreGame(games, game);
+            if (finalScores[game] != BatchScorer.INVALID_GAME) {
+                ++validGames;
+            }
+        }
+
+        return validGames;
+    }
+
+    /**
+     * Score one game.
+     * @param games The games.
+     * @param game Index of the game.
+     * @return The final score, or {@link BatchScorer#INVALID_GAME}.
+     */
+    static int scoreGame(ColumnarGames games, int game) {
+        final int lastFrameIndex = BowlingGame.NUMBER_OF_FRAMES - 1;
+        final int allPins = BowlingGame.ALL_PINS;
+        int rollCount = games.rollCount(game);
+        int score = 0;
+        int frameIndex = 0;
+        int rollInFrame = 0;
+        int pinsUp = allPins;
+        // bonus owed to the next roll, and to the roll after it
+        int nextBonus = 0;
+        int secondBonus = 0;
+        boolean lastFrameStrike = false;
+        boolean done = false;
+        boolean valid = rollCount <= BowlingGame.MAX_ROLLS;
+
+        for (int rollIndex = 0; valid && rollIndex < rollCount; ++rollIndex) {
+            int pins = games.pins(rollIndex, game);
+            valid = !done && pins >= 0 && pins <= pinsUp;
+
+            score += pins * (1 + nextBonus);
+            int pinsLeft = pinsUp - pins;
+
+            if (frameIndex < lastFrameIndex) {
+                boolean strike = (rollInFrame == 0 && pinsLeft == 0);
+                boolean frameEnds = strike || rollInFrame == 1;
+                nextBonus = secondBonus + (pinsLeft == 0 ? 1 : 0);
+                secondBonus = strike ? 1 : 0;
+                if (frameEnds) {
+                    ++frameIndex;
+                    rollInFrame = 0;
+                    pinsUp = allPins;
+                } else {
+                    rollInFrame = 1;
+                    pinsUp = pinsLeft;
+                }
+            } else {
+                // the last frame holds its own bonus rolls
+                nextBonus = secondBonus;
+                secondBonus = 0;
+                if (rollInFrame == 0) {
+                    lastFrameStrike = (pinsLeft == 0);
+                } else if (rollInFrame == 1) {
+                    done = !lastFrameStrike && pinsLeft != 0;
+                } else {
+                    done = true;
+                }
+                pinsUp = (pinsLeft == 0) ? allPins : pinsLeft;
+                ++rollInFrame;
+            }
+        }
+
+        return (valid && done) ? score : BatchScorer.INVALID_GAME;
+    }
+}
@@ -0,0 +1,110 @@
+package rossadamson.bowling;
+
+/**
+ * Counts how many games ended with each final score, from 0 to
+ * {@link BowlingGame#MAX_SCORE}.
+ * @author Ross Adamson
+ */
+public final class ScoreHistogram {
+    /**
+     * The number of games with each score.
+     */
+    private final long[] counts = new long[BowlingGame.MAX_SCORE + 1];
+    /**
+     * The number of games counted.
+     */
+    private long count;
+
+    /**
+     * Count a game.
+     * @param score The final score of the game.
+     */
+    void add(int score) {
+        ++counts[score];
+        ++count;
+    }
+
+    /**
+     * Add the counts of another histogram to this one.
+     * @param other The other histogram.
+     */
+    void merge(ScoreHistogram other) {
+        for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+            counts[score] += other.counts[score];
+        }
+        count += other.count;
+    }
+
+    /**
+     * Get the number of games counted.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Get the number of games with a final score.
+     * @param score The score, from 0 to {@link BowlingGame#MAX_SCORE}.
+     */
+    public long count(int score) {
+        return counts[score];
+    }
+
+    /**
+     * Get the lowest score counted, or -1 if no games are counted.
+     */
+    public int minScore() {
+        int score = 0;
+        while (score <= BowlingGame.MAX_SCORE && counts[score] == 0) {
+            ++score;
+        }
+        return (score <= BowlingGame.MAX_SCORE) ? score : -1;
+    }
+
+    /**
+     * Get the highest score counted, or -1 if no games are counted.
+     */
+    public int maxScore() {
+        int score = BowlingGame.MAX_SCORE;
+        while (score >= 0 && counts[score] == 0) {
+            --score;
+        }
+        return score;
+    }
+
+    /**
+     * Get the mean score, or 0 if no games are counted.
+     */
+    public double mean() {
+        double total = 0.0;
+        for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+            total += (double) score * counts[score];
+        }
+        return (count == 0) ? 0.0 : total / count;
+    }
+
+    /**
+     * Get the lowest score that at least a percentage of the games are
+     * at or below.
+     * @param percent The percentage, from 0 to 100.
+     * @return The score, or -1 if no games are counted.
+     */
+    public int percentile(double percent) {
+        if (!(percent >= 0.0 && percent <= 100.0)) {
+            throw new IllegalArgumentException("percent must be from 0 to 100");
+        }
+
+        int result = -1;
+        if (count > 0) {
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+            long seen = counts[0];
+            result = 0;
+            while (seen < rank) {
+                ++result;
+                seen += counts[result];
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,273 @@
+package rossadamson.bowling;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Projects the final score of a game in progress by finishing it at random
+ * many times. Each roll is picked from a {@link PinFallModel}, and each
+ * simulated game is scored with the {@link TableDrivenScorer} table, so a
+ * simulation creates no objects.
+ * <p>
+ * The simulations are split into tasks on a fork/join pool. Every task has
+ * its own random generator, split from its parent's before the task is
+ * forked, so the tasks never share one, and the same seed always gives the
+ * same histogram however the tasks are scheduled.
+ * @author Ross Adamson
+ */
+public class ScoreProjector {
+    /**
+     * Most simulations a task runs without splitting.
+     */
+    private static final int TASK_SIMULATIONS = 4096;
+    /**
+     * Columns of the chance tables, one for each number of pins.
+     */
+    private static final int PINS_COLUMNS = BowlingGame.ALL_PINS + 1;
+    /**
+     * Row of the alias tables for first balls. Rows 1 to
+     * {@link BowlingGame#ALL_PINS} are for other rolls, by the pins standing.
+     */
+    private static final int FIRST_BALL_ROW = BowlingGame.ALL_PINS + 1;
+    /**
+     * Scale of the chances in {@link #cutoffs}.
+     */
+    private static final double CUTOFF_SCALE = 4294967296.0;
+    /**
+     * Alias tables of the pin fall model, for picking a roll from one random
+     * number with no search. Indexed by row * {@link #PINS_COLUMNS} +
+     * column, from a column picked evenly out of pinsUp + 1: the roll is the
+     * column if the rest of the random number is below the cutoff, and
+     * otherwise the alias of the column. Cutoffs are scaled to 2<sup>32</sup>.
+     */
+    private final long[] cutoffs;
+    /**
+     * The other roll of each column of the alias tables.
+     */
+    private final byte[] aliases;
+    /**
+     * Where the simulations run.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor. Uses {@link PinFallModel#UNIFORM} and the common pool.
+     */
+    public ScoreProjector() {
+        this(PinFallModel.UNIFORM, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param model Picks the pins of each roll.
+     * @param pool Where the simulations run.
+     */
+    public ScoreProjector(PinFallModel model, ForkJoinPool pool) {
+        checkModel(model);
+        this.pool = pool;
+        cutoffs = new long[(FIRST_BALL_ROW + 1) * PINS_COLUMNS];
+        aliases = new byte[(FIRST_BALL_ROW + 1) * PINS_COLUMNS];
+
+        double[] scaled = new double[PINS_COLUMNS];
+        int[] small = new int[PINS_COLUMNS];
+        int[] large = new int[PINS_COLUMNS];
+        for (int row = 1; row <= FIRST_BALL_ROW; ++row) {
+            boolean firstBall = (row == FIRST_BALL_ROW);
+            int pinsUp = firstBall ? BowlingGame.ALL_PINS : row;
+            int columns = pinsUp + 1;
+            int rowStart = row * PINS_COLUMNS;
+            for (int pins = 0; pins < columns; ++pins) {
+                scaled[pins] = model.probability(firstBall, pinsUp, pins) * columns;
+            }
+
+            // pair each column that is under its share with one that is over
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int pins = 0; pins < columns; ++pins) {
+                if (scaled[pins] < 1.0) {
+                    small[smallCount++] = pins;
+                } else {
+                    large[largeCount++] = pins;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int under = small[--smallCount];
+                int over = large[--largeCount];
+                cutoffs[rowStart + under] = (long) (scaled[under] * CUTOFF_SCALE);
+                aliases[rowStart + under] = (byte) over;
+                scaled[over] -= 1.0 - scaled[under];
+                if (scaled[over] < 1.0) {
+                    small[smallCount++] = over;
+                } else {
+                    large[largeCount++] = over;
+                }
+            }
+            // what is left has its whole share, up to rounding
+            while (smallCount > 0) {
+                int pins = small[--smallCount];
+                cutoffs[rowStart + pins] = (long) CUTOFF_SCALE;
+                aliases[rowStart + pins] = (byte) pins;
+            }
+            while (largeCount > 0) {
+                int pins = large[--largeCount];
+                cutoffs[rowStart + pins] = (long) CUTOFF_SCALE;
+                aliases[rowStart + pins] = (byte) pins;
+            }
+        }
+    }
+
+    /**
+     * Check that a pin fall model gives a chance for every roll, and that
+     * the chances of each kind of roll add up to 1.
+     * @param model The model.
+     * @throws IllegalArgumentException If the model is not valid.
+     */
+    static void checkModel(PinFallModel model) {
+        for (int row = 1; row <= FIRST_BALL_ROW; ++row) {
+            boolean firstBall = (row == FIRST_BALL_ROW);
+            int pinsUp = firstBall ? BowlingGame.ALL_PINS : row;
+            double total = 0.0;
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                double probability = model.probability(firstBall, pinsUp, pins);
+                if (!(probability >= 0.0)) {
+                    throw new IllegalArgumentException("bad chance of " + pins + " pins from " + pinsUp);
+                }
+                total += probability;
+            }
+            if (Math.abs(total - 1.0) > 1e-9) {
+                throw new IllegalArgumentException("chances from " + pinsUp + " pins add up to " + total);
+            }
+        }
+    }
+
+    /**
+     * Finish a game at random many times.
+     * @param game The game in progress. It is read through
+     * {@link BowlingGame#snapshot()}, so it may be rolled on at the same
+     * time.
+     * @param simulations Number of times to finish the game.
+     * @param seed Seed of the random rolls.
+     * @return The final scores of the simulated games.
+     */
+    public ScoreHistogram project(BowlingGame game, int simulations, long seed) {
+        GameSnapshot snapshot = game.snapshot();
+        return project(TableDrivenScorer.stateOf(snapshot), snapshot.totalScore(), simulations, seed);
+    }
+
+    /**
+     * Finish a game at random many times.
+     * @param game The game in progress. It must not change during the call.
+     * @param simulations Number of times to finish the game.
+     * @param seed Seed of the random rolls.
+     * @return The final scores of the simulated games.
+     */
+    public ScoreHistogram project(CompactBowlingGame game, int simulations, long seed) {
+        return project(TableDrivenScorer.stateOf(game), game.totalScore(), simulations, seed);
+    }
+
+    /**
+     * Finish a game at random many times.
+     * @param state Table state of the game in progress.
+     * @param score Score of the game so far.
+     * @param simulations Number of times to finish the game.
+     * @param seed Seed of the random rolls.
+     * @return The final scores of the simulated games.
+     */
+    private ScoreHistogram project(int state, int score, int simulations, long seed) {
+        if (simulations < 0) {
+            throw new IllegalArgumentException("negative simulations");
+        }
+
+        return pool.invoke(new ProjectionTask(this, state, score, simulations, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Finish a game at random.
+     * @param state Table state of the game in progress.
+     * @param score Score of the game so far.
+     * @param random Source of the rolls.
+     * @return The final score.
+     */
+    int simulate(int state, int score, SplittableRandom random) {
+        int pinsUp = TableDrivenScorer.pinsUp(state);
+
+        while (pinsUp != 0) {
+            // the high half of the random number picks a column, and the low half the roll in it
+            long bits = random.nextLong();
+            int column = (int) (((bits >>> 32) * (pinsUp + 1)) >>> 32);
+            int index = (TableDrivenScorer.isFirstBall(state) ? FIRST_BALL_ROW : pinsUp) * PINS_COLUMNS + column;
+            int pins = ((bits & 0xffffffffL) < cutoffs[index]) ? column : aliases[index];
+
+            int entry = TableDrivenScorer.transition(state, pins);
+            score += TableDrivenScorer.scoreDelta(entry);
+            state = TableDrivenScorer.nextState(entry);
+            pinsUp = TableDrivenScorer.pinsUp(state);
+        }
+
+        return score;
+    }
+
+    /**
+     * Runs some of the simulations, splitting them into more tasks if there
+     * are many.
+     */
+    private static final class ProjectionTask extends RecursiveTask<ScoreHistogram> {
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The projector with the pin fall model.
+         */
+        private final ScoreProjector projector;
+        /**
+         * Table state of the game in progress.
+         */
+        private final int state;
+        /**
+         * Score of the game so far.
+         */
+        private final int score;
+        /**
+         * Number of simulations to run.
+         */
+        private final int simulations;
+        /**
+         * Source of the rolls, used only by this task.
+         */
+        private final SplittableRandom random;
+
+        /**
+         * Constructor.
+         */
+        ProjectionTask(ScoreProjector projector, int state, int score, int simulations, SplittableRandom random) {
+            this.projector = projector;
+            this.state = state;
+            this.score = score;
+            this.simulations = simulations;
+            this.random = random;
+        }
+
+        @Override
+        protected ScoreHistogram compute() {
+            ScoreHistogram histogram = null;
+
+            if (simulations <= TASK_SIMULATIONS) {
+                histogram = new ScoreHistogram();
+                for (int simulation = 0; simulation < simulations; ++simulation) {
+                    histogram.add(projector.simulate(state, score, random));
+                }
+            } else {
+                int half = simulations / 2;
+                ProjectionTask first = new ProjectionTask(projector, state, score, half, random.split());
+                ProjectionTask second = new ProjectionTask(projector, state, score, simulations - half, random);
+                first.fork();
+                histogram = second.compute();
+                histogram.merge(first.join());
+            }
+
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package rossadamson.bowling;
+
+/**
+ * Receives the games read by a {@link ScoreSheetParser}.
+ * Each game is a call to {@link #startGame(long)}, a call to
+ * {@link #roll(int)} for each roll, and then either {@link #endGame()} or,
+ * if the line had a mistake, {@link #error(long, String)}.
+ * <p>
+ * {@link PackedGames} gathers the games for {@link BatchScorer}, and
+ * {@link CompactGameListener} plays each one into a game.
+ * @author Ross Adamson
+ */
+public interface ScoreSheetListener {
+    /**
+     * A new game starts.
+     * @param offset Byte offset of the start of the game in the input.
+     */
+    void startGame(long offset);
+
+    /**
+     * A valid roll of the current game.
+     * @param pins Number of pins down in the roll.
+     */
+    void roll(int pins);
+
+    /**
+     * The current game ends with the rolls given so far. The game may
+     * not be finished.
+     */
+    void endGame();
+
+    /**
+     * The current game has a mistake, and the rest of its line is skipped.
+     * Any rolls of the game given so far should be thrown away.
+     * @param offset Byte offset of the mistake in the input.
+     * @param message What the mistake is.
+     */
+    void error(long offset, String message);
+}
@@ -0,0 +1,164 @@
+package rossadamson.bowling;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads games written in score sheet notation, one game per line.
+ * Each roll is one character: <code>X</code> for a strike, <code>/</code>
+ * for a spare, <code>-</code> or <code>0</code> for no pins, and a digit for
+ * anything else. Spaces, tabs and <code>|</code> between rolls are ignored,
+ * so <code>X 7/ 9- X X 81 X 9/ 72 XX8</code> is a game. Blank lines are
+ * skipped.
+ * <p>
+ * The input is read as ASCII bytes through one reusable buffer, and the
+ * rolls are checked as they are read with {@link TableDrivenScorer}, so
+ * parsing creates no objects except for error messages. Each roll goes straight to a
+ * {@link ScoreSheetListener}.
+ * @author Ross Adamson
+ */
+public class ScoreSheetParser {
+    /**
+     * Size of the read buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Where the games go.
+     */
+    private final ScoreSheetListener listener;
+    /**
+     * Buffer reused for every read.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Byte offset in the input of the next byte.
+     */
+    private long offset;
+    /**
+     * Whether a game has started on the current line.
+     */
+    private boolean inGame;
+    /**
+     * Whether the rest of the current line is skipped after a mistake.
+     */
+    private boolean skipping;
+    /**
+     * Scoring state of the current game. See {@link TableDrivenScorer}.
+     */
+    private int state;
+
+    /**
+     * Constructor.
+     * @param listener Where the games go.
+     */
+    public ScoreSheetParser(ScoreSheetListener listener) {
+        this.listener = listener;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        reset();
+    }
+
+    /**
+     * Start over with new input at byte offset 0.
+     */
+    public void reset() {
+        offset = 0;
+        inGame = false;
+        skipping = false;
+    }
+
+    /**
+     * Read every game from a channel, up to the end of its input.
+     * @param channel The input.
+     * @throws IOException
+     */
+    public void parse(ReadableByteChannel channel) throws IOException {
+        buffer.clear();
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        end();
+    }
+
+    /**
+     * Read the remaining bytes of a buffer, such as a mapped file.
+     * The last line isn't complete until a newline or {@link #end()}.
+     * @param data The input.
+     */
+    public void feed(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            feed(data.get());
+        }
+    }
+
+    /**
+     * End the input, completing the game on the last line.
+     */
+    public void end() {
+        endLine();
+    }
+
+    /**
+     * Read one byte of the input.
+     */
+    private void feed(byte c) {
+        if (c == '\n') {
+            endLine();
+        } else if (skipping || c == ' ' || c == '\t' || c == '\r' || c == '|') {
+            // nothing to read
+        } else {
+            if (!inGame) {
+                inGame = true;
+                state = TableDrivenScorer.START_STATE;
+                listener.startGame(offset);
+            }
+
+            int pinsUp = TableDrivenScorer.pinsUp(state);
+            int pins = -1;
+            if (c == 'X' || c == 'x') {
+                pins = BowlingGame.ALL_PINS;
+            } else if (c == '/') {
+                pins = (pinsUp < BowlingGame.ALL_PINS) ? pinsUp : -1;
+            } else if (c == '-') {
+                pins = 0;
+            } else if (c >= '0' && c <= '9') {
+                pins = c - '0';
+            }
+
+            if (pins < 0) {
+                error("unexpected '" + (char) c + "'");
+            } else if (pinsUp == 0) {
+                error("roll after the game is finished");
+            } else if (pins > pinsUp) {
+                error("more pins than are standing");
+            } else {
+                state = TableDrivenScorer.nextState(TableDrivenScorer.transition(state, pins));
+                listener.roll(pins);
+            }
+        }
+
+        ++offset;
+    }
+
+    /**
+     * Report a mistake at the current byte and skip the rest of the line.
+     * @param message What the mistake is.
+     */
+    private void error(String message) {
+        listener.error(offset, message);
+        skipping = true;
+    }
+
+    /**
+     * Complete the game on the current line, if there is one.
+     */
+    private void endLine() {
+        if (inGame && !skipping) {
+            listener.endGame();
+        }
+        inGame = false;
+        skipping = false;
+    }
+}
@@ -0,0 +1,197 @@
+package rossadamson.bowling;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes the score board of a bowling game.
+ * The score board is written straight into the caller's buffer, one
+ * character at a time, so rendering a game creates no garbage. A renderer
+ * can be reused for any number of games, but only by one thread at a time.
+ * @author Ross Adamson
+ */
+public class ScoreboardRenderer {
+    /**
+     * Separates the roll boxes of a frame.
+     */
+    private static final String FRAME_DIVIDER = " | ";
+    /**
+     * A roll box that has no roll.
+     */
+    private static final char EMPTY_BOX = ' ';
+    /**
+     * A roll box that is skipped because the frame is complete.
+     */
+    private static final char SKIP_SYMBOL = '.';
+    /**
+     * The roll box where the next roll goes.
+     */
+    private static final char CURRENT_LOCATION_SYMBOL = '@';
+    /**
+     * Adapts a byte buffer to the appendable the score board is written to.
+     */
+    private final AsciiAppendable asciiOut = new AsciiAppendable();
+
+    /**
+     * Write the score board of a game.
+     * @param game The game.
+     * @param out Where to write the score board.
+     * @throws IOException If out throws it.
+     */
+    public void render(BowlingGame game, Appendable out) throws IOException {
+        Frame nextFrame = game.nextRollFrame();
+
+        out.append('|');
+
+        // layout the frames in order
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+            Frame frame = game.frames[frameIndex];
+
+            // put the frame score first
+            int frameScore = frame.getScore();
+            out.append('(');
+            if (frame.scoreIsComplete()) {
+                appendNumber(frameScore, out);
+            } else if (frameScore == 0) {
+                out.append(" ? ");
+            } else {
+                appendNumber(frameScore, out);
+                out.append("+?");
+            }
+            out.append(") ");
+
+            // then a box for each roll the frame can hold
+            int boxCount = frame.isLast ? 3 : 2;
+            int rollCount = frame.rollCount();
+            Roll roll = frame.firstRoll;
+            for (int box = 0; box < boxCount; ++box) {
+                if (box != 0) {
+                    out.append(FRAME_DIVIDER);
+                }
+
+                if (box < rollCount) {
+                    appendRoll(frame, box, roll.pins(), out);
+                    roll = roll.nextRoll;
+                } else if (box == rollCount && frame == nextFrame) {
+                    out.append(CURRENT_LOCATION_SYMBOL);
+                } else if (box == rollCount && rollCount != 0 && frame.hasAllRolls()) {
+                    out.append(SKIP_SYMBOL);
+                } else {
+                    out.append(EMPTY_BOX);
+                }
+            }
+
+            out.append(" |");
+        }
+
+        // add the total score
+        out.append("| Total: ");
+        appendNumber(game.totalScore(), out);
+    }
+
+    /**
+     * Write the score board of a game.
+     * @param game The game.
+     * @param out Where to write the score board.
+     * @throws java.nio.BufferOverflowException If out runs out of room.
+     */
+    public void render(BowlingGame game, CharBuffer out) {
+        try {
+            render(game, (Appendable) out);
+        } catch (IOException e) {
+            // a CharBuffer never throws this
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write the score board of a game as ASCII bytes.
+     * @param game The game.
+     * @param out Where to write the score board.
+     * @throws java.nio.BufferOverflowException If out runs out of room.
+     */
+    public void render(BowlingGame game, ByteBuffer out) {
+        asciiOut.buffer = out;
+        try {
+            render(game, asciiOut);
+        } catch (IOException e) {
+            // a ByteBuffer never throws this
+            throw new IllegalStateException(e);
+        } finally {
+            asciiOut.buffer = null;
+        }
+    }
+
+    /**
+     * Write a roll the way it is marked on a score sheet.
+     * @param frame The frame the roll is in.
+     * @param rollIndex Index of the roll in the frame.
+     * @param pins Pins knocked down by the roll.
+     * @param out Where to write the roll.
+     * @throws IOException If out throws it.
+     */
+    static void appendRoll(Frame frame, int rollIndex, int pins, Appendable out) throws IOException {
+        if (rollIndex == 0 && frame.isStrike()) {
+            out.append('X');
+        } else if (rollIndex == 1 && frame.isSpare()) {
+            out.append('/');
+        } else if (pins == 0) {
+            out.append('-');
+        } else {
+            appendNumber(pins, out);
+        }
+    }
+
+    /**
+     * Write the decimal digits of a number, without making a string.
+     * @param number The number.
+     * @param out Where to write the number.
+     * @throws IOException If out throws it.
+     */
+    static void appendNumber(int number, Appendable out) throws IOException {
+        long value = number;
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= value) {
+            divisor *= 10;
+        }
+
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Writes characters to a byte buffer as ASCII.
+     */
+    private static class AsciiAppendable implements Appendable {
+        /**
+         * The buffer being written to.
+         */
+        ByteBuffer buffer;
+
+        @Override
+        public Appendable append(CharSequence chars) {
+            return append(chars, 0, chars.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence chars, int start, int end) {
+            for (int index = start; index < end; ++index) {
+                append(chars.charAt(index));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            buffer.put((byte) c);
+            return this;
+        }
+    }
+}
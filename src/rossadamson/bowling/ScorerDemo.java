@@ -1,25 +1,79 @@
 package rossadamson.bowling;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
 import java.util.Scanner;
 
 /**
  * A bowling game to be played from the command line.
  * Input are rolls. Output is the score board.
+ * <p>
+ * Started with <code>--server</code> and an optional port, it instead
+ * serves the games of many lane terminals over TCP, with a
+ * {@link ScorerServer}. Started with <code>--http</code> and an optional
+ * port, it serves games as JSON over HTTP, with a
+ * {@link ScoringHttpServer}, with Nagle's algorithm off unless
+ * {@link ScoringHttpServer#NODELAY_PROPERTY} says otherwise.
  * @author Ross Adamson
  */
 public class ScorerDemo {
+    /**
+     * Argument that starts a server instead of a game.
+     */
+    public static final String SERVER_OPTION = "--server";
+    /**
+     * Argument that starts an HTTP server instead of a game.
+     */
+    public static final String HTTP_OPTION = "--http";
+
     public static final boolean defaultShowScore = true;
     public static final boolean defaultShowPossibleRolls = true;
     public static final boolean defaultShowPinsLeft = true;
 
     /**
-     * Let the user put in rolls interactively to a bowling game.
+     * Let the user put in rolls interactively to a bowling game, or serve
+     * games over TCP if the first argument is {@link #SERVER_OPTION}, or
+     * over HTTP if it is {@link #HTTP_OPTION}.
      * @param args
      * @throws InvalidRollException 
      * @throws GameFinishedException 
+     * @throws IOException If the server can't listen on its port.
+     */
+    public static void main(String[] args) throws GameFinishedException, InvalidRollException, IOException {
+        if (args.length > 0 && args[0].equals(SERVER_OPTION)) {
+            int port = (args.length > 1) ? Integer.parseInt(args[1]) : ScorerServer.DEFAULT_PORT;
+            ScorerServer server = new ScorerServer(new InetSocketAddress(port));
+            server.start();
+            System.out.println("Serving lanes on port " + server.port());
+        } else if (args.length > 0 && args[0].equals(HTTP_OPTION)) {
+            int port = (args.length > 1) ? Integer.parseInt(args[1]) : ScoringHttpServer.DEFAULT_PORT;
+            // answer without waiting on delayed ACKs, unless told otherwise
+            if (System.getProperty(ScoringHttpServer.NODELAY_PROPERTY) == null) {
+                System.setProperty(ScoringHttpServer.NODELAY_PROPERTY, "true");
+            }
+            ScoringHttpServer server = new ScoringHttpServer(new InetSocketAddress(port));
+            server.start();
+            System.out.println("Serving games over HTTP on port " + server.port() +
+                    (server.usesVirtualThreads() ? " with virtual threads" : ""));
+        } else {
+            play();
+        }
+    }
+
+    /**
+     * Let the user put in rolls interactively to a bowling game.
+     * Output is buffered, and flushed each time input is needed.
+     * @throws InvalidRollException 
+     * @throws GameFinishedException 
      */
-    public static void main(String[] args) throws GameFinishedException, InvalidRollException {
-        System.out.println("Ready to bowl?! Good luck! Type \"exit\" to quit at any time," +
+    private static void play() throws GameFinishedException, InvalidRollException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)), false);
+        
+        out.println("Ready to bowl?! Good luck! Type \"exit\" to quit at any time," +
                 " \"reset\" to start over.");
         
         BowlingGame game = new BowlingGame();
@@ -34,35 +88,35 @@ public class ScorerDemo {
         while (!done) {
             int pinsLeft = game.nextRollFrame().pinsUp();
                 
-            System.out.println();
+            out.println();
             
             if (showScore) {
                 // show current score
-                System.out.println(game);
+                out.println(game);
             }
             
             if (showPinsLeft) {
                 // show how many pins are left
-                System.out.println("" + pinsLeft + " pins left."); 
+                out.println("" + pinsLeft + " pins left."); 
             }
             
             if (showScore || showPinsLeft) {
-                System.out.println();
+                out.println();
             }
            
             if (showPossibleRolls) {
                 // list the possible rolls
-                Roll[] rolls = game.possibleRolls().toArray(new Roll[0]);
+                int maxRoll = game.maxNextRoll();
                 
-                System.out.print("(Possible rolls: ");
-                for (int i = 0; i < rolls.length; ++i) {
+                out.print("(Possible rolls: ");
+                for (int i = 0; i <= maxRoll; ++i) {
                     if (i != 0) {
-                        System.out.print(", ");
+                        out.print(", ");
                     }
-                    System.out.print(rolls[i].pins());
+                    out.print(i);
                 }
-                System.out.print(")");
-                System.out.println();
+                out.print(")");
+                out.println();
             }
             
             // reset show flags
@@ -70,25 +124,27 @@ public class ScorerDemo {
             showPinsLeft = defaultShowPinsLeft;
             showPossibleRolls = defaultShowPossibleRolls;
                     
-            System.out.print("Roll? ");
+            out.print("Roll? ");
                 
             boolean keepGoing = true;
             int pins = 0;
             try {
                 // get input
+                out.flush();
                 String input = in.nextLine();
                 if (input.toLowerCase().contains("exit") || input.toLowerCase().contains("quit")) {
-                    System.out.println("Quiting game");
-                    return;
+                    out.println("Quiting game");
+                    done = true;
+                    keepGoing = false;
                 } else if (input.toLowerCase().contains("restart") || input.toLowerCase().contains("reset")) {
-                    System.out.println("Restarting game");
+                    out.println("Restarting game");
                     game.init();
                     keepGoing = false;
                 } else {
                     pins = Integer.parseInt(input);
                 }
             } catch (Exception e) {
-                System.out.print("Error reading input. Please try again.");
+                out.print("Error reading input. Please try again.");
                 showScore = false;
                 showPinsLeft = false;
                 showPossibleRolls = false;
@@ -97,53 +153,55 @@ public class ScorerDemo {
             
             if (keepGoing) {
                 // make the roll
-                Roll roll = new Roll(pins);
+                Roll roll = Roll.of(pins);
                 if (game.canRoll(roll)) {
                     
                     game.addRoll(roll);
                     
                     int pinsMissed = pinsLeft - roll.pins();
                     
-                    System.out.print("You knocked down " + roll.pins() + " pins!");
+                    out.print("You knocked down " + roll.pins() + " pins!");
                     if (roll.pins() == BowlingGame.ALL_PINS) {
-                        System.out.print(" Perfect shot!");
+                        out.print(" Perfect shot!");
                     } else if (pinsMissed == 0) {
-                        System.out.print(" You got all of them!");
+                        out.print(" You got all of them!");
                     } else if (pinsMissed == 1) {
-                        System.out.print(" Good job!");
+                        out.print(" Good job!");
                     } else if (pinsMissed == 2) {
-                        System.out.print(" Not bad!");
+                        out.print(" Not bad!");
                     }
-                    System.out.println();
+                    out.println();
                     
                     // check for game over
                     if (game.isFinished()) {
-                        System.out.println();
+                        out.println();
                         
-                        System.out.print("You finished!");
+                        out.print("You finished!");
                         
                         if (game.totalScore() == 300) {
-                            System.out.print(" Wow! A perfect game!");
+                            out.print(" Wow! A perfect game!");
                         } else if (game.totalScore() > 250) {
-                            System.out.print(" Very impressive!");
+                            out.print(" Very impressive!");
                         } else if (game.totalScore() > 200) {
-                            System.out.print(" Way to go!");
+                            out.print(" Way to go!");
                         } else if (game.totalScore() > 150) {
-                            System.out.print(" Not bad!");
+                            out.print(" Not bad!");
                         }
-                        System.out.println();
-                        System.out.println();
-                        System.out.println(game);
+                        out.println();
+                        out.println();
+                        out.println(game);
                         
                         done = true;
                     }
                 } else {
-                    System.out.print("Invalid roll. Please try again.");
+                    out.print("Invalid roll. Please try again.");
                     showScore = false;
                     showPossibleRolls = false;
                     showPinsLeft = false;
                 }
             }
         }
+        
+        out.flush();
     }
 }
@@ -0,0 +1,619 @@
+package rossadamson.bowling;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Scores the games of many lane terminals over TCP, all on one thread.
+ * Each connection is a lane with its own game, and sends one command per
+ * line, in ASCII:
+ * <ul>
+ * <li><code>roll</code> <i>pins</i>, or just <i>pins</i>: add a roll.
+ * Answers <code>ok</code> <i>score</i>, followed by <code>finished</code>
+ * if the roll finished the game, or <code>error</code> and the reason the
+ * roll was rejected.</li>
+ * <li><code>reset</code>: start a new game. Answers <code>ok 0</code>.</li>
+ * <li><code>board</code>: answers the score board of the game.</li>
+ * <li><code>exit</code>: answers <code>bye</code> and closes the
+ * connection.</li>
+ * </ul>
+ * Every answer is one line. Blank lines are ignored.
+ * <p>
+ * One {@link Selector} thread accepts, reads and writes for every
+ * connection. Each connection keeps its read and write buffers for as long
+ * as it is open, and games come from a {@link GamePool}, so serving a
+ * command makes no garbage. Every command that arrives in one read is
+ * answered before anything is written, so pipelined commands get their
+ * answers in one write. A connection that doesn't read its answers is not
+ * read from until it does.
+ * <p>
+ * A failure on one connection only closes that connection. If accepting
+ * fails, for instance because the process has run out of file
+ * descriptors, the server stops accepting for a while and keeps serving
+ * the connections it has.
+ * @author Ross Adamson
+ */
+public class ScorerServer implements Closeable {
+    /**
+     * Port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 9300;
+    /**
+     * Longest command line, in bytes, without the line end.
+     */
+    public static final int MAX_LINE_LENGTH = 64;
+    /**
+     * Size of the read buffer of each connection.
+     */
+    static final int READ_BUFFER_SIZE = 1024;
+    /**
+     * Size of the write buffer of each connection.
+     */
+    static final int WRITE_BUFFER_SIZE = 8192;
+    /**
+     * Room a connection needs in its write buffer to answer a command. The
+     * longest answer is a score board, which is well under this.
+     */
+    private static final int ANSWER_ROOM = 256;
+    /**
+     * Answer to a line longer than {@link #MAX_LINE_LENGTH}.
+     */
+    private static final String LINE_TOO_LONG = "error line too long\n";
+    /**
+     * First pause in accepting after accepting fails, in milliseconds.
+     */
+    static final long MIN_ACCEPT_PAUSE = 10;
+    /**
+     * Longest pause in accepting while accepting keeps failing, in
+     * milliseconds.
+     */
+    static final long MAX_ACCEPT_PAUSE = 1000;
+    /**
+     * Listens for connections.
+     */
+    private final ServerSocketChannel serverChannel;
+    /**
+     * Waits for every channel.
+     */
+    private final Selector selector;
+    /**
+     * The key of the server channel.
+     */
+    private final SelectionKey serverKey;
+    /**
+     * Runs {@link #serve()}.
+     */
+    private final Thread thread;
+    /**
+     * Games of the connections, only used on the selector thread.
+     */
+    private final GamePool games = new GamePool();
+    /**
+     * Writes score boards, only used on the selector thread.
+     */
+    private final ScoreboardRenderer renderer = new ScoreboardRenderer();
+    /**
+     * Pause in accepting after the next failure, in milliseconds. Only used
+     * on the selector thread.
+     */
+    private long acceptPause = MIN_ACCEPT_PAUSE;
+    /**
+     * When accepting starts again, as from {@link System#nanoTime()}, if it
+     * is paused. Only used on the selector thread.
+     */
+    private long acceptResumeTime;
+    /**
+     * Whether accepting is paused. Only used on the selector thread.
+     */
+    private boolean acceptPaused;
+    /**
+     * Number of accepts that have failed.
+     */
+    private volatile long acceptFailureCount;
+    /**
+     * Number of open connections.
+     */
+    private volatile int connectionCount;
+    /**
+     * Whether the server has been asked to close.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor. Listens on an address, but doesn't serve connections
+     * until {@link #start()} is called.
+     * @param address Address to listen on. Port 0 picks a free port.
+     * @throws IOException If the address can't be listened on.
+     */
+    public ScorerServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address, 0);
+            serverChannel.configureBlocking(false);
+            serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "scorer-server-" + port());
+    }
+
+    /**
+     * Start serving connections.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     */
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Get the number of open connections.
+     */
+    public int connectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Get the number of times accepting a connection has failed.
+     */
+    public long acceptFailureCount() {
+        return acceptFailureCount;
+    }
+
+    /**
+     * Stop serving, and close every connection. Returns once the selector
+     * thread has stopped.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        if (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            closeAll();
+        }
+    }
+
+    /**
+     * Serve connections until the server is closed.
+     */
+    private void serve() {
+        try {
+            while (!closed) {
+                if (acceptPaused) {
+                    long wait = (acceptResumeTime - System.nanoTime()) / 1000000;
+                    if (wait <= 0) {
+                        acceptPaused = false;
+                        serverKey.interestOps(SelectionKey.OP_ACCEPT);
+                    } else {
+                        selector.select(wait);
+                    }
+                }
+                if (!acceptPaused) {
+                    selector.select();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid()) {
+                        ((Connection) key.attachment()).ready();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the selector failed, so stop serving
+        } catch (ClosedSelectorException e) {
+            // closed from outside, so stop serving
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Accept every connection that is waiting. If accepting fails, pause
+     * accepting, for twice as long as last time if the last accept failed
+     * too.
+     */
+    private void accept() {
+        boolean more = true;
+        while (more) {
+            SocketChannel channel = null;
+            try {
+                channel = acceptChannel();
+            } catch (IOException e) {
+                acceptFailed();
+            }
+
+            if (channel != null) {
+                acceptPause = MIN_ACCEPT_PAUSE;
+                register(channel);
+            } else {
+                more = false;
+            }
+        }
+    }
+
+    /**
+     * Accept one connection from the server channel.
+     * @return The channel of the connection, or null if none is waiting.
+     * @throws IOException If accepting fails.
+     */
+    SocketChannel acceptChannel() throws IOException {
+        return serverChannel.accept();
+    }
+
+    /**
+     * Pause accepting after a failure.
+     */
+    private void acceptFailed() {
+        ++acceptFailureCount;
+        acceptPaused = true;
+        acceptResumeTime = System.nanoTime() + acceptPause * 1000000;
+        acceptPause = Math.min(MAX_ACCEPT_PAUSE, acceptPause * 2);
+        serverKey.interestOps(0);
+    }
+
+    /**
+     * Start serving a connection that was accepted. If it can't be set up,
+     * for instance because the terminal has already reset it, only it is
+     * closed.
+     * @param channel The channel of the connection.
+     */
+    private void register(SocketChannel channel) {
+        Connection connection = null;
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            connection = new Connection(channel, games.acquire());
+            ++connectionCount;
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            } else {
+                try {
+                    channel.close();
+                } catch (IOException closeError) {
+                    // the connection is gone either way
+                }
+            }
+        }
+    }
+
+    /**
+     * Close every connection, the server channel and the selector.
+     */
+    private void closeAll() {
+        try {
+            if (selector.isOpen()) {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection) {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+            }
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // nothing more can be done for channels that won't close
+        }
+    }
+
+    /**
+     * Write ASCII characters to a buffer.
+     * @param chars The characters.
+     * @param out Where to write them.
+     */
+    private static void putAscii(String chars, ByteBuffer out) {
+        for (int i = 0; i < chars.length(); ++i) {
+            out.put((byte) chars.charAt(i));
+        }
+    }
+
+    /**
+     * Write the decimal digits of a number that isn't negative.
+     * @param number The number.
+     * @param out Where to write it.
+     */
+    private static void putNumber(int number, ByteBuffer out) {
+        int divisor = 1;
+        while (divisor <= number / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + (number / divisor) % 10));
+        }
+    }
+
+    /**
+     * Parse the number of pins of a roll.
+     * @param line Holds the line.
+     * @param start Index of the first character of the number.
+     * @param end Index after the last character of the number.
+     * @return The number, or {@link Integer#MIN_VALUE} if it isn't one.
+     */
+    static int parsePins(ByteBuffer line, int start, int end) {
+        boolean negative = (start < end && line.get(start) == '-');
+        int index = negative ? start + 1 : start;
+        int result = (index < end && end - index <= 9) ? 0 : Integer.MIN_VALUE;
+
+        for (; result != Integer.MIN_VALUE && index < end; ++index) {
+            int digit = line.get(index) - '0';
+            result = (digit >= 0 && digit <= 9) ? result * 10 + digit : Integer.MIN_VALUE;
+        }
+
+        return (negative && result != Integer.MIN_VALUE) ? -result : result;
+    }
+
+    /**
+     * Determine whether a line holds a word, ignoring case.
+     * @param line Holds the line.
+     * @param start Index of the first character of the line.
+     * @param end Index after the last character of the line.
+     * @param word The word, in lower case.
+     */
+    static boolean isWord(ByteBuffer line, int start, int end, String word) {
+        boolean result = (end - start == word.length());
+        for (int i = 0; result && i < word.length(); ++i) {
+            result = (Character.toLowerCase((char) line.get(start + i)) == word.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * A lane terminal connected to the server.
+     */
+    private final class Connection {
+        /**
+         * The channel of the connection.
+         */
+        private final SocketChannel channel;
+        /**
+         * The key of the channel.
+         */
+        private SelectionKey key;
+        /**
+         * The game of the lane.
+         */
+        private BowlingGame game;
+        /**
+         * Bytes read but not yet answered.
+         */
+        private final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        /**
+         * Answers not yet written.
+         */
+        private final ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        /**
+         * Whether the rest of a line that was too long is being skipped.
+         */
+        private boolean skippingLine;
+        /**
+         * Whether to close once every answer is written, without answering
+         * any more lines.
+         */
+        private boolean closing;
+        /**
+         * Whether the terminal has stopped sending. The lines it sent before
+         * are still answered, and then the connection closes.
+         */
+        private boolean inputEnded;
+        /**
+         * Whether lines that have been read are waiting for room to answer
+         * them.
+         */
+        private boolean backlog;
+
+        /**
+         * Constructor.
+         * @param channel The channel of the connection.
+         * @param game The game of the lane.
+         */
+        Connection(SocketChannel channel, BowlingGame game) {
+            this.channel = channel;
+            this.game = game;
+        }
+
+        /**
+         * The channel is ready to be read from or written to.
+         */
+        void ready() {
+            try {
+                if (key.isReadable() && channel.read(in) < 0) {
+                    // the terminal has stopped sending, so answer what it sent and finish up
+                    inputEnded = true;
+                }
+                boolean more = true;
+                while (more) {
+                    answer();
+                    more = flush() && backlog;
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Answer every complete line that has been read, while there is room
+         * for the answers.
+         */
+        private void answer() {
+            in.flip();
+            int lineStart = in.position();
+            int index = lineStart;
+
+            while (!closing && index < in.limit() && out.remaining() >= ANSWER_ROOM) {
+                if (in.get(index) == '\n') {
+                    if (skippingLine) {
+                        skippingLine = false;
+                    } else if (index - lineStart > MAX_LINE_LENGTH) {
+                        putAscii(LINE_TOO_LONG, out);
+                    } else {
+                        command(lineStart, index);
+                    }
+                    lineStart = index + 1;
+                }
+                ++index;
+            }
+
+            backlog = (!closing && index < in.limit());
+            if (!backlog && !skippingLine && index - lineStart > MAX_LINE_LENGTH) {
+                putAscii(LINE_TOO_LONG, out);
+                skippingLine = true;
+            }
+            if (skippingLine) {
+                lineStart = index;
+            }
+
+            in.position(lineStart);
+            in.compact();
+        }
+
+        /**
+         * Answer one command.
+         * @param start Index of the first character of the line.
+         * @param end Index of the line end.
+         */
+        private void command(int start, int end) {
+            while (start < end && in.get(start) == ' ') {
+                ++start;
+            }
+            while (end > start && (in.get(end - 1) == ' ' || in.get(end - 1) == '\r')) {
+                --end;
+            }
+            int space = start;
+            while (space < end && in.get(space) != ' ') {
+                ++space;
+            }
+
+            if (start == end) {
+                // blank lines are ignored
+            } else if (space < end && isWord(in, start, space, "roll")) {
+                int pinsStart = space;
+                while (in.get(pinsStart) == ' ') {
+                    ++pinsStart;
+                }
+                roll(parsePins(in, pinsStart, end));
+            } else if (isWord(in, start, end, "reset")) {
+                game.init();
+                putAscii("ok 0\n", out);
+            } else if (isWord(in, start, end, "board")) {
+                renderer.render(game, out);
+                out.put((byte) '\n');
+            } else if (isWord(in, start, end, "exit")) {
+                putAscii("bye\n", out);
+                closing = true;
+            } else {
+                int pins = parsePins(in, start, end);
+                if (pins == Integer.MIN_VALUE) {
+                    putAscii("error unknown command\n", out);
+                } else {
+                    roll(pins);
+                }
+            }
+        }
+
+        /**
+         * Add a roll and answer with the score or the reason it was rejected.
+         * @param pins Number of pins down, or {@link Integer#MIN_VALUE} if
+         * the pins weren't a number.
+         */
+        private void roll(int pins) {
+            int status = (pins == Integer.MIN_VALUE) ? Integer.MIN_VALUE : game.tryAddRoll(pins);
+
+            if (status == BowlingGame.ROLL_OK) {
+                putAscii("ok ", out);
+                putNumber(game.totalScore(), out);
+                if (game.isFinished()) {
+                    putAscii(" finished", out);
+                }
+                out.put((byte) '\n');
+            } else if (status == BowlingGame.ROLL_GAME_FINISHED) {
+                putAscii("error game finished\n", out);
+            } else if (status == BowlingGame.ROLL_TOO_MANY_PINS) {
+                putAscii("error too many pins\n", out);
+            } else if (status == BowlingGame.ROLL_NEGATIVE) {
+                putAscii("error negative pins\n", out);
+            } else {
+                putAscii("error pins must be a number\n", out);
+            }
+        }
+
+        /**
+         * Write as many answers as the channel takes, and wait for whatever
+         * the connection needs next.
+         * @return Whether every answer was written and the connection is
+         * still open.
+         * @throws IOException If the channel can't be written.
+         */
+        private boolean flush() throws IOException {
+            out.flip();
+            if (out.hasRemaining()) {
+                channel.write(out);
+            }
+            boolean written = !out.hasRemaining();
+            out.compact();
+
+            if (written && (closing || (inputEnded && !backlog))) {
+                close();
+            } else {
+                // only read more once there is room to answer it, and while there is more to read
+                boolean reading = !closing && !inputEnded;
+                int interest = (written ? 0 : SelectionKey.OP_WRITE) |
+                        (out.remaining() >= ANSWER_ROOM && reading ? SelectionKey.OP_READ : 0);
+                key.interestOps(interest);
+            }
+
+            return written && game != null;
+        }
+
+        /**
+         * Close the connection and give its game back.
+         */
+        void close() {
+            if (game != null) {
+                if (key != null) {
+                    key.cancel();
+                }
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // the connection is gone either way
+                }
+                games.release(game);
+                game = null;
+                --connectionCount;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package rossadamson.bowling;
+
+/**
+ * Reports what games do to Java Flight Recorder, so scoring can be lined up
+ * with GC and safepoints in the same recording. The events are only built
+ * and loaded on runtimes that have the jdk.jfr module; elsewhere every
+ * method does nothing.
+ * <p>
+ * The game calls {@link #rollStarted()} before a roll and
+ * {@link #rollEnded(Object, BowlingGame, int, int)} after it, passing back
+ * what the first call returned. A {@link LaneManager} does the same with
+ * {@link #laneRollEnded(Object, int, CompactBowlingGame, int, int)} for
+ * the rolls of its lanes, which are identified by lane number. Events are
+ * only filled in when a recording
+ * wants them, and the JIT inlines the calls, so when nothing is recording
+ * they cost nothing.
+ * @author Ross Adamson
+ */
+abstract class ScoringEvents {
+    /**
+     * The events that use Java Flight Recorder, only built and loaded on
+     * runtimes that have the jdk.jfr module.
+     */
+    private static final String JFR_EVENTS = "rossadamson.bowling.JfrScoringEvents";
+    /**
+     * The events of this runtime.
+     */
+    static final ScoringEvents INSTANCE = create();
+
+    /**
+     * Get the events this runtime supports.
+     */
+    private static ScoringEvents create() {
+        ScoringEvents events = null;
+
+        try {
+            events = (ScoringEvents) Class.forName(JFR_EVENTS).getConstructor().newInstance();
+        } catch (Exception e) {
+            events = new NoEvents();
+        } catch (LinkageError e) {
+            // the class is there, but the module isn't
+            events = new NoEvents();
+        }
+
+        return events;
+    }
+
+    /**
+     * A roll is starting.
+     * @return What to pass to {@link #rollEnded(Object, BowlingGame, int, int)}.
+     */
+    abstract Object rollStarted();
+
+    /**
+     * A roll has been added or rejected.
+     * @param started What {@link #rollStarted()} returned.
+     * @param game The game.
+     * @param pins Number of pins down in the roll.
+     * @param status The status of the roll, as from
+     * {@link BowlingGame#tryAddRoll(int)}.
+     */
+    abstract void rollEnded(Object started, BowlingGame game, int pins, int status);
+
+    /**
+     * A roll on a lane has been added or rejected.
+     * @param started What {@link #rollStarted()} returned.
+     * @param lane Number of the lane.
+     * @param game The game on the lane.
+     * @param pins Number of pins down in the roll.
+     * @param status The status of the roll, as from
+     * {@link CompactBowlingGame#tryAddRoll(int)}.
+     */
+    abstract void laneRollEnded(Object started, int lane, CompactBowlingGame game, int pins, int status);
+
+    /**
+     * A score board is starting to render.
+     * @return What to pass to {@link #renderEnded(Object, BowlingGame, int)}.
+     */
+    abstract Object renderStarted();
+
+    /**
+     * A score board has been rendered.
+     * @param started What {@link #renderStarted()} returned.
+     * @param game The game.
+     * @param length Number of characters in the score board.
+     */
+    abstract void renderEnded(Object started, BowlingGame game, int length);
+
+    /**
+     * Events for runtimes without Java Flight Recorder.
+     */
+    private static final class NoEvents extends ScoringEvents {
+        @Override
+        Object rollStarted() {
+            return null;
+        }
+
+        @Override
+        void rollEnded(Object started, BowlingGame game, int pins, int status) {
+        }
+
+        @Override
+        void laneRollEnded(Object started, int lane, CompactBowlingGame game, int pins, int status) {
+        }
+
+        @Override
+        Object renderStarted() {
+            return null;
+        }
+
+        @Override
+        void renderEnded(Object started, BowlingGame game, int length) {
+        }
+    }
+}
@@ -0,0 +1,718 @@
+package rossadamson.bowling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Scores games over HTTP, with JSON requests and answers, on the JDK's
+ * built-in HTTP server. Any number of kiosks and apps can share one
+ * server, each with its own games:
+ * <ul>
+ * <li><code>POST /games</code>: make a game. Answers 201 with the game.</li>
+ * <li><code>GET /games/</code><i>id</i>: answers the game.</li>
+ * <li><code>DELETE /games/</code><i>id</i>: forget the game. Answers
+ * 204.</li>
+ * <li><code>POST /games/</code><i>id</i><code>/rolls</code>: add one roll,
+ * <code>{"pins":7}</code>, or a batch of rolls in order,
+ * <code>{"rolls":[10,7,3]}</code>. Answers with the game. If any roll of a
+ * batch is rejected, none of the batch is kept, and the answer is 422 with
+ * the index of the roll and the reason.</li>
+ * <li><code>GET /games/</code><i>id</i><code>/board</code>: answers the
+ * score board, as {@link BowlingGame#toString()} makes it, in plain
+ * text.</li>
+ * </ul>
+ * A game is answered as an object with its id, total score, whether it is
+ * finished, the pins standing for the next roll, its frames so far with
+ * their rolls and scores, and its score board. Errors are answered as an
+ * object with an <code>error</code> message.
+ * <p>
+ * The server hosts a limited number of games. When it is full, making a
+ * game first forgets every game that is finished or has been idle for too
+ * long, and if that frees nothing, answers 503.
+ * <p>
+ * The JDK's server writes the headers and the body of an answer
+ * separately, and with Nagle's algorithm on, the body waits for the
+ * client's delayed ACK of the headers: tens of milliseconds a request.
+ * Setting the system property {@link #NODELAY_PROPERTY} to
+ * <code>true</code>, on the command line or before any HTTP server is
+ * made, turns that off for every HTTP server of the JDK in the process.
+ * <code>ScorerDemo --http</code> does so.
+ * <p>
+ * Each request runs on its own virtual thread where the runtime has them
+ * (Java 21 and later), so requests that wait on slow clients don't hold a
+ * platform thread each. Elsewhere requests run on a pool of platform
+ * threads. Requests for the same game are done one at a time.
+ * @author Ross Adamson
+ */
+public class ScoringHttpServer implements Closeable {
+    /**
+     * Port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+    /**
+     * Largest request body, in bytes.
+     */
+    public static final int MAX_BODY_SIZE = 4096;
+    /**
+     * Most games hosted at once when no limit is given.
+     */
+    public static final int DEFAULT_MAX_GAMES = 10000;
+    /**
+     * Time after which an unused game can be forgotten to make room, in
+     * milliseconds, when none is given.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30 * 60 * 1000;
+    /**
+     * System property that turns off Nagle's algorithm in the JDK's HTTP
+     * server.
+     */
+    public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    /**
+     * Connections that can wait to be accepted.
+     */
+    private static final int BACKLOG = 1024;
+    /**
+     * Path of the games.
+     */
+    private static final String GAMES_PATH = "/games";
+    /**
+     * Content type of JSON answers.
+     */
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    /**
+     * Content type of score boards.
+     */
+    private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+    /**
+     * Runs the requests.
+     */
+    private final ExecutorService executor;
+    /**
+     * Whether {@link #executor} gives each request a virtual thread.
+     */
+    private final boolean virtualThreads;
+    /**
+     * The games, by id.
+     */
+    private final ConcurrentHashMap<Long, HostedGame> games = new ConcurrentHashMap<Long, HostedGame>();
+    /**
+     * Most games hosted at once.
+     */
+    private final int maxGames;
+    /**
+     * Time after which an unused game can be forgotten, in nanoseconds.
+     */
+    private final long idleTimeout;
+    /**
+     * Lets one game be made at a time, so there are never more than
+     * {@link #maxGames}.
+     */
+    private final Object createLock = new Object();
+    /**
+     * The id of the next game made.
+     */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Constructor. Listens on an address, but doesn't serve requests until
+     * {@link #start()} is called. Hosts up to {@link #DEFAULT_MAX_GAMES}
+     * games, and forgets games idle for {@link #DEFAULT_IDLE_TIMEOUT} to
+     * make room.
+     * @param address Address to listen on. Port 0 picks a free port.
+     * @throws IOException If the address can't be listened on.
+     */
+    public ScoringHttpServer(InetSocketAddress address) throws IOException {
+        this(address, DEFAULT_MAX_GAMES, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Constructor. Listens on an address, but doesn't serve requests until
+     * {@link #start()} is called.
+     * @param address Address to listen on. Port 0 picks a free port.
+     * @param maxGames Most games hosted at once.
+     * @param idleTimeout Time after which an unused game can be forgotten
+     * to make room, in milliseconds.
+     * @throws IOException If the address can't be listened on.
+     */
+    public ScoringHttpServer(InetSocketAddress address, int maxGames, long idleTimeout) throws IOException {
+        if (maxGames <= 0 || idleTimeout < 0) {
+            throw new IllegalArgumentException("need room for a game and a timeout that isn't negative");
+        }
+        this.maxGames = maxGames;
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        server = HttpServer.create(address, BACKLOG);
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        virtualThreads = (virtualExecutor != null);
+        executor = virtualThreads ? virtualExecutor : Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "scoring-http");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext(GAMES_PATH, new GamesHandler());
+    }
+
+    /**
+     * Make an executor that runs each task on a new virtual thread, if the
+     * runtime has virtual threads. Looked up by reflection, since the
+     * library is built for Java 8.
+     * @return The executor, or null if the runtime has no virtual threads.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        ExecutorService result = null;
+        try {
+            result = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // no virtual threads before Java 21
+        }
+        return result;
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Determine whether each request gets its own virtual thread.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Get the number of games.
+     */
+    public int gameCount() {
+        return games.size();
+    }
+
+    /**
+     * Stop serving, waiting up to a second for requests under way.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write a game as JSON.
+     * @param game The game.
+     * @param json Where to write it.
+     * @throws IOException If the output throws it.
+     */
+    public static void writeGame(BowlingGame game, JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("id").value(game.id())
+                .name("totalScore").value(game.totalScore())
+                .name("finished").value(game.isFinished())
+                .name("pinsUp").value(game.isFinished() ? 0 : game.maxNextRoll());
+
+        json.name("frames").beginArray();
+        for (int frameIndex = 0; frameIndex <= game.currentFrameIndex; ++frameIndex) {
+            Frame frame = game.frames[frameIndex];
+            if (frame.rollCount() > 0) {
+                json.beginObject().name("rolls").beginArray();
+                Roll roll = frame.firstRoll;
+                for (int rollIndex = 0; rollIndex < frame.rollCount(); ++rollIndex) {
+                    json.value(roll.pins());
+                    roll = roll.nextRoll;
+                }
+                json.endArray()
+                        .name("score").value(frame.getScore())
+                        .name("scoreComplete").value(frame.scoreIsComplete())
+                        .endObject();
+            }
+        }
+        json.endArray();
+
+        json.name("board").value(game.toString()).endObject();
+    }
+
+    /**
+     * Parse the rolls of a request body: <code>{"pins":7}</code> for one
+     * roll or <code>{"rolls":[10,7,3]}</code> for a batch.
+     * @param body The body.
+     * @return The pins of each roll.
+     * @throws IllegalArgumentException If the body isn't one of those.
+     */
+    static int[] parseRolls(String body) {
+        RollsParser parser = new RollsParser(body);
+        return parser.parse();
+    }
+
+    /**
+     * Answers every request under {@link #GAMES_PATH}.
+     */
+    private final class GamesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                route(exchange);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * Answer a request by its method and path.
+         * @param exchange The request.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void route(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String[] parts = path.substring(GAMES_PATH.length()).split("/");
+            // a path of /games/12/rolls splits to "", "12", "rolls"
+            int partCount = parts.length;
+            HostedGame hosted = (partCount >= 2) ? findGame(parts[1]) : null;
+            BowlingGame game = (hosted != null) ? hosted.game : null;
+
+            if (path.equals(GAMES_PATH) || path.equals(GAMES_PATH + "/")) {
+                if (method.equals("POST")) {
+                    createGame(exchange);
+                } else {
+                    sendMethodNotAllowed(exchange, "POST");
+                }
+            } else if (partCount < 2 || partCount > 3 || !parts[0].isEmpty()) {
+                sendError(exchange, 404, "no such path");
+            } else if (game == null) {
+                sendError(exchange, 404, "no such game");
+            } else if (partCount == 2) {
+                if (method.equals("GET")) {
+                    sendGame(exchange, 200, game);
+                } else if (method.equals("DELETE")) {
+                    games.remove(game.id(), hosted);
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    sendMethodNotAllowed(exchange, "GET, DELETE");
+                }
+            } else if (parts[2].equals("rolls")) {
+                if (method.equals("POST")) {
+                    addRolls(exchange, game);
+                } else {
+                    sendMethodNotAllowed(exchange, "POST");
+                }
+            } else if (parts[2].equals("board")) {
+                if (method.equals("GET")) {
+                    sendBoard(exchange, game);
+                } else {
+                    sendMethodNotAllowed(exchange, "GET");
+                }
+            } else {
+                sendError(exchange, 404, "no such path");
+            }
+        }
+
+        /**
+         * Find a game by its id, and mark it used.
+         * @param id The id, as in the path.
+         * @return The game, or null if there is none with that id.
+         */
+        private HostedGame findGame(String id) {
+            HostedGame hosted = null;
+            try {
+                hosted = games.get(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                // no game has an id that isn't a number
+            }
+            if (hosted != null) {
+                hosted.lastUsed = System.nanoTime();
+            }
+            return hosted;
+        }
+
+        /**
+         * Make a game, if there is room for it.
+         * @param exchange The request.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void createGame(HttpExchange exchange) throws IOException {
+            HostedGame hosted = null;
+            synchronized (createLock) {
+                if (games.size() >= maxGames) {
+                    forgetUnusedGames();
+                }
+                if (games.size() < maxGames) {
+                    hosted = new HostedGame(nextId.getAndIncrement());
+                    games.put(hosted.game.id(), hosted);
+                }
+            }
+
+            if (hosted != null) {
+                exchange.getResponseHeaders().set("Location", GAMES_PATH + "/" + hosted.game.id());
+                sendGame(exchange, 201, hosted.game);
+            } else {
+                sendError(exchange, 503, "too many games");
+            }
+        }
+
+        /**
+         * Forget every game that is finished or has been idle too long.
+         */
+        private void forgetUnusedGames() {
+            long now = System.nanoTime();
+            Iterator<HostedGame> hosted = games.values().iterator();
+            while (hosted.hasNext()) {
+                HostedGame next = hosted.next();
+                boolean finished;
+                synchronized (next.game) {
+                    finished = next.game.isFinished();
+                }
+                if (finished || now - next.lastUsed >= idleTimeout) {
+                    hosted.remove();
+                }
+            }
+        }
+
+        /**
+         * Add the rolls of a request to a game, all or none of them.
+         * @param exchange The request.
+         * @param game The game.
+         * @throws IOException If the request can't be read or the answer
+         * can't be sent.
+         */
+        private void addRolls(HttpExchange exchange, BowlingGame game) throws IOException {
+            int[] rolls = parseRolls(readBody(exchange));
+            CompactBowlingGame check = new CompactBowlingGame();
+            int rejectedIndex = 0;
+            int status = BowlingGame.ROLL_OK;
+
+            synchronized (game) {
+                // check the batch on a copy, so the game only sees rolls that stick
+                Iterator<Roll> gameRolls = game.rollIterator();
+                while (gameRolls.hasNext()) {
+                    check.tryAddRoll(gameRolls.next().pins());
+                }
+                while (status == BowlingGame.ROLL_OK && rejectedIndex < rolls.length) {
+                    status = check.tryAddRoll(rolls[rejectedIndex]);
+                    if (status == BowlingGame.ROLL_OK) {
+                        ++rejectedIndex;
+                    }
+                }
+                if (status == BowlingGame.ROLL_OK) {
+                    for (int pins : rolls) {
+                        game.tryAddRoll(pins);
+                    }
+                }
+            }
+
+            if (status == BowlingGame.ROLL_OK) {
+                sendGame(exchange, 200, game);
+            } else {
+                sendRejection(exchange, rejectedIndex, status);
+            }
+        }
+
+        /**
+         * Read the body of a request as UTF-8.
+         * @param exchange The request.
+         * @return The body.
+         * @throws IOException If the body can't be read.
+         * @throws IllegalArgumentException If the body is too big.
+         */
+        private String readBody(HttpExchange exchange) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+            byte[] buffer = new byte[512];
+            InputStream in = exchange.getRequestBody();
+            int count = in.read(buffer);
+            while (count >= 0) {
+                body.write(buffer, 0, count);
+                if (body.size() > MAX_BODY_SIZE) {
+                    throw new IllegalArgumentException("body is larger than " + MAX_BODY_SIZE + " bytes");
+                }
+                count = in.read(buffer);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Answer with a game.
+         * @param exchange The request.
+         * @param code The status code.
+         * @param game The game.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void sendGame(HttpExchange exchange, int code, BowlingGame game) throws IOException {
+            StringBuilder body = new StringBuilder(1024);
+            synchronized (game) {
+                writeGame(game, new JsonWriter(body));
+            }
+            send(exchange, code, JSON_TYPE, body);
+        }
+
+        /**
+         * Answer with the score board of a game.
+         * @param exchange The request.
+         * @param game The game.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void sendBoard(HttpExchange exchange, BowlingGame game) throws IOException {
+            String board;
+            synchronized (game) {
+                board = game.toString();
+            }
+            send(exchange, 200, TEXT_TYPE, board + "\n");
+        }
+
+        /**
+         * Answer that a roll was rejected.
+         * @param exchange The request.
+         * @param rollIndex Index of the rejected roll in the request.
+         * @param status Why the roll was rejected.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void sendRejection(HttpExchange exchange, int rollIndex, int status) throws IOException {
+            String reason;
+            if (status == BowlingGame.ROLL_GAME_FINISHED) {
+                reason = "game finished";
+            } else if (status == BowlingGame.ROLL_TOO_MANY_PINS) {
+                reason = "too many pins";
+            } else {
+                reason = "negative pins";
+            }
+
+            StringBuilder body = new StringBuilder(96);
+            new JsonWriter(body).beginObject()
+                    .name("error").value(reason)
+                    .name("status").value(status)
+                    .name("rollIndex").value(rollIndex)
+                    .endObject();
+            send(exchange, 422, JSON_TYPE, body);
+        }
+
+        /**
+         * Answer that the method isn't allowed.
+         * @param exchange The request.
+         * @param allowed The methods that are allowed.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+            exchange.getResponseHeaders().set("Allow", allowed);
+            sendError(exchange, 405, "method not allowed");
+        }
+
+        /**
+         * Answer with an error.
+         * @param exchange The request.
+         * @param code The status code.
+         * @param message What went wrong.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void sendError(HttpExchange exchange, int code, String message) throws IOException {
+            StringBuilder body = new StringBuilder(64);
+            new JsonWriter(body).beginObject().name("error").value(message).endObject();
+            send(exchange, code, JSON_TYPE, body);
+        }
+
+        /**
+         * Send an answer.
+         * @param exchange The request.
+         * @param code The status code.
+         * @param type The content type.
+         * @param body The body.
+         * @throws IOException If the answer can't be sent.
+         */
+        private void send(HttpExchange exchange, int code, String type, CharSequence body) throws IOException {
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", type);
+            exchange.sendResponseHeaders(code, bytes.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(bytes);
+            out.close();
+        }
+    }
+
+    /**
+     * A game on the server, and when it was last used.
+     */
+    private static final class HostedGame {
+        /**
+         * The game.
+         */
+        final BowlingGame game = new BowlingGame();
+        /**
+         * When the game was last used, as from {@link System#nanoTime()}.
+         */
+        volatile long lastUsed = System.nanoTime();
+
+        /**
+         * Constructor.
+         * @param id The id of the game.
+         */
+        HostedGame(long id) {
+            game.setId(id);
+        }
+    }
+
+    /**
+     * Parses the rolls of a request body, which is small, so by hand.
+     */
+    private static final class RollsParser {
+        /**
+         * The body.
+         */
+        private final String body;
+        /**
+         * Index of the next character.
+         */
+        private int index;
+
+        /**
+         * Constructor.
+         * @param body The body.
+         */
+        RollsParser(String body) {
+            this.body = body;
+        }
+
+        /**
+         * Parse the body.
+         * @return The pins of each roll.
+         */
+        int[] parse() {
+            expect('{');
+            String name = parseName();
+            expect(':');
+            int[] rolls;
+            if (name.equals("pins")) {
+                rolls = new int[] { parseInt() };
+            } else if (name.equals("rolls")) {
+                rolls = parseArray();
+            } else {
+                throw new IllegalArgumentException("expected \"pins\" or \"rolls\"");
+            }
+            expect('}');
+            skipSpace();
+            if (index != body.length()) {
+                throw new IllegalArgumentException("unexpected text after the object");
+            }
+            return rolls;
+        }
+
+        /**
+         * Parse an array of numbers.
+         */
+        private int[] parseArray() {
+            expect('[');
+            int[] values = new int[BowlingGame.MAX_ROLLS];
+            int count = 0;
+            skipSpace();
+            if (index < body.length() && body.charAt(index) == ']') {
+                ++index;
+            } else {
+                boolean more = true;
+                while (more) {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    values[count++] = parseInt();
+                    skipSpace();
+                    more = (index < body.length() && body.charAt(index) == ',');
+                    if (more) {
+                        ++index;
+                    }
+                }
+                expect(']');
+            }
+            return Arrays.copyOf(values, count);
+        }
+
+        /**
+         * Parse a name in quotes, with no escapes.
+         */
+        private String parseName() {
+            expect('"');
+            int end = body.indexOf('"', index);
+            if (end < 0) {
+                throw new IllegalArgumentException("unterminated name");
+            }
+            String name = body.substring(index, end);
+            index = end + 1;
+            return name;
+        }
+
+        /**
+         * Parse a whole number that fits in an int.
+         */
+        private int parseInt() {
+            skipSpace();
+            int start = index;
+            if (index < body.length() && body.charAt(index) == '-') {
+                ++index;
+            }
+            while (index < body.length() && Character.isDigit(body.charAt(index))) {
+                ++index;
+            }
+            int value;
+            try {
+                value = Integer.parseInt(body.substring(start, index));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("expected a whole number at " + start);
+            }
+            return value;
+        }
+
+        /**
+         * Skip white space, then expect a character.
+         * @param c The character.
+         */
+        private void expect(char c) {
+            skipSpace();
+            if (index >= body.length() || body.charAt(index) != c) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + index);
+            }
+            ++index;
+        }
+
+        /**
+         * Skip white space.
+         */
+        private void skipSpace() {
+            while (index < body.length() && Character.isWhitespace(body.charAt(index))) {
+                ++index;
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package rossadamson.bowling;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what the scoring library does, for operations to watch through
+ * JMX: rolls added and rejected, exceptions thrown, and how long rolls and
+ * score boards take.
+ * <p>
+ * Metrics are off unless the JVM is started with
+ * <code>-Drossadamson.bowling.metrics=true</code>. Whether they are on is
+ * a constant, so when they are off the JIT drops every check of it and the
+ * scoring code runs as if the metrics weren't there. When they are on, the
+ * metrics are registered with the platform MBean server as
+ * {@link #OBJECT_NAME}.
+ * @author Ross Adamson
+ */
+public final class ScoringMetrics implements ScoringMetricsMXBean {
+    /**
+     * System property that turns the metrics on.
+     */
+    public static final String ENABLED_PROPERTY = "rossadamson.bowling.metrics";
+    /**
+     * Whether the metrics are on.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    /**
+     * Name of the MBean.
+     */
+    public static final String OBJECT_NAME = "rossadamson.bowling:type=ScoringMetrics";
+    /**
+     * The metrics.
+     */
+    public static final ScoringMetrics INSTANCE = new ScoringMetrics();
+    /**
+     * Rolls added to games.
+     */
+    private final LongAdder rollsAdded = new LongAdder();
+    /**
+     * Rolls rejected because the game was finished.
+     */
+    private final LongAdder gameFinishedRejections = new LongAdder();
+    /**
+     * Rolls rejected for more pins than were standing.
+     */
+    private final LongAdder tooManyPinsRejections = new LongAdder();
+    /**
+     * Rolls rejected for a negative number of pins.
+     */
+    private final LongAdder negativePinsRejections = new LongAdder();
+    /**
+     * Game finished exceptions thrown.
+     */
+    private final LongAdder gameFinishedExceptions = new LongAdder();
+    /**
+     * Invalid roll exceptions thrown.
+     */
+    private final LongAdder invalidRollExceptions = new LongAdder();
+    /**
+     * Times to try a roll.
+     */
+    private final LatencyHistogram addRollTimes = new LatencyHistogram();
+    /**
+     * Times to render a score board.
+     */
+    private final LatencyHistogram renderTimes = new LatencyHistogram();
+    /**
+     * When the metrics started or were last reset, from
+     * {@link System#nanoTime()}.
+     */
+    private volatile long startNanos = System.nanoTime();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                // the metrics are still counted, only not shown through JMX
+            }
+        }
+    }
+
+    /**
+     * Not instantiable outside of this class.
+     */
+    private ScoringMetrics() {
+    }
+
+    /**
+     * Count a roll that was tried.
+     * @param status The status of the roll, as from
+     * {@link BowlingGame#tryAddRoll(int)}.
+     * @param startNanos When the roll was started, from
+     * {@link System#nanoTime()}.
+     */
+    void rollTried(int status, long startNanos) {
+        addRollTimes.record(System.nanoTime() - startNanos);
+        if (status == BowlingGame.ROLL_OK) {
+            rollsAdded.increment();
+        } else if (status == BowlingGame.ROLL_GAME_FINISHED) {
+            gameFinishedRejections.increment();
+        } else if (status == BowlingGame.ROLL_TOO_MANY_PINS) {
+            tooManyPinsRejections.increment();
+        } else {
+            negativePinsRejections.increment();
+        }
+    }
+
+    /**
+     * Count an exception thrown for a rejected roll.
+     * @param status The status the roll was rejected with.
+     */
+    void exceptionThrown(int status) {
+        if (status == BowlingGame.ROLL_GAME_FINISHED) {
+            gameFinishedExceptions.increment();
+        } else {
+            invalidRollExceptions.increment();
+        }
+    }
+
+    /**
+     * Count a score board that was rendered.
+     * @param startNanos When rendering started, from {@link System#nanoTime()}.
+     */
+    void rendered(long startNanos) {
+        renderTimes.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Get the times to try a roll.
+     */
+    public LatencyHistogram addRollTimes() {
+        return addRollTimes;
+    }
+
+    /**
+     * Get the times to render a score board.
+     */
+    public LatencyHistogram renderTimes() {
+        return renderTimes;
+    }
+
+    @Override
+    public long getRollsAdded() {
+        return rollsAdded.sum();
+    }
+
+    @Override
+    public double getRollsAddedPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return (seconds <= 0.0) ? 0.0 : rollsAdded.sum() / seconds;
+    }
+
+    @Override
+    public long getGameFinishedRejections() {
+        return gameFinishedRejections.sum();
+    }
+
+    @Override
+    public long getTooManyPinsRejections() {
+        return tooManyPinsRejections.sum();
+    }
+
+    @Override
+    public long getNegativePinsRejections() {
+        return negativePinsRejections.sum();
+    }
+
+    @Override
+    public long getGameFinishedExceptions() {
+        return gameFinishedExceptions.sum();
+    }
+
+    @Override
+    public long getInvalidRollExceptions() {
+        return invalidRollExceptions.sum();
+    }
+
+    @Override
+    public long getAddRollCount() {
+        return addRollTimes.count();
+    }
+
+    @Override
+    public double getAddRollMeanNanos() {
+        return addRollTimes.mean();
+    }
+
+    @Override
+    public long getAddRollP50Nanos() {
+        return addRollTimes.percentile(50);
+    }
+
+    @Override
+    public long getAddRollP99Nanos() {
+        return addRollTimes.percentile(99);
+    }
+
+    @Override
+    public long getAddRollP999Nanos() {
+        return addRollTimes.percentile(99.9);
+    }
+
+    @Override
+    public long getAddRollMaxNanos() {
+        return addRollTimes.max();
+    }
+
+    @Override
+    public long getRenderCount() {
+        return renderTimes.count();
+    }
+
+    @Override
+    public double getRenderMeanNanos() {
+        return renderTimes.mean();
+    }
+
+    @Override
+    public long getRenderP50Nanos() {
+        return renderTimes.percentile(50);
+    }
+
+    @Override
+    public long getRenderP99Nanos() {
+        return renderTimes.percentile(99);
+    }
+
+    @Override
+    public long getRenderMaxNanos() {
+        return renderTimes.max();
+    }
+
+    @Override
+    public void reset() {
+        rollsAdded.reset();
+        gameFinishedRejections.reset();
+        tooManyPinsRejections.reset();
+        negativePinsRejections.reset();
+        gameFinishedExceptions.reset();
+        invalidRollExceptions.reset();
+        addRollTimes.reset();
+        renderTimes.reset();
+        startNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,103 @@
+package rossadamson.bowling;
+
+/**
+ * What {@link ScoringMetrics} shows through JMX. Counts are since the
+ * metrics started or were last reset, and times are in nanoseconds.
+ * @author Ross Adamson
+ */
+public interface ScoringMetricsMXBean {
+    /**
+     * Get the number of rolls added to games.
+     */
+    long getRollsAdded();
+
+    /**
+     * Get the number of rolls added per second.
+     */
+    double getRollsAddedPerSecond();
+
+    /**
+     * Get the number of rolls rejected because the game was finished.
+     */
+    long getGameFinishedRejections();
+
+    /**
+     * Get the number of rolls rejected for more pins than were standing.
+     */
+    long getTooManyPinsRejections();
+
+    /**
+     * Get the number of rolls rejected for a negative number of pins.
+     */
+    long getNegativePinsRejections();
+
+    /**
+     * Get the number of {@link GameFinishedException}s thrown.
+     */
+    long getGameFinishedExceptions();
+
+    /**
+     * Get the number of {@link InvalidRollException}s thrown.
+     */
+    long getInvalidRollExceptions();
+
+    /**
+     * Get the number of rolls tried, added or not.
+     */
+    long getAddRollCount();
+
+    /**
+     * Get the mean time to try a roll.
+     */
+    double getAddRollMeanNanos();
+
+    /**
+     * Get the median time to try a roll.
+     */
+    long getAddRollP50Nanos();
+
+    /**
+     * Get the 99th percentile time to try a roll.
+     */
+    long getAddRollP99Nanos();
+
+    /**
+     * Get the 99.9th percentile time to try a roll.
+     */
+    long getAddRollP999Nanos();
+
+    /**
+     * Get the longest time to try a roll.
+     */
+    long getAddRollMaxNanos();
+
+    /**
+     * Get the number of games rendered by {@link BowlingGame#toString()}.
+     */
+    long getRenderCount();
+
+    /**
+     * Get the mean time to render a game.
+     */
+    double getRenderMeanNanos();
+
+    /**
+     * Get the median time to render a game.
+     */
+    long getRenderP50Nanos();
+
+    /**
+     * Get the 99th percentile time to render a game.
+     */
+    long getRenderP99Nanos();
+
+    /**
+     * Get the longest time to render a game.
+     */
+    long getRenderMaxNanos();
+
+    /**
+     * Start every count and time over.
+     */
+    void reset();
+}
@@ -0,0 +1,394 @@
+package rossadamson.bowling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores games by looking up each roll in a precomputed transition table.
+ * Everything a game needs to remember to score its next roll fits in a
+ * small state: the frame, the roll in the frame, the pins standing, and
+ * the bonus owed to the next two rolls by earlier strikes and spares. Every
+ * state a game can reach is numbered, and the table holds the result of
+ * every roll from every state: the next state, the score the roll adds,
+ * and whether it finishes the game. Applying a roll is one array lookup
+ * with no branches on strikes or spares. States also tell whether the next
+ * roll is at a full rack, for pin fall models that treat first and second
+ * balls differently.
+ * <p>
+ * A table entry is {@link #INVALID_ROLL} if the roll isn't allowed;
+ * otherwise use {@link #nextState(int)}, {@link #scoreDelta(int)} and
+ * {@link #isFinished(int)} to unpack it.
+ * @author Ross Adamson
+ */
+public final class TableDrivenScorer {
+    /**
+     * The state of a game with no rolls.
+     */
+    public static final int START_STATE = 0;
+    /**
+     * Table entry for a roll that isn't allowed.
+     */
+    public static final int INVALID_ROLL = -1;
+    /**
+     * Number of table columns for each state. Only the first
+     * {@link BowlingGame#ALL_PINS} + 1 can hold valid rolls.
+     */
+    private static final int PINS_COLUMNS = 16;
+    /**
+     * Bits of a table entry that hold the score added by the roll.
+     */
+    private static final int DELTA_MASK = 0x1f;
+    /**
+     * Bit of a table entry that is set if the roll finishes the game.
+     */
+    private static final int FINISHED_BIT = 0x20;
+    /**
+     * Shift of the next state in a table entry.
+     */
+    private static final int STATE_SHIFT = 6;
+    /**
+     * The transition table, indexed by state * {@link #PINS_COLUMNS} + pins.
+     */
+    private static final int[] TRANSITIONS;
+    /**
+     * Pins standing for the next roll in each state, or 0 if the game is
+     * finished.
+     */
+    private static final byte[] PINS_UP;
+    /**
+     * Whether the next roll in each state is the first at a full rack.
+     */
+    private static final boolean[] FIRST_BALL;
+
+    static {
+        // number every state that can be reached from the start
+        Map<Integer, Integer> stateNumbers = new HashMap<Integer, Integer>();
+        List<Integer> states = new ArrayList<Integer>();
+        int startKey = State.key(0, 0, BowlingGame.ALL_PINS, 0, 0, false, true, false);
+        stateNumbers.put(startKey, states.size());
+        states.add(startKey);
+
+        for (int state = 0; state < states.size(); ++state) {
+            for (int pins = 0; pins <= BowlingGame.ALL_PINS; ++pins) {
+                State next = new State(states.get(state));
+                if (next.roll(pins) >= 0 && !stateNumbers.containsKey(next.key())) {
+                    stateNumbers.put(next.key(), states.size());
+                    states.add(next.key());
+                }
+            }
+        }
+
+        // fill in the table
+        TRANSITIONS = new int[states.size() * PINS_COLUMNS];
+        PINS_UP = new byte[states.size()];
+        FIRST_BALL = new boolean[states.size()];
+        for (int state = 0; state < states.size(); ++state) {
+            PINS_UP[state] = (byte) new State(states.get(state)).pinsUpOrZero();
+            FIRST_BALL[state] = new State(states.get(state)).firstBall;
+
+            for (int pins = 0; pins < PINS_COLUMNS; ++pins) {
+                int entry = INVALID_ROLL;
+                State next = new State(states.get(state));
+                int delta = (pins <= BowlingGame.ALL_PINS) ? next.roll(pins) : -1;
+                if (delta >= 0) {
+                    entry = (stateNumbers.get(next.key()) << STATE_SHIFT) |
+                            (next.done ? FINISHED_BIT : 0) | delta;
+                }
+                TRANSITIONS[state * PINS_COLUMNS + pins] = entry;
+            }
+        }
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private TableDrivenScorer() {
+    }
+
+    /**
+     * Get the number of states a game can reach.
+     */
+    public static int stateCount() {
+        return PINS_UP.length;
+    }
+
+    /**
+     * Look up a roll.
+     * @param state The state of the game before the roll.
+     * @param pins Number of pins down in the roll.
+     * @return The table entry, or {@link #INVALID_ROLL}.
+     */
+    public static int transition(int state, int pins) {
+        return ((pins & ~(PINS_COLUMNS - 1)) == 0) ? TRANSITIONS[state * PINS_COLUMNS + pins] : INVALID_ROLL;
+    }
+
+    /**
+     * Get the state of the game after the roll of a table entry.
+     * @param entry A valid table entry.
+     */
+    public static int nextState(int entry) {
+        return entry >>> STATE_SHIFT;
+    }
+
+    /**
+     * Get the score the roll of a table entry adds to the game,
+     * counting it as a bonus for earlier frames.
+     * @param entry A valid table entry.
+     */
+    public static int scoreDelta(int entry) {
+        return entry & DELTA_MASK;
+    }
+
+    /**
+     * Determine whether the roll of a table entry finishes the game.
+     * @param entry A valid table entry.
+     */
+    public static boolean isFinished(int entry) {
+        return (entry & FINISHED_BIT) != 0;
+    }
+
+    /**
+     * Get the number of pins standing for the next roll.
+     * @param state The state of the game.
+     * @return 0 if the game is finished.
+     */
+    public static int pinsUp(int state) {
+        return PINS_UP[state];
+    }
+
+    /**
+     * Determine whether the next roll is the first at a full rack: the
+     * first roll of a frame, or a roll in the last frame after a strike or
+     * spare.
+     * @param state The state of the game.
+     * @return false if the game is finished.
+     */
+    public static boolean isFirstBall(int state) {
+        return FIRST_BALL[state];
+    }
+
+    /**
+     * Get the state of a game from its rolls so far.
+     * @param game The game.
+     */
+    public static int stateOf(CompactBowlingGame game) {
+        int state = START_STATE;
+        for (int rollIndex = 0; rollIndex < game.rollCount(); ++rollIndex) {
+            state = nextState(transition(state, game.rollPins(rollIndex)));
+        }
+        return state;
+    }
+
+    /**
+     * Get the state of a game from its rolls so far.
+     * @param snapshot A snapshot of the game.
+     */
+    public static int stateOf(GameSnapshot snapshot) {
+        int state = START_STATE;
+        for (int rollIndex = 0; rollIndex < snapshot.rollCount(); ++rollIndex) {
+            state = nextState(transition(state, snapshot.rollPins(rollIndex)));
+        }
+        return state;
+    }
+
+    /**
+     * Score one complete game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @return The final score, or {@link BatchScorer#INVALID_GAME} if the
+     * rolls aren't exactly a finished game.
+     */
+    public static int scoreGame(byte[] rolls, int start, int end) {
+        int score = 0;
+        int entry = INVALID_ROLL;
+        int state = START_STATE;
+        boolean valid = start < end;
+
+        for (int rollIndex = start; valid && rollIndex < end; ++rollIndex) {
+            entry = transition(state, rolls[rollIndex]);
+            valid = (entry != INVALID_ROLL);
+            score += entry & DELTA_MASK;
+            state = entry >>> STATE_SHIFT;
+        }
+
+        return (valid && isFinished(entry)) ? score : BatchScorer.INVALID_GAME;
+    }
+
+    /**
+     * Score one complete game.
+     * @param rolls Pins of the rolls.
+     * @param start Index of the first roll of the game.
+     * @param end Index just past the last roll of the game.
+     * @return The final score, or {@link BatchScorer#INVALID_GAME} if the
+     * rolls aren't exactly a finished game.
+     */
+    public static int scoreGame(int[] rolls, int start, int end) {
+        int score = 0;
+        int entry = INVALID_ROLL;
+        int state = START_STATE;
+        boolean valid = start < end;
+
+        for (int rollIndex = start; valid && rollIndex < end; ++rollIndex) {
+            entry = transition(state, rolls[rollIndex]);
+            valid = (entry != INVALID_ROLL);
+            score += entry & DELTA_MASK;
+            state = entry >>> STATE_SHIFT;
+        }
+
+        return (valid && isFinished(entry)) ? score : BatchScorer.INVALID_GAME;
+    }
+
+    /**
+     * Score the games in a packed roll array. The arrays are laid out as
+     * for {@link BatchScorer#scoreGames(byte[], int[], int, int[], int[])}.
+     * @param rolls Pins of every roll of every game.
+     * @param offsets Where the rolls of each game start, plus where the
+     * last game ends.
+     * @param gameCount Number of games to score.
+     * @param finalScores Gets the final score of each game, or
+     * {@link BatchScorer#INVALID_GAME}.
+     * @return The number of valid games.
+     */
+    public static int scoreGames(byte[] rolls, int[] offsets, int gameCount, int[] finalScores) {
+        int validGames = 0;
+
+        for (int game = 0; game < gameCount; ++game) {
+            int score = scoreGame(rolls, offsets[game], offsets[game + 1]);
+            finalScores[game] = score;
+            if (score != BatchScorer.INVALID_GAME) {
+                ++validGames;
+            }
+        }
+
+        return validGames;
+    }
+
+    /**
+     * The scoring state of a game, used only to build the table.
+     */
+    private static class State {
+        /**
+         * Index of the frame the next roll goes in.
+         */
+        int frameIndex;
+        /**
+         * Number of rolls made in the current frame.
+         */
+        int frameRolls;
+        /**
+         * Pins standing for the next roll.
+         */
+        int pinsUp;
+        /**
+         * Number of earlier frames that count the next roll as a bonus.
+         */
+        int nextBonus;
+        /**
+         * Number of earlier frames that count the roll after next as a bonus.
+         */
+        int secondBonus;
+        /**
+         * Whether the last frame has earned a third roll.
+         */
+        boolean fillBall;
+        /**
+         * Whether the next roll is the first at a full rack.
+         */
+        boolean firstBall;
+        /**
+         * Whether the game is finished.
+         */
+        boolean done;
+
+        /**
+         * Constructor.
+         * @param key The state packed by {@link #key()}.
+         */
+        State(int key) {
+            frameIndex = key & 0xf;
+            frameRolls = (key >>> 4) & 0x3;
+            pinsUp = (key >>> 6) & 0xf;
+            nextBonus = (key >>> 10) & 0x3;
+            secondBonus = (key >>> 12) & 0x1;
+            fillBall = ((key >>> 13) & 0x1) != 0;
+            firstBall = ((key >>> 14) & 0x1) != 0;
+            done = ((key >>> 15) & 0x1) != 0;
+        }
+
+        /**
+         * Pack a state into an int.
+         */
+        static int key(int frameIndex, int frameRolls, int pinsUp, int nextBonus, int secondBonus,
+                boolean fillBall, boolean firstBall, boolean done) {
+            return frameIndex | (frameRolls << 4) | (pinsUp << 6) | (nextBonus << 10) |
+                    (secondBonus << 12) | (fillBall ? 1 << 13 : 0) | (firstBall ? 1 << 14 : 0) |
+                    (done ? 1 << 15 : 0);
+        }
+
+        /**
+         * Pack this state into an int.
+         */
+        int key() {
+            return key(frameIndex, frameRolls, pinsUp, nextBonus, secondBonus, fillBall, firstBall, done);
+        }
+
+        /**
+         * Get the pins standing for the next roll, or 0 if the game is finished.
+         */
+        int pinsUpOrZero() {
+            return done ? 0 : pinsUp;
+        }
+
+        /**
+         * Make a roll, the same way as {@link ScalarColumnarScorer}.
+         * @param pins Number of pins down in the roll.
+         * @return The score the roll adds, or -1 if the roll isn't allowed.
+         */
+        int roll(int pins) {
+            final int lastFrameIndex = BowlingGame.NUMBER_OF_FRAMES - 1;
+            final int allPins = BowlingGame.ALL_PINS;
+            int delta = -1;
+
+            if (!done && pins <= pinsUp) {
+                delta = pins * (1 + nextBonus);
+                int pinsLeft = pinsUp - pins;
+
+                if (frameIndex < lastFrameIndex) {
+                    boolean strike = (frameRolls == 0 && pinsLeft == 0);
+                    nextBonus = secondBonus + (pinsLeft == 0 ? 1 : 0);
+                    secondBonus = strike ? 1 : 0;
+                    if (strike || frameRolls == 1) {
+                        ++frameIndex;
+                        frameRolls = 0;
+                        pinsUp = allPins;
+                        firstBall = true;
+                    } else {
+                        frameRolls = 1;
+                        pinsUp = pinsLeft;
+                        firstBall = false;
+                    }
+                } else {
+                    // the last frame holds its own bonus rolls
+                    nextBonus = secondBonus;
+                    secondBonus = 0;
+                    ++frameRolls;
+                    done = (frameRolls == 3) || (frameRolls == 2 && !fillBall && pinsLeft != 0);
+                    fillBall = fillBall || pinsLeft == 0;
+                    pinsUp = (pinsLeft == 0) ? allPins : pinsLeft;
+                    firstBall = (pinsLeft == 0);
+                }
+
+                if (done) {
+                    // every finished game is the same state
+                    frameIndex = frameRolls = pinsUp = nextBonus = secondBonus = 0;
+                    fillBall = firstBall = false;
+                }
+            }
+
+            return delta;
+        }
+    }
+}
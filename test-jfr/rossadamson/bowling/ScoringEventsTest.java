@@ -0,0 +1,144 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoringEventsTest {
+
+    @Test
+    public void testFlightRecorderLoaded() {
+        assertTrue("flight recorder events", ScoringEvents.INSTANCE instanceof JfrScoringEvents);
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            BowlingGame game = new BowlingGame();
+            game.setId(7);
+            game.tryAddRoll(10);
+            game.tryAddRoll(3);
+            game.tryAddRoll(8);
+            for (int roll = 0; roll < 17; ++roll) {
+                game.tryAddRoll(1);
+            }
+            game.tryAddRoll(1);
+            game.toString();
+        });
+
+        List<RecordedEvent> added = named(events, "RollAdded");
+        assertEquals("rolls added", 19, added.size());
+        assertEquals("game id", 7, added.get(0).getLong("gameId"));
+        assertEquals("pins", 10, added.get(0).getInt("pins"));
+        assertEquals("second frame", 1, added.get(1).getInt("frameIndex"));
+        assertEquals("score", 10 + 3 + 3, added.get(1).getInt("score"));
+        assertFalse("timed", added.get(0).getDuration().isNegative());
+
+        List<RecordedEvent> rejected = named(events, "RollRejected");
+        assertEquals("rolls rejected", 2, rejected.size());
+        assertEquals("too many pins", BowlingGame.ROLL_TOO_MANY_PINS, rejected.get(0).getInt("status"));
+        assertEquals("rejected frame", 1, rejected.get(0).getInt("frameIndex"));
+        assertEquals("game finished", BowlingGame.ROLL_GAME_FINISHED, rejected.get(1).getInt("status"));
+
+        List<RecordedEvent> frames = named(events, "FrameCompleted");
+        assertEquals("frames completed", 10, frames.size());
+        assertEquals("strike frame", 10, frames.get(0).getInt("pins"));
+        assertEquals("last frame", 9, frames.get(9).getInt("frameIndex"));
+
+        List<RecordedEvent> finished = named(events, "GameFinished");
+        assertEquals("games finished", 1, finished.size());
+        assertEquals("final score", (10 + 3 + 1) + (3 + 1) + 16, finished.get(0).getInt("score"));
+
+        List<RecordedEvent> rendered = named(events, "ScoreboardRendered");
+        assertEquals("score boards", 1, rendered.size());
+        assertTrue("length", rendered.get(0).getInt("length") > 0);
+    }
+
+    @Test
+    public void testLaneEvents() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            LaneManager lanes = new LaneManager(8, 2);
+            lanes.tryAddRoll(5, 10);
+            lanes.tryAddRoll(5, 3);
+            lanes.tryAddRoll(5, 8);
+            lanes.tryAddRoll(5, 7);
+            lanes.tryAddRoll(2, 4);
+        });
+
+        List<RecordedEvent> added = named(events, "RollAdded");
+        assertEquals("rolls added", 4, added.size());
+        assertEquals("lane as game id", 5, added.get(0).getLong("gameId"));
+        assertEquals("second frame", 1, added.get(2).getInt("frameIndex"));
+        assertEquals("score", 10 + 3 + 7 + 3 + 7, added.get(2).getInt("score"));
+        assertEquals("other lane", 2, added.get(3).getLong("gameId"));
+
+        List<RecordedEvent> rejected = named(events, "RollRejected");
+        assertEquals("rolls rejected", 1, rejected.size());
+        assertEquals("rejected lane", 5, rejected.get(0).getLong("gameId"));
+        assertEquals("rejected frame", 1, rejected.get(0).getInt("frameIndex"));
+
+        List<RecordedEvent> frames = named(events, "FrameCompleted");
+        assertEquals("frames completed", 2, frames.size());
+        assertEquals("strike frame", 10, frames.get(0).getInt("pins"));
+        assertEquals("spare frame", 10, frames.get(1).getInt("pins"));
+        assertEquals("spare frame index", 1, frames.get(1).getInt("frameIndex"));
+    }
+
+    /**
+     * Record the scoring events of some work.
+     * @param work The work.
+     * @return The events, in the order they were committed.
+     */
+    private static List<RecordedEvent> record(Runnable work) throws Exception {
+        Path file = Files.createTempFile("scoring", ".jfr");
+        List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        try {
+            try (Recording recording = new Recording()) {
+                for (String name : new String[] { "RollAdded", "RollRejected", "FrameCompleted",
+                        "GameFinished", "ScoreboardRendered" }) {
+                    recording.enable("rossadamson.bowling." + name).withoutThreshold();
+                }
+                recording.start();
+                work.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("rossadamson.bowling.")) {
+                    events.add(event);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+        events.sort((first, second) -> first.getEndTime().compareTo(second.getEndTime()));
+        return events;
+    }
+
+    /**
+     * Get the events of one type.
+     * @param events The events.
+     * @param name The name of the type, without the package.
+     */
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> result = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("rossadamson.bowling." + name)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+}
@@ -8,7 +8,13 @@ import org.junit.runners.Suite.SuiteClasses;
  * @author Ross Adamson
  */
 @RunWith(Suite.class)
-@SuiteClasses({ BowlingGameTest.class, FrameTest.class, RollTest.class })
+@SuiteClasses({ BatchScorerTest.class, BowlingGameTest.class, ColumnarScorerTest.class,
+        CompactBowlingGameTest.class, FinalScoreDistributionTest.class, FrameTest.class,
+        GameArchiveTest.class, GameCounterTest.class, GamePoolTest.class, GameSnapshotTest.class,
+        JsonWriterTest.class, LaneManagerTest.class, ReachableScoresTest.class,
+        RollJournalTest.class, RollTest.class, ScoreboardRendererTest.class,
+        ScoreProjectorTest.class, ScorerServerTest.class, ScoreSheetParserTest.class,
+        ScoringHttpServerTest.class, ScoringMetricsTest.class, TableDrivenScorerTest.class })
 public class AllTests {
 
 }
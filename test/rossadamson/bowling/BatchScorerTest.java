@@ -0,0 +1,119 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class BatchScorerTest {
+    
+    /**
+     * Score a single game of rolls, as both int and byte rolls.
+     */
+    static int score(int... rolls) {
+        byte[] bytes = new byte[rolls.length];
+        for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+            bytes[rollIndex] = (byte) rolls[rollIndex];
+        }
+        int score = BatchScorer.scoreGame(rolls, 0, rolls.length, null, 0);
+        assertEquals("byte and int rolls have same score", score,
+                BatchScorer.scoreGame(bytes, 0, bytes.length, null, 0));
+        return score;
+    }
+    
+    @Test
+    public void testScoreGame() {
+        assertEquals("perfect game", 300, score(10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10));
+        assertEquals("gutter game", 0, score(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+        assertEquals("all spares", 150, score(5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5));
+        assertEquals("strike then spare in last frame", 20,
+                score(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 3, 7));
+        
+        assertEquals("too many pins in a frame", BatchScorer.INVALID_GAME,
+                score(5, 6, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+        assertEquals("negative roll", BatchScorer.INVALID_GAME,
+                score(-1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+        assertEquals("roll over all pins after strike", BatchScorer.INVALID_GAME,
+                score(10, 11, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+        assertEquals("incomplete game", BatchScorer.INVALID_GAME, score(10, 10, 10));
+        assertEquals("missing fill ball", BatchScorer.INVALID_GAME,
+                score(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3, 7));
+        assertEquals("extra roll", BatchScorer.INVALID_GAME,
+                score(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+        assertEquals("too many pins in last frame fill balls", BatchScorer.INVALID_GAME,
+                score(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 3, 8));
+        assertEquals("empty game", BatchScorer.INVALID_GAME, score());
+    }
+    
+    @Test
+    public void testScoreGames() throws Exception {
+        int numberOfGames = 200;
+        BowlingGame[] games = new BowlingGame[numberOfGames];
+        int[] offsets = new int[numberOfGames + 1];
+        byte[] packedBytes = new byte[numberOfGames * BowlingGame.MAX_ROLLS];
+        int[] packedInts = new int[numberOfGames * BowlingGame.MAX_ROLLS];
+        
+        // pack complete and incomplete random games
+        int rollCount = 0;
+        for (int i = 0; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            games[i] = TestUtils.randomGame(rollsLimit, errorAllowance);
+            
+            offsets[i] = rollCount;
+            for (int pins : TestUtils.rollsOf(games[i])) {
+                packedBytes[rollCount] = (byte) pins;
+                packedInts[rollCount] = pins;
+                ++rollCount;
+            }
+        }
+        offsets[numberOfGames] = rollCount;
+        
+        int[] byteScores = new int[numberOfGames];
+        int[] intScores = new int[numberOfGames];
+        int[] cumulativeScores = new int[numberOfGames * BowlingGame.NUMBER_OF_FRAMES];
+        int[] intCumulativeScores = new int[numberOfGames * BowlingGame.NUMBER_OF_FRAMES];
+        int validGames = BatchScorer.scoreGames(packedBytes, offsets, byteScores, cumulativeScores);
+        assertEquals("byte and int rolls have same valid games", validGames,
+                BatchScorer.scoreGames(packedInts, offsets, intScores, intCumulativeScores));
+        
+        int finishedGames = 0;
+        for (int i = 0; i < numberOfGames; ++i) {
+            assertEquals("byte and int rolls have same score", byteScores[i], intScores[i]);
+            if (games[i].isFinished()) {
+                ++finishedGames;
+                assertEquals("final score", games[i].totalScore(), byteScores[i]);
+                for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+                    assertEquals("running score", games[i].cumulativeScore(frameIndex),
+                            cumulativeScores[i * BowlingGame.NUMBER_OF_FRAMES + frameIndex]);
+                    assertEquals("int running score", games[i].cumulativeScore(frameIndex),
+                            intCumulativeScores[i * BowlingGame.NUMBER_OF_FRAMES + frameIndex]);
+                }
+            } else {
+                assertEquals("unfinished game is invalid", BatchScorer.INVALID_GAME, byteScores[i]);
+            }
+        }
+        assertEquals("every finished game is valid", finishedGames, validGames);
+
+        // score only the first games
+        int gameCount = numberOfGames / 2;
+        int[] firstByteScores = new int[numberOfGames];
+        int[] firstIntScores = new int[numberOfGames];
+        Arrays.fill(firstIntScores, Integer.MIN_VALUE);
+        assertEquals("byte and int rolls have same valid first games",
+                BatchScorer.scoreGames(packedBytes, offsets, gameCount, firstByteScores, null),
+                BatchScorer.scoreGames(packedInts, offsets, gameCount, firstIntScores, null));
+        for (int i = 0; i < numberOfGames; ++i) {
+            if (i < gameCount) {
+                assertEquals("first game score", byteScores[i], firstIntScores[i]);
+                assertEquals("first game score", byteScores[i], firstByteScores[i]);
+            } else {
+                assertEquals("later game not scored", Integer.MIN_VALUE, firstIntScores[i]);
+            }
+        }
+    }
+}
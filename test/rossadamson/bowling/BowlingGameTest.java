@@ -43,6 +43,38 @@ public class BowlingGameTest {
         assertEquals("perfect game should have 300 score", 300, bowling.totalScore());
     }
 
+    @Test
+    public void testCumulativeScore() throws Exception {
+        // strike
+        bowling.addRoll(new Roll(10));
+        assertEquals("strike waiting on bonus", 10, bowling.cumulativeScore(0));
+        // spare
+        bowling.addRoll(new Roll(3));
+        bowling.addRoll(new Roll(7));
+        assertEquals("strike with bonus", 20, bowling.cumulativeScore(0));
+        assertEquals("spare waiting on bonus", 30, bowling.cumulativeScore(1));
+        // 4 + 3
+        bowling.addRoll(new Roll(4));
+        bowling.addRoll(new Roll(3));
+        assertEquals("spare with bonus", 34, bowling.cumulativeScore(1));
+        assertEquals("open frame", 41, bowling.cumulativeScore(2));
+        assertEquals("frames not rolled yet add nothing", 41, bowling.cumulativeScore(BowlingGame.NUMBER_OF_FRAMES - 1));
+        
+        int numberOfGames = 100;
+        for (int i = 0; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, errorAllowance);
+            
+            int score = 0;
+            for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+                score += game.frames[frameIndex].getScore();
+                assertEquals("running score matches frame scores", score, game.cumulativeScore(frameIndex));
+            }
+            assertEquals("total score matches frame scores", score, game.totalScore());
+        }
+    }
+
     @Test
     public void testIsFinished() throws GameFinishedException, InvalidRollException {
         assertFalse("empty game is not finished", bowling.isFinished());
@@ -116,6 +148,167 @@ public class BowlingGameTest {
         assertFalse("add zero roll to incomplete game is fine", thrown);
     }
     
+    @Test
+    public void testTryAddRoll() throws Exception {
+        assertEquals("negative roll", BowlingGame.ROLL_NEGATIVE, bowling.tryAddRoll(-1));
+        assertEquals("too many pins", BowlingGame.ROLL_TOO_MANY_PINS, bowling.tryAddRoll(BowlingGame.ALL_PINS + 1));
+        assertEquals("rejected rolls aren't added", 0, bowling.totalScore());
+        
+        assertEquals("roll of 6", BowlingGame.ROLL_OK, bowling.tryAddRoll(6));
+        assertEquals("roll of 5 after 6", BowlingGame.ROLL_TOO_MANY_PINS, bowling.tryAddRoll(5));
+        assertEquals("roll of 4 after 6", BowlingGame.ROLL_OK, bowling.tryAddRoll(4));
+        assertEquals("spare", 10, bowling.totalScore());
+        
+        bowling = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        assertEquals("complete game", BowlingGame.ROLL_GAME_FINISHED, bowling.tryAddRoll(0));
+        
+        boolean thrown = false;
+        try {
+            bowling.addRoll(new Roll(0));
+        } catch (GameFinishedException e) {
+            assertSame("exception is shared", GameFinishedException.INSTANCE, e);
+            assertEquals("exception has no stack trace", 0, e.getStackTrace().length);
+            thrown = true;
+        }
+        assertTrue("add roll to complete game throws exception", thrown);
+        
+        setUp();
+        thrown = false;
+        try {
+            bowling.addRoll(new Roll(-1));
+        } catch (InvalidRollException e) {
+            thrown = true;
+        }
+        assertTrue("negative roll throws exception", thrown);
+    }
+
+    @Test
+    public void testSharedExceptionsUnchangeable() {
+        for (Exception shared : new Exception[] { GameFinishedException.INSTANCE, InvalidRollException.INSTANCE }) {
+            shared.addSuppressed(new RuntimeException());
+            assertEquals("no suppressed exceptions", 0, shared.getSuppressed().length);
+
+            shared.setStackTrace(new Throwable().getStackTrace());
+            assertEquals("no stack trace", 0, shared.getStackTrace().length);
+
+            boolean thrown = false;
+            try {
+                shared.initCause(new RuntimeException());
+            } catch (IllegalStateException e) {
+                thrown = true;
+            }
+            assertTrue("cause can't be set", thrown);
+            assertNull("no cause", shared.getCause());
+        }
+
+        assertTrue("other instances have a stack trace", new GameFinishedException().getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testAddSharedRolls() throws Exception {
+        // perfect game from one shared roll
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES + 2; ++frameIndex) {
+            bowling.addRoll(Roll.of(BowlingGame.ALL_PINS));
+        }
+        assertEquals("perfect game should have 300 score", 300, bowling.totalScore());
+        assertNull("shared roll is not linked", Roll.of(BowlingGame.ALL_PINS).nextRoll);
+        assertEquals("finished game has no possible rolls", 0, bowling.possibleRollsMask());
+        assertEquals("finished game has no next roll", -1, bowling.maxNextRoll());
+    }
+    
+    /**
+     * Build a game from the first rolls in an array.
+     * @return null if the rolls aren't valid.
+     */
+    static BowlingGame gameOf(int[] pins, int rollCount) {
+        BowlingGame game = new BowlingGame();
+        for (int rollIndex = 0; game != null && rollIndex < rollCount; ++rollIndex) {
+            if (game.tryAddRoll(pins[rollIndex]) != BowlingGame.ROLL_OK) {
+                game = null;
+            }
+        }
+        return game;
+    }
+    
+    /**
+     * Check that a game is the same as one built from its rolls.
+     */
+    static void checkSameGame(BowlingGame expected, BowlingGame actual) {
+        assertEquals("score board", expected.toString(), actual.toString());
+        assertEquals("finished", expected.isFinished(), actual.isFinished());
+        assertEquals("max next roll", expected.maxNextRoll(), actual.maxNextRoll());
+        assertEquals("current frame", expected.currentFrameIndex, actual.currentFrameIndex);
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+            assertEquals("running score", expected.cumulativeScore(frameIndex), actual.cumulativeScore(frameIndex));
+            assertEquals("frame mark", expected.frames[frameIndex].mark(), actual.frames[frameIndex].mark());
+        }
+        assertEquals("snapshot", expected.toString(), actual.snapshot().toString());
+        
+        // the rolls keep going after the change
+        if (!actual.isFinished()) {
+            int pins = TestUtils.random.nextInt(actual.maxNextRoll() + 1);
+            expected.tryAddRoll(pins);
+            actual.tryAddRoll(pins);
+            assertEquals("score after next roll", expected.toString(), actual.toString());
+        }
+    }
+    
+    @Test
+    public void testUndoLastRoll() throws Exception {
+        assertFalse("nothing to undo", bowling.undoLastRoll());
+        
+        for (int i = 0; i < 100; ++i) {
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            BowlingGame game = TestUtils.randomGame(BowlingGame.MAX_ROLLS, errorAllowance);
+            int[] pins = TestUtils.rollsOf(game);
+            
+            for (int rollCount = pins.length - 1; rollCount >= 0; --rollCount) {
+                assertTrue("roll undone", game.undoLastRoll());
+                checkSameGame(gameOf(pins, rollCount), game);
+                game.undoLastRoll();
+                game.tryAddRoll(pins[rollCount]);
+                assertTrue("roll undone again", game.undoLastRoll());
+            }
+            assertFalse("every roll undone", game.undoLastRoll());
+        }
+    }
+    
+    @Test
+    public void testCorrectRoll() throws Exception {
+        for (int i = 0; i < 500; ++i) {
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            int rollsLimit = 1 + TestUtils.random.nextInt(BowlingGame.MAX_ROLLS);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, errorAllowance);
+            int[] pins = TestUtils.rollsOf(game);
+            String before = game.toString();
+            
+            int rollIndex = TestUtils.random.nextInt(pins.length);
+            int corrected = TestUtils.random.nextInt(BowlingGame.ALL_PINS + 1);
+            int[] correctedPins = pins.clone();
+            correctedPins[rollIndex] = corrected;
+            BowlingGame expected = gameOf(correctedPins, correctedPins.length);
+            
+            int status = game.correctRoll(rollIndex, corrected);
+            if (expected == null) {
+                assertTrue("invalid correction is rejected", status != BowlingGame.ROLL_OK);
+                assertEquals("game is left as it was", before, game.toString());
+                assertEquals("snapshot is left as it was", before, game.snapshot().toString());
+            } else {
+                assertEquals("valid correction", BowlingGame.ROLL_OK, status);
+                checkSameGame(expected, game);
+            }
+        }
+        
+        assertEquals("negative pins", BowlingGame.ROLL_NEGATIVE, gameOf(new int[] { 3 }, 1).correctRoll(0, -1));
+        boolean thrown = false;
+        try {
+            bowling.correctRoll(0, 3);
+        } catch (IndexOutOfBoundsException e) {
+            thrown = true;
+        }
+        assertTrue("no roll to correct", thrown);
+    }
+    
     @Test
     public void testToString() throws Exception {
         int numberOfGames = 5;
@@ -0,0 +1,86 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ColumnarScorerTest {
+    
+    /**
+     * Check a scorer against {@link BatchScorer} on the same games.
+     */
+    static void checkScorer(ColumnarScorer scorer) throws Exception {
+        // an odd number, so some games don't fill a vector
+        int numberOfGames = 203;
+        ColumnarGames games = new ColumnarGames(numberOfGames);
+        int[] expectedScores = new int[numberOfGames];
+        
+        for (int i = 0; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            int[] rolls = TestUtils.rollsOf(TestUtils.randomGame(rollsLimit, errorAllowance));
+            
+            // break some of the games
+            int breakage = TestUtils.random.nextInt(8);
+            if (breakage == 0 && rolls.length > 0) {
+                rolls[TestUtils.random.nextInt(rolls.length)] = BowlingGame.ALL_PINS + 1;
+            } else if (breakage == 1 && rolls.length > 0) {
+                rolls[TestUtils.random.nextInt(rolls.length)] = -1;
+            } else if (breakage == 2) {
+                int[] extra = new int[rolls.length + 1];
+                System.arraycopy(rolls, 0, extra, 0, rolls.length);
+                rolls = extra;
+            }
+            
+            games.addGame(rolls, 0, rolls.length);
+            expectedScores[i] = BatchScorer.scoreGame(rolls, 0, rolls.length, null, 0);
+        }
+        
+        int[] finalScores = new int[numberOfGames];
+        int validGames = scorer.scoreGames(games, finalScores);
+        
+        int expectedValidGames = 0;
+        for (int i = 0; i < numberOfGames; ++i) {
+            assertEquals("same score as batch scorer", expectedScores[i], finalScores[i]);
+            if (expectedScores[i] != BatchScorer.INVALID_GAME) {
+                ++expectedValidGames;
+            }
+        }
+        assertEquals("valid games", expectedValidGames, validGames);
+    }
+    
+    @Test
+    public void testScalarScorer() throws Exception {
+        checkScorer(new ScalarColumnarScorer());
+    }
+    
+    @Test
+    public void testCreate() throws Exception {
+        checkScorer(ColumnarScorer.create());
+    }
+    
+    @Test
+    public void testFixedGames() {
+        int[][] rolls = {
+            {10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10},
+            {5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5},
+            {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 3, 7},
+            {10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10},
+        };
+        int[] expectedScores = {300, 150, 20, BatchScorer.INVALID_GAME};
+        
+        ColumnarGames games = new ColumnarGames(rolls.length);
+        for (int i = 0; i < rolls.length; ++i) {
+            games.addGame(rolls[i], 0, rolls[i].length);
+        }
+        
+        int[] finalScores = new int[rolls.length];
+        ColumnarScorer.create().scoreGames(games, finalScores);
+        for (int i = 0; i < rolls.length; ++i) {
+            assertEquals("fixed game", expectedScores[i], finalScores[i]);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class CompactBowlingGameTest {
+    public static CompactBowlingGame bowling;
+
+    @Before
+    public void setUp() throws Exception {
+        bowling = new CompactBowlingGame();
+    }
+    
+    /**
+     * Copy the rolls of a game into a new compact game.
+     */
+    static CompactBowlingGame compactCopy(BowlingGame game) throws GameFinishedException, InvalidRollException {
+        CompactBowlingGame compact = new CompactBowlingGame();
+        Iterator<Roll> rolls = game.rollIterator();
+        while (rolls.hasNext()) {
+            compact.addRoll(rolls.next().pins());
+        }
+        return compact;
+    }
+
+    @Test
+    public void testInit() throws Exception {
+        bowling.addRoll(7);
+        bowling.init();
+        assertEquals("init-ed bowling should have zero score", 0, bowling.totalScore());
+        assertEquals("init-ed bowling should have zero rolls", 0, bowling.rollCount());
+        assertEquals("init-ed bowling should roll in first frame", 0, bowling.nextRollFrameIndex());
+        assertEquals("init-ed bowling has all pins up", BowlingGame.ALL_PINS, bowling.pinsUp());
+    }
+
+    @Test
+    public void testTotalScore() throws Exception {
+        // strike
+        bowling.addRoll(new Roll(10));
+        // spare
+        bowling.addRoll(new Roll(3));
+        bowling.addRoll(new Roll(7));
+        // 4 + 3
+        bowling.addRoll(new Roll(4));
+        bowling.addRoll(new Roll(3));
+        
+        assertEquals("strike, spare, 4 and 5", 20 + 14 + 4 + 3, bowling.totalScore());
+        
+        setUp();
+        // perfect game
+        for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES + 2; ++frameIndex) {
+            bowling.addRoll(new Roll(10));
+        }
+        assertEquals("perfect game should have 300 score", 300, bowling.totalScore());
+        assertTrue("perfect game should be finished", bowling.isFinished());
+    }
+    
+    @Test
+    public void testNextRollFrameIndex() throws Exception {
+        assertEquals("next roll of empty game goes in first frame", 0, bowling.nextRollFrameIndex());
+        
+        bowling.addRoll(BowlingGame.ALL_PINS);
+        assertEquals("next roll of after strike goes in second frame", 1, bowling.nextRollFrameIndex());
+        
+        bowling.addRoll(3);
+        assertEquals("roll of 3 in second frame", 1, bowling.nextRollFrameIndex());
+        assertEquals("7 pins left after roll of 3", 7, bowling.pinsUp());
+        
+        bowling.addRoll(4);
+        assertEquals("second roll in second frame", 2, bowling.nextRollFrameIndex());
+        assertEquals("new frame has all pins up", BowlingGame.ALL_PINS, bowling.pinsUp());
+    }
+    
+    @Test
+    public void testAddRoll() throws Exception {
+        bowling.addRoll(6);
+        
+        boolean thrown = false;
+        try {
+            bowling.addRoll(5);
+        } catch (InvalidRollException e) {
+            thrown = true;
+        }
+        assertTrue("roll with greater pins than left throws exception", thrown);
+        
+        bowling = compactCopy(TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE));
+        thrown = false;
+        try {
+            bowling.addRoll(0);
+        } catch (GameFinishedException e) {
+            thrown = true;
+        }
+        assertTrue("add zero roll to complete game throws exception", thrown);
+        assertFalse("complete game can't roll", bowling.canRoll(new Roll(0)));
+        assertEquals("complete game has no possible rolls", 0, bowling.possibleRolls().size());
+    }
+    
+    @Test
+    public void testMatchesBowlingGame() throws Exception {
+        int numberOfGames = 200;
+        
+        for (int i = 0; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, errorAllowance);
+            CompactBowlingGame compact = compactCopy(game);
+            
+            assertEquals("same total score", game.totalScore(), compact.totalScore());
+            assertEquals("same finished state", game.isFinished(), compact.isFinished());
+            assertEquals("same possible rolls", game.possibleRolls().size(), compact.possibleRolls().size());
+            assertEquals("same scoreboard", game.toString(), compact.toString());
+            for (int frameIndex = 0; frameIndex < BowlingGame.NUMBER_OF_FRAMES; ++frameIndex) {
+                assertEquals("same frame score", game.frames[frameIndex].getScore(), compact.frameScore(frameIndex));
+            }
+        }
+    }
+}
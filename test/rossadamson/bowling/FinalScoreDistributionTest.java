@@ -0,0 +1,115 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class FinalScoreDistributionTest {
+    /**
+     * A bowler who strikes often and leaves few pins.
+     */
+    static final PinFallModel BOWLER = new EmpiricalPinFallModel(
+            new long[] { 1, 0, 0, 1, 2, 3, 5, 8, 15, 25, 40 },
+            new long[][] { null, { 3, 7 }, { 2, 3, 5 }, { 1, 1, 2, 6 }, { 1, 1, 1, 2, 5 } });
+    
+    /**
+     * Get the first rolls of a random game, with a few rolls left to make.
+     */
+    static CompactBowlingGame randomLateGame() throws Exception {
+        BowlingGame game = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        int rollCount = 0;
+        for (Iterator<Roll> rolls = game.rollIterator(); rolls.hasNext(); rolls.next()) {
+            ++rollCount;
+        }
+        
+        CompactBowlingGame partial = new CompactBowlingGame();
+        Iterator<Roll> rolls = game.rollIterator();
+        int keep = Math.max(0, rollCount - 2 - TestUtils.random.nextInt(3));
+        for (int rollIndex = 0; rollIndex < keep; ++rollIndex) {
+            partial.tryAddRoll(rolls.next().pins());
+        }
+        return partial;
+    }
+    
+    @Test
+    public void testMatchesEveryFinish() throws Exception {
+        FinalScoreDistribution distribution = new FinalScoreDistribution(BOWLER);
+        for (int i = 0; i < 100; ++i) {
+            CompactBowlingGame game = randomLateGame();
+            
+            final double[] expected = new double[BowlingGame.MAX_SCORE + 1];
+            TestUtils.forEveryFinish(game, BOWLER, new TestUtils.FinishVisitor() {
+                @Override
+                public void finished(CompactBowlingGame finished, double chance) {
+                    expected[finished.totalScore()] += chance;
+                }
+            });
+            
+            double[] actual = distribution.probabilities(game);
+            for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+                assertEquals("score " + score, expected[score], actual[score], 1e-12);
+            }
+        }
+    }
+    
+    @Test
+    public void testSupport() throws Exception {
+        FinalScoreDistribution distribution = FinalScoreDistribution.of(PinFallModel.UNIFORM);
+        assertSame("shared", distribution, FinalScoreDistribution.of(PinFallModel.UNIFORM));
+        
+        for (int i = 0; i < 50; ++i) {
+            BowlingGame game = TestUtils.randomGame(TestUtils.random.nextInt(BowlingGame.MAX_ROLLS + 1),
+                    TestUtils.MAX_ERROR_ALLOWANCE);
+            double[] probabilities = distribution.probabilities(game);
+            double total = 0.0;
+            for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+                total += probabilities[score];
+                assertEquals("reachable", ReachableScores.canFinishWith(game, score), probabilities[score] > 0.0);
+                assertEquals("one score", probabilities[score], distribution.probability(game, score), 0.0);
+            }
+            assertEquals("total", 1.0, total, 1e-9);
+        }
+    }
+    
+    @Test
+    public void testMatchesProjection() throws Exception {
+        BowlingGame game = new BowlingGame();
+        game.addRoll(Roll.of(10));
+        game.addRoll(Roll.of(6));
+        
+        double[] probabilities = new FinalScoreDistribution(BOWLER).probabilities(game);
+        double mean = 0.0;
+        for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+            mean += score * probabilities[score];
+        }
+        ScoreHistogram histogram = new ScoreProjector(BOWLER, ForkJoinPool.commonPool()).project(game, 200000, 7);
+        assertEquals("mean", mean, histogram.mean(), 0.5);
+    }
+    
+    @Test
+    public void testProbabilityHigher() {
+        double[] even = new double[BowlingGame.MAX_SCORE + 1];
+        even[100] = 0.5;
+        even[200] = 0.5;
+        double[] fixed = new double[BowlingGame.MAX_SCORE + 1];
+        fixed[150] = 1.0;
+        assertEquals("above", 0.5, FinalScoreDistribution.probabilityHigher(even, fixed), 0.0);
+        assertEquals("below", 0.5, FinalScoreDistribution.probabilityHigher(fixed, even), 0.0);
+        assertEquals("ties don't count", 0.25, FinalScoreDistribution.probabilityHigher(even, even), 0.0);
+    }
+    
+    @Test
+    public void testEmpiricalModel() {
+        EmpiricalPinFallModel model = new EmpiricalPinFallModel(new long[] { 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3 }, null);
+        assertEquals("strike", 0.75, model.probability(true, 10, 10), 0.0);
+        assertEquals("gutter", 0.25, model.probability(true, 10, 0), 0.0);
+        assertEquals("no second balls", 1.0 / 11, model.probability(false, 10, 4), 0.0);
+        assertEquals("no second balls", 1.0 / 4, model.probability(false, 3, 1), 0.0);
+    }
+}
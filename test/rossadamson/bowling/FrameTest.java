@@ -115,6 +115,33 @@ public class FrameTest {
         assertFalse("two zeros frame is not spare", twoZerosFrame.isSpare());
     }
     
+    @Test
+    public void testMark() {
+        assertEquals("empty frame has no mark", Frame.Mark.None, frame.mark());
+        assertEquals("one roll frame has no mark", Frame.Mark.None, frameWithOneRoll.mark());
+        assertEquals("strike frame", Frame.Mark.Strike, strikeFrame.mark());
+        assertEquals("spare frame", Frame.Mark.Spare, spareFrame.mark());
+        assertEquals("two roll frame is open", Frame.Mark.Open, twoRollFrame.mark());
+        assertEquals("two zeros frame is open", Frame.Mark.Open, twoZerosFrame.mark());
+    }
+    
+    @Test
+    public void testIsBonusPending() {
+        assertTrue("strike waits on bonus", strikeFrame.isBonusPending());
+        assertTrue("spare waits on bonus", spareFrame.isBonusPending());
+        assertFalse("open frame has no bonus", twoRollFrame.isBonusPending());
+        assertFalse("empty frame has no bonus", frame.isBonusPending());
+        
+        spareFrame.lastRoll.nextRoll = new Roll(under1.pins());
+        assertFalse("spare with next roll has its bonus", spareFrame.isBonusPending());
+        
+        strikeFrame.isLast = true;
+        strikeFrame.addRoll(new Roll(under1.pins()));
+        assertTrue("last frame strike waits on its own rolls", strikeFrame.isBonusPending());
+        strikeFrame.addRoll(new Roll(under2.pins()));
+        assertFalse("last frame strike with all rolls", strikeFrame.isBonusPending());
+    }
+    
     @Test
     public void testGetScore() {
         assertEquals("score should be zero", 0, frame.getScore());
@@ -270,6 +297,17 @@ public class FrameTest {
                new Roll(BowlingGame.ALL_PINS)));
     }
     
+    @Test
+    public void testMaxNextRoll() {
+        assertEquals("empty frame", BowlingGame.ALL_PINS, frame.maxNextRoll());
+        assertEquals("one roll", BowlingGame.ALL_PINS - under1.pins(), frameWithOneRoll.maxNextRoll());
+        assertEquals("strike frame has no more rolls", -1, strikeFrame.maxNextRoll());
+        assertEquals("no possible rolls after strike", 0, strikeFrame.possibleRollsMask());
+        assertEquals("possible rolls after one roll", Roll.rangeMask(BowlingGame.ALL_PINS - under1.pins()),
+                frameWithOneRoll.possibleRollsMask());
+        assertFalse("negative roll", frame.canRoll(-1));
+    }
+    
     @Test
     public void testRollIterator() {
         frame.isLast = true;
@@ -0,0 +1,168 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Ross Adamson
+ */
+public class GameArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File archiveFile;
+    private BowlingGame[] games;
+    
+    @Before
+    public void setUp() throws Exception {
+        archiveFile = new File(folder.getRoot(), "games.bowl");
+        
+        // complete and incomplete games, including an empty one
+        int numberOfGames = 300;
+        games = new BowlingGame[numberOfGames];
+        games[0] = new BowlingGame();
+        for (int i = 1; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            games[i] = TestUtils.randomGame(rollsLimit, errorAllowance);
+        }
+        
+        GameArchiveWriter writer = new GameArchiveWriter(archiveFile);
+        for (int i = 0; i < numberOfGames; ++i) {
+            writer.addGame(games[i]);
+        }
+        writer.close();
+    }
+    
+    /**
+     * Check every game read back from the archive.
+     */
+    private void checkGames(GameArchiveReader reader) throws Exception {
+        assertEquals("game count", games.length, reader.gameCount());
+        
+        ArchivedGame view = new ArchivedGame();
+        for (int i = 0; i < games.length; ++i) {
+            reader.game(i, view);
+            assertEquals("total score", games[i].totalScore(), view.totalScore());
+            assertEquals("finished", games[i].isFinished(), view.isFinished());
+            
+            CompactBowlingGame compact = CompactBowlingGameTest.compactCopy(games[i]);
+            assertEquals("roll count", compact.rollCount(), view.rollCount());
+            for (int rollIndex = 0; rollIndex < compact.rollCount(); ++rollIndex) {
+                assertEquals("roll pins", compact.rollPins(rollIndex), view.rollPins(rollIndex));
+            }
+        }
+    }
+    
+    @Test
+    public void testReadBack() throws Exception {
+        GameArchiveReader reader = new GameArchiveReader(archiveFile);
+        checkGames(reader);
+        reader.close();
+        
+        reader = new GameArchiveReader(archiveFile);
+        assertEquals("random access", games[games.length - 1].totalScore(),
+                reader.game(games.length - 1).totalScore());
+        reader.close();
+    }
+    
+    @Test
+    public void testSmallSegments() throws Exception {
+        // records and index entries cross segment boundaries
+        GameArchiveReader reader = new GameArchiveReader(archiveFile, 64);
+        checkGames(reader);
+        reader.close();
+    }
+    
+    @Test
+    public void testPackedSize() throws Exception {
+        File sparesFile = new File(folder.getRoot(), "spares.bowl");
+        GameArchiveWriter writer = new GameArchiveWriter(sparesFile);
+        int[] spares = {5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5};
+        writer.addGame(spares, 0, spares.length);
+        writer.close();
+        
+        assertEquals("21 rolls take 11 bytes", GameArchive.HEADER_SIZE + 11 + 2 * 8, sparesFile.length());
+        GameArchiveReader reader = new GameArchiveReader(sparesFile);
+        assertEquals("all spares", 150, reader.game(0).totalScore());
+        reader.close();
+    }
+    
+    @Test
+    public void testInvalidGame() throws Exception {
+        GameArchiveWriter writer = new GameArchiveWriter(new File(folder.getRoot(), "invalid.bowl"));
+        int[] rolls = {5, 6};
+        boolean thrown = false;
+        try {
+            writer.addGame(rolls, 0, rolls.length);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        writer.close();
+        assertTrue("invalid game is rejected", thrown);
+    }
+    
+    @Test
+    public void testFailedCreate() throws Exception {
+        File directory = folder.newFolder("archives");
+        File notFile = new File(directory, "dir.bowl");
+        assertTrue("directory made", notFile.mkdir());
+
+        boolean thrown = false;
+        try {
+            new GameArchiveWriter(notFile);
+        } catch (IOException e) {
+            thrown = true;
+        }
+        assertTrue("directory can't be an archive", thrown);
+        assertArrayEquals("temporary index is deleted", new String[] { "dir.bowl" }, directory.list());
+    }
+
+    @Test
+    public void testNotAnArchive() throws Exception {
+        File notArchive = folder.newFile("not.bowl");
+        FileOutputStream out = new FileOutputStream(notArchive);
+        out.write(new byte[GameArchive.HEADER_SIZE]);
+        out.close();
+        
+        boolean thrown = false;
+        try {
+            new GameArchiveReader(notArchive);
+        } catch (IOException e) {
+            thrown = true;
+        }
+        assertTrue("file without magic number is rejected", thrown);
+    }
+
+    @Test(timeout = 10000)
+    public void testTransferFromShortFile() throws Exception {
+        RandomAccessFile source = new RandomAccessFile(folder.newFile("index"), "rw");
+        RandomAccessFile target = new RandomAccessFile(folder.newFile("copy"), "rw");
+        try {
+            source.write(new byte[GameArchive.INDEX_ENTRY_SIZE * 2]);
+            GameArchiveWriter.transferFully(source.getChannel(), GameArchive.INDEX_ENTRY_SIZE, target.getChannel());
+            assertEquals("copied", GameArchive.INDEX_ENTRY_SIZE, target.length());
+
+            // an index cut short on disk fails instead of copying forever
+            boolean thrown = false;
+            try {
+                GameArchiveWriter.transferFully(source.getChannel(), GameArchive.INDEX_ENTRY_SIZE * 3,
+                        target.getChannel());
+            } catch (IOException e) {
+                thrown = true;
+            }
+            assertTrue("short source", thrown);
+        } finally {
+            source.close();
+            target.close();
+        }
+    }
+}
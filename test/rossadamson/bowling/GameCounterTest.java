@@ -0,0 +1,63 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class GameCounterTest {
+    
+    @Test
+    public void testEveryGame() {
+        long[] counts = new GameCounter(new ForkJoinPool(3)).countGames();
+        assertEquals("every game", 5726805883325784576L, GameCounter.total(counts));
+        assertEquals("gutter game", 1, counts[0]);
+        assertEquals("one pin in one of twenty rolls", 20, counts[1]);
+        assertEquals("perfect game", 1, counts[300]);
+        assertEquals("eleven strikes and a nine", 1, counts[299]);
+    }
+    
+    @Test
+    public void testCompletions() throws Exception {
+        GameCounter counter = new GameCounter();
+        for (int i = 0; i < 100; ++i) {
+            CompactBowlingGame game = FinalScoreDistributionTest.randomLateGame();
+            final long[] expected = new long[BowlingGame.MAX_SCORE + 1];
+            TestUtils.forEveryFinish(game, null, new TestUtils.FinishVisitor() {
+                @Override
+                public void finished(CompactBowlingGame finished, double chance) {
+                    ++expected[finished.totalScore()];
+                }
+            });
+            long[] actual = counter.countCompletions(game);
+            for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+                assertEquals("score " + score, expected[score], actual[score]);
+            }
+        }
+    }
+    
+    @Test
+    public void testLiveGame() throws Exception {
+        BowlingGame game = new BowlingGame();
+        for (int i = 0; i < 9; ++i) {
+            game.addRoll(Roll.of(10));
+        }
+        long[] counts = new GameCounter().countCompletions(game);
+        assertEquals("perfect", 1, counts[300]);
+        assertEquals("nothing lower than 240", 0, counts[239]);
+        // the last frame: open frames and spares with a fill ball, or a strike and two more rolls
+        long frames = 0;
+        for (int first = 0; first < 10; ++first) {
+            frames += (10 - first) + 11;
+        }
+        frames += 11;
+        for (int second = 0; second < 10; ++second) {
+            frames += 11 - second;
+        }
+        assertEquals("every last frame", frames, GameCounter.total(counts));
+    }
+}
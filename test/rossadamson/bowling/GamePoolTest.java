@@ -0,0 +1,108 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class GamePoolTest {
+    
+    @Test
+    public void testReuse() throws Exception {
+        GamePool pool = new GamePool(2);
+        BowlingGame game = pool.acquire();
+        assertEquals("first game is made", 1, pool.missCount());
+        game.addRoll(Roll.of(10));
+        game.addRoll(Roll.of(4));
+        pool.release(game);
+        assertEquals("free", 1, pool.freeCount());
+        
+        BowlingGame reused = pool.acquire();
+        assertSame("same game", game, reused);
+        assertEquals("hit", 1, pool.hitCount());
+        assertEquals("reset score", 0, reused.totalScore());
+        assertFalse("reset rolls", reused.rollIterator().hasNext());
+        assertEquals("hit rate", 0.5, pool.hitRate(), 0.0);
+        
+        // a reused game plays the same as a new one
+        BowlingGame expected = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        Iterator<Roll> rolls = expected.rollIterator();
+        while (rolls.hasNext()) {
+            reused.addRoll(rolls.next());
+        }
+        BowlingGameTest.checkSameGame(expected, reused);
+    }
+    
+    @Test
+    public void testCapacity() {
+        GamePool pool = new GamePool(2);
+        BowlingGame[] games = new BowlingGame[3];
+        for (int i = 0; i < games.length; ++i) {
+            games[i] = pool.acquire();
+        }
+        for (BowlingGame game : games) {
+            pool.release(game);
+        }
+        assertEquals("full", 2, pool.freeCount());
+        assertEquals("discarded", 1, pool.discardCount());
+        assertEquals("made", 3, pool.missCount());
+    }
+    
+    @Test
+    public void testThreadsHaveOwnFreeLists() throws Exception {
+        final GamePool pool = new GamePool();
+        pool.release(pool.acquire());
+        
+        final int[] freeOnOtherThread = new int[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                freeOnOtherThread[0] = pool.freeCount();
+                pool.release(pool.acquire());
+            }
+        };
+        thread.start();
+        thread.join();
+        
+        assertEquals("other thread starts empty", 0, freeOnOtherThread[0]);
+        assertEquals("this thread keeps its game", 1, pool.freeCount());
+        assertEquals("both threads counted", 2, pool.missCount());
+    }
+
+    @Test
+    public void testCountsWhileThreadsRun() throws Exception {
+        final GamePool pool = new GamePool(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<Future<?>>();
+            for (int task = 0; task < 100; ++task) {
+                tasks.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        BowlingGame first = pool.acquire();
+                        BowlingGame second = pool.acquire();
+                        pool.release(first);
+                        pool.release(second);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("every acquire counted", 200, pool.hitCount() + pool.missCount());
+        assertEquals("every full release counted", 100, pool.discardCount());
+    }
+}
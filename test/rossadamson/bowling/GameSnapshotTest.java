@@ -0,0 +1,75 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class GameSnapshotTest {
+    
+    @Test
+    public void testSnapshot() throws Exception {
+        for (int i = 0; i < 100; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS + 1);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, errorAllowance);
+            GameSnapshot snapshot = game.snapshot();
+            int[] rolls = TestUtils.rollsOf(game);
+            
+            assertEquals("roll count", rolls.length, snapshot.rollCount());
+            for (int rollIndex = 0; rollIndex < rolls.length; ++rollIndex) {
+                assertEquals("roll pins", rolls[rollIndex], snapshot.rollPins(rollIndex));
+            }
+            assertEquals("total score", game.totalScore(), snapshot.totalScore());
+            assertEquals("finished", game.isFinished(), snapshot.isFinished());
+            assertEquals("score board", game.toString(), snapshot.toString());
+            
+            // the snapshot doesn't change with the game
+            int total = snapshot.totalScore();
+            game.init();
+            assertEquals("snapshot after init", total, snapshot.totalScore());
+            assertEquals("new game", 0, game.snapshot().rollCount());
+        }
+    }
+    
+    @Test
+    public void testSnapshotWhileRolling() throws Exception {
+        final BowlingGame game = new BowlingGame();
+        final int[] rolls = TestUtils.rollsOf(TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE));
+        final AtomicBoolean rolling = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        
+        // a reader must always see some of the rolls of the one game being played over
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                while (rolling.get()) {
+                    GameSnapshot snapshot = game.snapshot();
+                    for (int rollIndex = 0; rollIndex < snapshot.rollCount(); ++rollIndex) {
+                        if (snapshot.rollPins(rollIndex) != rolls[rollIndex]) {
+                            failure.set("roll " + rollIndex + " of " + snapshot);
+                        }
+                    }
+                }
+            }
+        };
+        reader.start();
+        
+        for (int i = 0; i < 20000; ++i) {
+            game.init();
+            for (int pins : rolls) {
+                game.addRoll(Roll.of(pins));
+            }
+        }
+        rolling.set(false);
+        reader.join();
+        
+        assertNull("consistent snapshots", failure.get());
+        assertEquals("final snapshot", game.totalScore(), game.snapshot().totalScore());
+    }
+}
@@ -0,0 +1,55 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class JsonWriterTest {
+
+    @Test
+    public void testNesting() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new JsonWriter(out).beginObject()
+                .name("a").value(1)
+                .name("b").beginArray().value(true).value(-20).nullValue().beginObject().endObject().endArray()
+                .name("c").beginArray().endArray()
+                .name("d").value("x")
+                .endObject();
+        assertEquals("{\"a\":1,\"b\":[true,-20,null,{}],\"c\":[],\"d\":\"x\"}", out.toString());
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new JsonWriter(out).beginArray()
+                .value(0).value(Long.MAX_VALUE).value(Long.MIN_VALUE).value(false).value((CharSequence) null)
+                .endArray();
+        assertEquals("[0,9223372036854775807,-9223372036854775808,false,null]", out.toString());
+    }
+
+    @Test
+    public void testEscapes() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new JsonWriter(out).value("q\"b\\n\nr\rt\tc\u0001l é");
+        assertEquals("\"q\\\"b\\\\n\\nr\\rt\\tc\\u0001l\\u2028é\"", out.toString());
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        StringBuilder out = new StringBuilder();
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray().value(1).endArray();
+        out.setLength(0);
+        json.init(out);
+        json.value(2);
+        assertEquals("no comma from the last use", "2", out.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbalanced() throws Exception {
+        new JsonWriter(new StringBuilder()).beginArray().endArray().endArray();
+    }
+}
@@ -0,0 +1,132 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class LaneManagerTest {
+    
+    @Test
+    public void testStripes() {
+        assertEquals("rounded up to power of two", 8, new LaneManager(10, 5).stripeCount());
+        assertEquals("power of two is kept", 4, new LaneManager(10, 4).stripeCount());
+        assertEquals("lanes", 10, new LaneManager(10, 4).laneCount());
+    }
+    
+    @Test
+    public void testLanesAreSeparate() throws Exception {
+        LaneManager manager = new LaneManager(3, 1);
+        manager.addRoll(0, 10);
+        manager.addRoll(1, 4);
+        manager.addRoll(1, 6);
+        manager.addRoll(0, 3);
+        assertEquals("lane 0", 16, manager.totalScore(0));
+        assertEquals("lane 1", 10, manager.totalScore(1));
+        assertEquals("lane 2", 0, manager.totalScore(2));
+        assertEquals("too many pins", BowlingGame.ROLL_TOO_MANY_PINS, manager.tryAddRoll(0, 8));
+        
+        manager.newGame(0);
+        assertEquals("new game", 0, manager.totalScore(0));
+        assertEquals("other lane is kept", 10, manager.totalScore(1));
+    }
+    
+    @Test
+    public void testRollsOnOneLaneAreAtomic() throws Exception {
+        final LaneManager manager = new LaneManager(1, 1);
+        final AtomicInteger accepted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; ++i) {
+                        if (manager.tryAddRoll(0, 1) == BowlingGame.ROLL_OK) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals("one game of rolls accepted", 20, accepted.get());
+        assertEquals("final score", 20, manager.totalScore(0));
+        assertTrue("finished", manager.isFinished(0));
+    }
+    
+    @Test
+    public void testConcurrentLanes() throws Exception {
+        final int laneCount = 64;
+        final LaneManager manager = new LaneManager(laneCount, 4);
+        final BowlingGame[] games = new BowlingGame[laneCount];
+        for (int lane = 0; lane < laneCount; ++lane) {
+            games[lane] = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        }
+        
+        // writers each own some lanes, and a reader checks every lane as it goes
+        final AtomicBoolean readerFailed = new AtomicBoolean();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                CompactBowlingGame copy = new CompactBowlingGame();
+                CompactBowlingGame replay = new CompactBowlingGame();
+                while (writing.get()) {
+                    for (int lane = 0; lane < laneCount; ++lane) {
+                        manager.copyGame(lane, copy);
+                        replay.init();
+                        for (int i = 0; i < copy.rollCount(); ++i) {
+                            replay.tryAddRoll(copy.rollPins(i));
+                        }
+                        if (replay.totalScore() != copy.totalScore() ||
+                                replay.isFinished() != copy.isFinished()) {
+                            readerFailed.set(true);
+                        }
+                    }
+                }
+            }
+        };
+        reader.start();
+        
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; ++t) {
+            final int first = t;
+            writers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int lane = first; lane < laneCount; lane += writers.length) {
+                        Iterator<Roll> rolls = games[lane].rollIterator();
+                        while (rolls.hasNext()) {
+                            manager.tryAddRoll(lane, rolls.next().pins());
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        reader.join();
+        
+        assertFalse("reader saw consistent games", readerFailed.get());
+        for (int lane = 0; lane < laneCount; ++lane) {
+            assertEquals("final score", games[lane].totalScore(), manager.totalScore(lane));
+            assertTrue("finished", manager.isFinished(lane));
+        }
+    }
+}
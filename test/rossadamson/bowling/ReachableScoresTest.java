@@ -0,0 +1,69 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ReachableScoresTest {
+    
+    @Test
+    public void testNewGame() {
+        BowlingGame game = new BowlingGame();
+        assertEquals("min", 0, ReachableScores.minFinalScore(game));
+        assertEquals("max", BowlingGame.MAX_SCORE, ReachableScores.maxFinalScore(game));
+        assertTrue("perfect", ReachableScores.canFinishWith(game, 300));
+        assertFalse("too high", ReachableScores.canFinishWith(game, 301));
+        assertFalse("negative", ReachableScores.canFinishWith(game, -1));
+    }
+    
+    @Test
+    public void testFinishedGame() throws Exception {
+        BowlingGame game = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        int[] scores = ReachableScores.finalScores(game);
+        assertEquals("one score", 1, scores.length);
+        assertEquals("final score", game.totalScore(), scores[0]);
+    }
+    
+    @Test
+    public void testMatchesEveryFinish() throws Exception {
+        for (int i = 0; i < 100; ++i) {
+            // late enough in the game that trying every finish is quick
+            BowlingGame game = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+            int rollsLeft = 2 + TestUtils.random.nextInt(4);
+            CompactBowlingGame partial = new CompactBowlingGame();
+            Iterator<Roll> rolls = game.rollIterator();
+            int rollCount = 0;
+            while (rolls.hasNext()) {
+                rolls.next();
+                ++rollCount;
+            }
+            rolls = game.rollIterator();
+            for (int rollIndex = 0; rollIndex < Math.max(0, rollCount - rollsLeft); ++rollIndex) {
+                partial.tryAddRoll(rolls.next().pins());
+            }
+            
+            final TreeSet<Integer> expected = new TreeSet<Integer>();
+            TestUtils.forEveryFinish(partial, null, new TestUtils.FinishVisitor() {
+                @Override
+                public void finished(CompactBowlingGame finished, double chance) {
+                    expected.add(finished.totalScore());
+                }
+            });
+            int[] actual = ReachableScores.finalScores(partial);
+            assertEquals("count", expected.size(), actual.length);
+            int index = 0;
+            for (int score : expected) {
+                assertEquals("score", score, actual[index++]);
+            }
+            assertEquals("min", (int) expected.first(), ReachableScores.minFinalScore(partial));
+            assertEquals("max", (int) expected.last(), ReachableScores.maxFinalScore(partial));
+            assertTrue("can finish", ReachableScores.canFinishWith(partial, expected.last()));
+        }
+    }
+}
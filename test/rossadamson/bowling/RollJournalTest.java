@@ -0,0 +1,265 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Ross Adamson
+ */
+public class RollJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File journalFile;
+    private File checkpointFile;
+
+    @Before
+    public void setUp() {
+        journalFile = new File(folder.getRoot(), "lanes.journal");
+        checkpointFile = new File(folder.getRoot(), "lanes.checkpoint");
+    }
+
+    /**
+     * Roll random games on every lane, some of them more than one game.
+     */
+    static void rollGames(LaneManager lanes, RollJournal journal) throws Exception {
+        CompactBowlingGame current = new CompactBowlingGame();
+        for (int lane = 0; lane < lanes.laneCount(); ++lane) {
+            int games = 1 + TestUtils.random.nextInt(3);
+            for (int game = 0; game < games; ++game) {
+                lanes.copyGame(lane, current);
+                if (current.rollCount() > 0) {
+                    lanes.newGame(lane, journal);
+                }
+                int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS + 1);
+                Iterator<Roll> rolls = TestUtils.randomGame(rollsLimit, TestUtils.MAX_ERROR_ALLOWANCE).rollIterator();
+                while (rolls.hasNext()) {
+                    assertEquals("roll", BowlingGame.ROLL_OK, lanes.tryAddRoll(lane, rolls.next().pins(), journal));
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that two sets of lanes have the same games.
+     */
+    static void checkSameLanes(LaneManager expected, LaneManager actual) {
+        CompactBowlingGame expectedGame = new CompactBowlingGame();
+        CompactBowlingGame actualGame = new CompactBowlingGame();
+        for (int lane = 0; lane < expected.laneCount(); ++lane) {
+            assertEquals("game number", expected.copyGame(lane, expectedGame), actual.copyGame(lane, actualGame));
+            assertEquals("roll count", expectedGame.rollCount(), actualGame.rollCount());
+            for (int rollIndex = 0; rollIndex < expectedGame.rollCount(); ++rollIndex) {
+                assertEquals("roll pins", expectedGame.rollPins(rollIndex), actualGame.rollPins(rollIndex));
+            }
+        }
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        LaneManager lanes = new LaneManager(50, 4);
+        RollJournal journal = new RollJournal(journalFile);
+        rollGames(lanes, journal);
+        journal.close();
+
+        for (int threads = 1; threads <= 4; ++threads) {
+            LaneManager replayed = new LaneManager(50, 4);
+            RollJournal.replay(journalFile, null, replayed, threads);
+            checkSameLanes(lanes, replayed);
+        }
+
+        // a reopened journal keeps going from the end
+        journal = new RollJournal(journalFile);
+        rollGames(lanes, journal);
+        journal.close();
+        LaneManager replayed = new LaneManager(50, 4);
+        RollJournal.replay(journalFile, checkpointFile, replayed, 2);
+        checkSameLanes(lanes, replayed);
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        final int laneCount = 64;
+        final LaneManager lanes = new LaneManager(laneCount, 8);
+        final RollJournal journal = new RollJournal(journalFile);
+        final BowlingGame[] games = new BowlingGame[laneCount];
+        for (int lane = 0; lane < laneCount; ++lane) {
+            games[lane] = TestUtils.randomGame(BowlingGame.MAX_ROLLS, TestUtils.MAX_ERROR_ALLOWANCE);
+        }
+
+        // each thread rolls its own lanes, every roll waiting until it is durable
+        final Exception[] failure = new Exception[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; ++t) {
+            final int first = t;
+            final int step = threads.length;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int lane = first; lane < laneCount; lane += step) {
+                            Iterator<Roll> rolls = games[lane].rollIterator();
+                            while (rolls.hasNext()) {
+                                lanes.tryAddRoll(lane, rolls.next().pins(), journal);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        // checkpoints cut the journal while the lanes roll
+        for (int checkpoint = 0; checkpoint < 5; ++checkpoint) {
+            journal.checkpoint(lanes, checkpointFile);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull("no failure", failure[0]);
+        assertTrue("no more commits than records", journal.commitCount() <= journal.recordCount());
+        journal.close();
+
+        LaneManager replayed = new LaneManager(laneCount, 8);
+        RollJournal.replay(journalFile, checkpointFile, replayed, 3);
+        for (int lane = 0; lane < laneCount; ++lane) {
+            assertEquals("final score", games[lane].totalScore(), replayed.totalScore(lane));
+        }
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        LaneManager lanes = new LaneManager(40, 4);
+        RollJournal journal = new RollJournal(journalFile);
+        rollGames(lanes, journal);
+        File uncut = new File(folder.getRoot(), "uncut.journal");
+        Files.copy(journalFile.toPath(), uncut.toPath());
+        LaneManager checkpointed = new LaneManager(40, 4);
+        RollJournal.replay(journalFile, null, checkpointed, 1);
+
+        journal.checkpoint(lanes, checkpointFile);
+        assertEquals("records before the checkpoint are cut", RollJournal.HEADER_SIZE, journalFile.length());
+
+        // a crash before the journal was cut leaves the old journal with the new checkpoint
+        LaneManager replayed = new LaneManager(40, 4);
+        RollJournal.replay(uncut, checkpointFile, replayed, 2);
+        checkSameLanes(checkpointed, replayed);
+
+        rollGames(lanes, journal);
+        journal.checkpoint(lanes, checkpointFile);
+        rollGames(lanes, journal);
+        journal.close();
+        replayed = new LaneManager(40, 4);
+        RollJournal.replay(journalFile, checkpointFile, replayed, 3);
+        checkSameLanes(lanes, replayed);
+
+        // a reopened journal keeps counting records from where it was cut
+        journal = new RollJournal(journalFile);
+        rollGames(lanes, journal);
+        journal.checkpoint(lanes, checkpointFile);
+        rollGames(lanes, journal);
+        journal.close();
+        replayed = new LaneManager(40, 4);
+        RollJournal.replay(journalFile, checkpointFile, replayed, 3);
+        checkSameLanes(lanes, replayed);
+    }
+
+    @Test
+    public void testAppendNeverWaits() throws Exception {
+        RollJournal journal = new RollJournal(journalFile);
+        int records = 3 * 4096 + 10;
+        for (int record = 0; record < records; ++record) {
+            journal.append(record % 8, 0, record / 8, 0);
+        }
+        assertEquals("nothing committed yet", 0, journal.commitCount());
+        assertEquals("nothing written yet", RollJournal.HEADER_SIZE, journalFile.length());
+        journal.close();
+        assertEquals("every record written", RollJournal.HEADER_SIZE + (long) records * RollJournal.RECORD_SIZE,
+                journalFile.length());
+    }
+
+    @Test
+    public void testFailedAppend() throws Exception {
+        LaneManager lanes = new LaneManager(4, 2);
+        RollJournal journal = new RollJournal(journalFile);
+        lanes.tryAddRoll(1, 7, journal);
+        journal.close();
+        try {
+            lanes.tryAddRoll(1, 2, journal);
+            fail("journal is closed");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            lanes.newGame(1, journal);
+            fail("journal is closed");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // the lane only has what the journal has
+        CompactBowlingGame game = new CompactBowlingGame();
+        assertEquals("same game", 0, lanes.copyGame(1, game));
+        assertEquals("roll not added", 1, game.rollCount());
+        LaneManager replayed = new LaneManager(4, 2);
+        RollJournal.replay(journalFile, null, replayed, 1);
+        checkSameLanes(lanes, replayed);
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        LaneManager lanes = new LaneManager(10, 2);
+        RollJournal journal = new RollJournal(journalFile);
+        rollGames(lanes, journal);
+        journal.close();
+
+        // a crash can leave part of a record, or a record of zeros
+        long length = journalFile.length();
+        RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+        file.setLength(length + RollJournal.RECORD_SIZE + 5);
+        file.close();
+
+        LaneManager replayed = new LaneManager(10, 2);
+        RollJournal.replay(journalFile, null, replayed, 2);
+        checkSameLanes(lanes, replayed);
+
+        journal = new RollJournal(journalFile);
+        journal.close();
+        assertEquals("part of a record is removed", length + RollJournal.RECORD_SIZE, journalFile.length());
+    }
+
+    @Test(timeout = 10000)
+    public void testTransferFromShortFile() throws Exception {
+        RandomAccessFile source = new RandomAccessFile(folder.newFile("source"), "rw");
+        RandomAccessFile target = new RandomAccessFile(folder.newFile("target"), "rw");
+        try {
+            source.write(new byte[RollJournal.RECORD_SIZE * 3]);
+            RollJournal.transferFully(source.getChannel(), RollJournal.RECORD_SIZE,
+                    RollJournal.RECORD_SIZE * 2, target.getChannel());
+            assertEquals("copied", RollJournal.RECORD_SIZE * 2, target.length());
+
+            // a journal cut short on disk fails instead of copying forever
+            boolean thrown = false;
+            try {
+                RollJournal.transferFully(source.getChannel(), RollJournal.RECORD_SIZE,
+                        RollJournal.RECORD_SIZE * 3, target.getChannel());
+            } catch (IOException e) {
+                thrown = true;
+            }
+            assertTrue("short source", thrown);
+        } finally {
+            source.close();
+            target.close();
+        }
+    }
+}
@@ -98,7 +98,66 @@ public class RollTest {
            
             Collection<Roll> rolls = Roll.getRangeOfRolls(maxValue);
             assertEquals("count number of rolls", maxValue + 1, rolls.size());
+            assertSame("ranges are shared", rolls, Roll.getRangeOfRolls(maxValue));
+            
+            int pins = 0;
+            for (Roll roll : rolls) {
+                assertSame("range holds shared rolls", Roll.of(pins), roll);
+                ++pins;
+            }
         }
+        
+        assertEquals("negative range is empty", 0, Roll.getRangeOfRolls(-1).size());
+        
+        boolean thrown = false;
+        try {
+            Roll.getRangeOfRolls(BowlingGame.ALL_PINS).clear();
+        } catch (UnsupportedOperationException e) {
+            thrown = true;
+        }
+        assertTrue("ranges can't be modified", thrown);
+    }
+    
+    @Test
+    public void testOf() {
+        for (int pins = 0; pins <= BowlingGame.ALL_PINS; ++pins) {
+            assertEquals("shared roll has right number of pins", pins, Roll.of(pins).pins());
+            assertSame("shared roll is reused", Roll.of(pins), Roll.of(pins));
+        }
+        assertEquals("out of range roll keeps its pins", -1, Roll.of(-1).pins());
+        assertTrue("in range roll is shared", Roll.of(3).isShared());
+        assertFalse("out of range roll is not shared", Roll.of(-1).isShared());
+        assertFalse("new roll is not shared", new Roll(3).isShared());
+    }
+
+    @Test
+    public void testSharedRollUnchangeable() {
+        boolean thrown = false;
+        try {
+            Roll.of(3).init(7);
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue("shared roll can't be initialized", thrown);
+        assertEquals("shared roll keeps its pins", 3, Roll.of(3).pins());
+
+        Frame frame = new Frame();
+        thrown = false;
+        try {
+            frame.addRoll(Roll.of(3));
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue("shared roll can't be linked", thrown);
+        assertEquals("frame has no rolls", 0, frame.rollCount());
+    }
+    
+    @Test
+    public void testRangeMask() {
+        assertEquals("negative range is empty", 0, Roll.rangeMask(-1));
+        assertEquals("range of zero", 1, Roll.rangeMask(0));
+        assertEquals("range of three", 0xf, Roll.rangeMask(3));
+        assertEquals("all pins", 0x7ff, Roll.rangeMask(BowlingGame.ALL_PINS));
     }
     
     @Test
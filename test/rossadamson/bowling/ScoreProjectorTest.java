@@ -0,0 +1,116 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoreProjectorTest {
+    /**
+     * Knocks down every standing pin.
+     */
+    static final PinFallModel ALL_DOWN = new PinFallModel() {
+        @Override
+        public double probability(boolean firstBall, int pinsUp, int pins) {
+            return (pins == pinsUp) ? 1.0 : 0.0;
+        }
+    };
+    /**
+     * Never knocks down a pin.
+     */
+    static final PinFallModel GUTTER = new PinFallModel() {
+        @Override
+        public double probability(boolean firstBall, int pinsUp, int pins) {
+            return (pins == 0) ? 1.0 : 0.0;
+        }
+    };
+    
+    @Test
+    public void testHistogram() {
+        ScoreHistogram histogram = new ScoreHistogram();
+        assertEquals("empty percentile", -1, histogram.percentile(50));
+        assertEquals("empty min", -1, histogram.minScore());
+        for (int score = 1; score <= 100; ++score) {
+            histogram.add(score);
+        }
+        histogram.add(300);
+        assertEquals("count", 101, histogram.count());
+        assertEquals("min", 1, histogram.minScore());
+        assertEquals("max", 300, histogram.maxScore());
+        assertEquals("median", 51, histogram.percentile(50));
+        assertEquals("lowest", 1, histogram.percentile(0));
+        assertEquals("highest", 300, histogram.percentile(100));
+        assertEquals("mean", (5050 + 300) / 101.0, histogram.mean(), 1e-9);
+    }
+    
+    @Test
+    public void testFixedModels() throws Exception {
+        BowlingGame game = new BowlingGame();
+        game.addRoll(Roll.of(7));
+        
+        ScoreHistogram allDown = new ScoreProjector(ALL_DOWN, ForkJoinPool.commonPool()).project(game, 100, 1);
+        assertEquals("spare then strikes", 10 + 10 + 270, allDown.minScore());
+        assertEquals("one score", 100, allDown.count(290));
+        
+        ScoreHistogram gutter = new ScoreProjector(GUTTER, ForkJoinPool.commonPool()).project(game, 100, 1);
+        assertEquals("nothing more", 7, gutter.maxScore());
+        assertEquals("perfect", 300,
+                new ScoreProjector(new BinomialPinFallModel(1.0), ForkJoinPool.commonPool())
+                        .project(new BowlingGame(), 10, 1).minScore());
+    }
+    
+    @Test
+    public void testPartialGames() throws Exception {
+        ScoreProjector gutter = new ScoreProjector(GUTTER, ForkJoinPool.commonPool());
+        for (int i = 0; i < 200; ++i) {
+            // finishing with gutter balls gives the score of adding zeros
+            BowlingGame game = TestUtils.randomGame(TestUtils.random.nextInt(BowlingGame.MAX_ROLLS + 1),
+                    TestUtils.MAX_ERROR_ALLOWANCE);
+            ScoreHistogram histogram = gutter.project(game, 3, i);
+            while (!game.isFinished()) {
+                game.addRoll(Roll.of(0));
+            }
+            assertEquals("final score", game.totalScore(), histogram.minScore());
+            assertEquals("same score", game.totalScore(), histogram.maxScore());
+        }
+    }
+    
+    @Test
+    public void testSameSeedSameHistogram() throws Exception {
+        BowlingGame game = TestUtils.randomGame(6, TestUtils.MAX_ERROR_ALLOWANCE);
+        ScoreHistogram expected = new ScoreProjector(PinFallModel.UNIFORM, new ForkJoinPool(1)).project(game, 50000, 42);
+        ScoreHistogram actual = new ScoreProjector(PinFallModel.UNIFORM, new ForkJoinPool(4)).project(game, 50000, 42);
+        assertEquals("count", 50000, actual.count());
+        assertTrue("at least the score so far", actual.minScore() >= game.totalScore());
+        for (int score = 0; score <= BowlingGame.MAX_SCORE; ++score) {
+            assertEquals("score " + score, expected.count(score), actual.count(score));
+        }
+    }
+    
+    @Test
+    public void testBinomialModel() {
+        BinomialPinFallModel model = new BinomialPinFallModel(0.8);
+        for (int pinsUp = 0; pinsUp <= BowlingGame.ALL_PINS; ++pinsUp) {
+            double total = 0.0;
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                total += model.probability(false, pinsUp, pins);
+            }
+            assertEquals("adds up to 1", 1.0, total, 1e-12);
+        }
+        assertEquals("strike", Math.pow(0.8, 10), model.probability(true, 10, 10), 1e-12);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadModel() {
+        new ScoreProjector(new PinFallModel() {
+            @Override
+            public double probability(boolean firstBall, int pinsUp, int pins) {
+                return 0.5;
+            }
+        }, ForkJoinPool.commonPool());
+    }
+}
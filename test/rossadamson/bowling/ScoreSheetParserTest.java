@@ -0,0 +1,183 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoreSheetParserTest {
+    
+    /**
+     * Records what a parser reports.
+     */
+    static class RecordingListener implements ScoreSheetListener {
+        List<Long> starts = new ArrayList<Long>();
+        List<List<Integer>> games = new ArrayList<List<Integer>>();
+        List<Long> errors = new ArrayList<Long>();
+        List<Integer> current;
+        
+        @Override
+        public void startGame(long offset) {
+            starts.add(offset);
+            current = new ArrayList<Integer>();
+        }
+        
+        @Override
+        public void roll(int pins) {
+            current.add(pins);
+        }
+        
+        @Override
+        public void endGame() {
+            games.add(current);
+        }
+        
+        @Override
+        public void error(long offset, String message) {
+            assertNotNull("error message", message);
+            errors.add(offset);
+        }
+    }
+    
+    /**
+     * Write the rolls of a game in score sheet notation.
+     */
+    static void appendGame(BowlingGame game, StringBuilder out) throws Exception {
+        CompactBowlingGame copy = new CompactBowlingGame();
+        Iterator<Roll> rolls = game.rollIterator();
+        while (rolls.hasNext()) {
+            int pins = rolls.next().pins();
+            int pinsUp = copy.pinsUp();
+            int frameIndex = copy.nextRollFrameIndex();
+            copy.addRoll(pins);
+            
+            if (pins == BowlingGame.ALL_PINS && pinsUp == BowlingGame.ALL_PINS) {
+                out.append('X');
+            } else if (pins == pinsUp) {
+                out.append('/');
+            } else if (pins == 0) {
+                out.append('-');
+            } else {
+                out.append(pins);
+            }
+            
+            if (rolls.hasNext() && copy.nextRollFrameIndex() != frameIndex) {
+                out.append(' ');
+            }
+        }
+        out.append('\n');
+    }
+    
+    /**
+     * Parse text in one go.
+     */
+    static RecordingListener parse(String text) {
+        RecordingListener listener = new RecordingListener();
+        ScoreSheetParser parser = new ScoreSheetParser(listener);
+        parser.feed(ByteBuffer.wrap(text.getBytes()));
+        parser.end();
+        return listener;
+    }
+    
+    @Test
+    public void testParseLine() {
+        RecordingListener listener = parse("X 7/ 9- X -8 8/ -6 X X X81\n");
+        assertEquals("one game", 1, listener.games.size());
+        assertEquals("no errors", 0, listener.errors.size());
+        assertEquals("rolls", "[10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1]",
+                listener.games.get(0).toString());
+        
+        listener = parse("  \n\r\n|X|X|X|\r\n\n5/ 3");
+        assertEquals("blank lines are skipped", 2, listener.games.size());
+        assertEquals("game offset", Long.valueOf(6), listener.starts.get(0));
+        assertEquals("separators are ignored", "[10, 10, 10]", listener.games.get(0).toString());
+        assertEquals("last line without newline", "[5, 5, 3]", listener.games.get(1).toString());
+    }
+    
+    @Test
+    public void testErrors() {
+        RecordingListener listener = parse("X 7/ 9? X\nX 5X\n/\nX X X X X X X X X XXX X\n36 36 36 36 36 36 36 36 36 36\n");
+        assertEquals("bad lines are dropped", 1, listener.games.size());
+        assertEquals("bad lines are started", 5, listener.starts.size());
+        assertEquals("unexpected character", Long.valueOf(6), listener.errors.get(0));
+        assertEquals("strike after pins", Long.valueOf(13), listener.errors.get(1));
+        assertEquals("spare at a new rack", Long.valueOf(15), listener.errors.get(2));
+        assertEquals("roll after game finished", Long.valueOf(39), listener.errors.get(3));
+        assertEquals("good line after bad lines", 20, listener.games.get(0).size());
+    }
+    
+    @Test
+    public void testParseChannel() throws Exception {
+        int numberOfGames = 3000;
+        BowlingGame[] games = new BowlingGame[numberOfGames];
+        StringBuilder text = new StringBuilder();
+        
+        for (int i = 0; i < numberOfGames; ++i) {
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            games[i] = TestUtils.randomGame(BowlingGame.MAX_ROLLS, errorAllowance);
+            appendGame(games[i], text);
+        }
+        
+        // the text is longer than the parser's buffer
+        PackedGames packed = new PackedGames(1);
+        ScoreSheetParser parser = new ScoreSheetParser(packed);
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(text.toString().getBytes())));
+        assertEquals("every game is read", numberOfGames, packed.gameCount());
+        
+        int[] finalScores = new int[numberOfGames];
+        int[] cumulativeScores = new int[numberOfGames * BowlingGame.NUMBER_OF_FRAMES];
+        assertEquals("every game is valid", numberOfGames, packed.score(finalScores, cumulativeScores));
+        for (int i = 0; i < numberOfGames; ++i) {
+            assertEquals("final score", games[i].totalScore(), finalScores[i]);
+            assertEquals("running score", games[i].cumulativeScore(4),
+                    cumulativeScores[i * BowlingGame.NUMBER_OF_FRAMES + 4]);
+        }
+    }
+    
+    @Test
+    public void testPackedGamesDropsBadGames() {
+        PackedGames packed = new PackedGames(1);
+        ScoreSheetParser parser = new ScoreSheetParser(packed);
+        parser.feed(ByteBuffer.wrap("X X X X X X X X X XXX\n9- 9- 9?\nX X X X X X X X X X9/\n".getBytes()));
+        parser.end();
+        
+        int[] finalScores = new int[2];
+        assertEquals("bad game is dropped", 2, packed.gameCount());
+        assertEquals("both games are valid", 2, packed.score(finalScores, null));
+        assertEquals("perfect game", 300, finalScores[0]);
+        assertEquals("second game", 289, finalScores[1]);
+    }
+    
+    @Test
+    public void testCompactGameListener() {
+        final List<Integer> scores = new ArrayList<Integer>();
+        final List<Long> dropped = new ArrayList<Long>();
+        ScoreSheetParser parser = new ScoreSheetParser(new CompactGameListener() {
+            @Override
+            protected void gameRead(CompactBowlingGame game, long offset) {
+                scores.add(game.totalScore());
+                assertEquals("finished", game.rollCount() > 3, game.isFinished());
+            }
+            
+            @Override
+            protected void gameDropped(long offset, String message) {
+                dropped.add(offset);
+            }
+        });
+        parser.feed(ByteBuffer.wrap("X X X X X X X X X XXX\n9- 9- 9?\n7/ 3\nX X X X X X X X X X9/\n".getBytes()));
+        parser.end();
+        
+        assertEquals("games read", Arrays.asList(300, 16, 289), scores);
+        assertEquals("bad game dropped", 1, dropped.size());
+    }
+}
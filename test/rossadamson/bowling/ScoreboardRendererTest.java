@@ -0,0 +1,95 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoreboardRendererTest {
+    static ScoreboardRenderer renderer;
+    
+    @Before
+    public void setUp() throws Exception {
+        renderer = new ScoreboardRenderer();
+    }
+    
+    /**
+     * Build a game from pins of each roll.
+     */
+    static BowlingGame game(int... rolls) throws GameFinishedException, InvalidRollException {
+        BowlingGame game = new BowlingGame();
+        for (int i = 0; i < rolls.length; ++i) {
+            game.addRoll(Roll.of(rolls[i]));
+        }
+        return game;
+    }
+    
+    /**
+     * Render a game to a string builder.
+     */
+    static String render(BowlingGame game) throws Exception {
+        StringBuilder result = new StringBuilder();
+        renderer.render(game, result);
+        return result.toString();
+    }
+
+    @Test
+    public void testRenderAppendable() throws Exception {
+        assertEquals("empty game", "|( ? ) @ |   |( ? )   |   |( ? )   |   |( ? )   |   |( ? )   |   |( ? )   |   "
+                + "|( ? )   |   |( ? )   |   |( ? )   |   |( ? )   |   |   || Total: 0",
+                render(game()));
+        assertEquals("strike, spare, open", "|(20) X | . |(14) 3 | / |(7) 4 | 3 |( ? ) @ |   |( ? )   |   |( ? )   |   "
+                + "|( ? )   |   |( ? )   |   |( ? )   |   |( ? )   |   |   || Total: 41",
+                render(game(10, 3, 7, 4, 3)));
+        assertEquals("perfect game", "|(30) X | . |(30) X | . |(30) X | . |(30) X | . |(30) X | . |(30) X | . "
+                + "|(30) X | . |(30) X | . |(30) X | . |(30) X | 10 | 10 || Total: 300",
+                render(game(10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10)));
+        assertEquals("gutter game", "|(0) - | - |(0) - | - |(0) - | - |(0) - | - |(0) - | - |(0) - | - "
+                + "|(0) - | - |(0) - | - |(0) - | - |(0) - | - | . || Total: 0",
+                render(game(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)));
+        assertEquals("incomplete last frame", "|(3) 1 | 2 |(7) 3 | 4 |(20) 5 | / |(20) X | . |(19) - | / |(9) 9 | - "
+                + "|(16) 7 | / |(7) 6 | 1 |(23) X | . |(13+?) X | 3 | @ || Total: 137",
+                render(game(1, 2, 3, 4, 5, 5, 10, 0, 10, 9, 0, 7, 3, 6, 1, 10, 10, 3)));
+    }
+    
+    @Test
+    public void testRenderBuffers() throws Exception {
+        int numberOfGames = 20;
+        CharBuffer chars = CharBuffer.allocate(256);
+        ByteBuffer bytes = ByteBuffer.allocate(256);
+        
+        for (int i = 0; i < numberOfGames; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, TestUtils.MAX_ERROR_ALLOWANCE);
+            String expected = render(game);
+            
+            chars.clear();
+            renderer.render(game, chars);
+            chars.flip();
+            assertEquals("char buffer", expected, chars.toString());
+            
+            bytes.clear();
+            renderer.render(game, bytes);
+            bytes.flip();
+            assertEquals("byte buffer", expected, new String(bytes.array(), 0, bytes.limit(), "US-ASCII"));
+            
+            assertEquals("toString", expected, game.toString());
+        }
+    }
+    
+    @Test
+    public void testAppendNumber() throws Exception {
+        int[] numbers = {0, 7, 10, 99, 300, -5, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i = 0; i < numbers.length; ++i) {
+            StringBuilder result = new StringBuilder();
+            ScoreboardRenderer.appendNumber(numbers[i], result);
+            assertEquals("number", Integer.toString(numbers[i]), result.toString());
+        }
+    }
+}
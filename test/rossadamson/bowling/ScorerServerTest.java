@@ -0,0 +1,246 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScorerServerTest {
+
+    private ScorerServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ScorerServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * A lane terminal that talks to the server over loopback.
+     */
+    private class Terminal {
+        private final Socket socket;
+        private final OutputStream out;
+        private final BufferedReader in;
+
+        Terminal() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+            socket.setSoTimeout(10000);
+            out = socket.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        }
+
+        void send(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        String command(String line) throws IOException {
+            send(line + "\n");
+            return in.readLine();
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testCommands() throws IOException {
+        Terminal terminal = new Terminal();
+        assertEquals("strike", "ok 10", terminal.command("roll 10"));
+        assertEquals("bare pins", "ok 16", terminal.command("3"));
+        assertEquals("too many pins", "error too many pins", terminal.command("roll 8"));
+        assertEquals("negative", "error negative pins", terminal.command("roll -1"));
+        assertEquals("not a number", "error pins must be a number", terminal.command("roll x"));
+        assertEquals("unknown", "error unknown command", terminal.command("bowl"));
+        assertEquals("spaces, case and carriage return", "ok 24", terminal.command("  ROLL  4 \r"));
+
+        BowlingGame game = new BowlingGame();
+        game.tryAddRoll(10);
+        game.tryAddRoll(3);
+        game.tryAddRoll(4);
+        assertEquals("board", game.toString(), terminal.command("board"));
+
+        assertEquals("reset", "ok 0", terminal.command("reset"));
+        assertEquals("new game", "ok 9", terminal.command("9"));
+        terminal.close();
+    }
+
+    @Test
+    public void testFinishedGame() throws IOException {
+        Terminal terminal = new Terminal();
+        String answer = null;
+        for (int roll = 0; roll < 12; ++roll) {
+            answer = terminal.command("10");
+        }
+        assertEquals("finished", "ok 300 finished", answer);
+        assertEquals("no more rolls", "error game finished", terminal.command("0"));
+        assertEquals("exit", "bye", terminal.command("exit"));
+        assertNull("closed", terminal.in.readLine());
+        terminal.close();
+    }
+
+    @Test
+    public void testPipelinedAndSplitLines() throws IOException {
+        Terminal terminal = new Terminal();
+        terminal.send("1\n\n2\nroll 3\n");
+        assertEquals("first", "ok 1", terminal.in.readLine());
+        assertEquals("blank line ignored", "ok 3", terminal.in.readLine());
+        assertEquals("third", "ok 6", terminal.in.readLine());
+
+        terminal.send("ro");
+        terminal.send("ll ");
+        terminal.send("5\n");
+        assertEquals("split line", "ok 11", terminal.in.readLine());
+
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i <= ScorerServer.MAX_LINE_LENGTH * 3; ++i) {
+            longLine.append('x');
+        }
+        assertEquals("too long", "error line too long", terminal.command(longLine.toString()));
+        assertEquals("next line is read", "ok 11", terminal.command("0"));
+
+        terminal.send(longLine.toString());
+        assertEquals("too long before the line end", "error line too long", terminal.in.readLine());
+        terminal.send(longLine + "\n");
+        assertEquals("rest of the line skipped", "ok 11", terminal.command("0"));
+        terminal.close();
+    }
+
+    @Test
+    public void testManyAnswersWithoutReading() throws Exception {
+        Terminal terminal = new Terminal();
+        // far more answers than the write buffer holds, read only at the end
+        int boards = ScorerServer.WRITE_BUFFER_SIZE / 50;
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < boards; ++i) {
+            commands.append("board\n");
+        }
+        terminal.send(commands.toString());
+        String board = new BowlingGame().toString();
+        for (int i = 0; i < boards; ++i) {
+            assertEquals("board " + i, board, terminal.in.readLine());
+        }
+        assertEquals("still answering", "ok 7", terminal.command("7"));
+        terminal.close();
+    }
+
+    @Test
+    public void testAnswersAfterInputEnds() throws Exception {
+        final Terminal terminal = new Terminal();
+        // far more answers than the socket buffers hold, so the server is
+        // still answering when it reads the end of the input
+        final int boards = 20000;
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        Thread sender = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    StringBuilder commands = new StringBuilder();
+                    for (int i = 0; i < boards; ++i) {
+                        commands.append("board\n");
+                    }
+                    terminal.send(commands.append("7\n").toString());
+                    terminal.socket.shutdownOutput();
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        };
+        sender.start();
+
+        // every line sent before the terminal stopped sending gets its answer
+        String board = new BowlingGame().toString();
+        for (int i = 0; i < boards; ++i) {
+            assertEquals("board " + i, board, terminal.in.readLine());
+        }
+        assertEquals("last line", "ok 7", terminal.in.readLine());
+        assertNull("closed", terminal.in.readLine());
+        sender.join();
+        assertNull("sent", failure.get());
+        terminal.close();
+    }
+
+    @Test
+    public void testManyConnections() throws Exception {
+        Terminal[] terminals = new Terminal[200];
+        for (int lane = 0; lane < terminals.length; ++lane) {
+            terminals[lane] = new Terminal();
+            terminals[lane].send("roll " + (lane % 10) + "\n");
+        }
+        for (int lane = 0; lane < terminals.length; ++lane) {
+            assertEquals("lane " + lane, "ok " + (lane % 10), terminals[lane].in.readLine());
+        }
+        assertEquals("connections", terminals.length, server.connectionCount());
+
+        for (Terminal terminal : terminals) {
+            assertEquals("exit", "bye", terminal.command("exit"));
+            terminal.close();
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (server.connectionCount() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("all closed", 0, server.connectionCount());
+    }
+
+    @Test
+    public void testAcceptFailures() throws IOException {
+        final AtomicInteger failures = new AtomicInteger();
+        server.close();
+        server = new ScorerServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)) {
+            @Override
+            SocketChannel acceptChannel() throws IOException {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IOException("Too many open files");
+                }
+                return super.acceptChannel();
+            }
+        };
+        server.start();
+
+        Terminal first = new Terminal();
+        assertEquals("before failures", "ok 3", first.command("3"));
+        failures.set(3);
+        Terminal second = new Terminal();
+        assertEquals("served meanwhile", "ok 7", first.command("4"));
+        assertEquals("accepted after pauses", "ok 10", second.command("10"));
+        assertEquals("failures", 3, server.acceptFailureCount());
+        assertEquals("connections", 2, server.connectionCount());
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testParsePins() {
+        ByteBuffer line = ByteBuffer.wrap("x10-7 99999999999".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("number", 10, ScorerServer.parsePins(line, 1, 3));
+        assertEquals("negative", -7, ScorerServer.parsePins(line, 3, 5));
+        assertEquals("not a number", Integer.MIN_VALUE, ScorerServer.parsePins(line, 0, 3));
+        assertEquals("empty", Integer.MIN_VALUE, ScorerServer.parsePins(line, 1, 1));
+        assertEquals("too long", Integer.MIN_VALUE, ScorerServer.parsePins(line, 6, 17));
+    }
+}
@@ -0,0 +1,253 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoringHttpServerTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private ScoringHttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ScoringHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * An answer from the server.
+     */
+    private static class Answer {
+        int code;
+        String body;
+        HttpURLConnection connection;
+    }
+
+    private Answer request(String method, String path, String body) throws IOException {
+        URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), server.port(), path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(10000);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            OutputStream out = connection.getOutputStream();
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+            out.close();
+        }
+
+        Answer answer = new Answer();
+        answer.connection = connection;
+        answer.code = connection.getResponseCode();
+        InputStream in = (answer.code < 400) ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            byte[] buffer = new byte[1024];
+            for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+                bytes.write(buffer, 0, count);
+            }
+            in.close();
+        }
+        answer.body = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        return answer;
+    }
+
+    private long createGame() throws IOException {
+        Answer created = request("POST", "/games", null);
+        assertEquals("created", 201, created.code);
+        Matcher matcher = ID.matcher(created.body);
+        assertTrue("has an id", matcher.find());
+        long id = Long.parseLong(matcher.group(1));
+        assertEquals("location", "/games/" + id, created.connection.getHeaderField("Location"));
+        return id;
+    }
+
+    @Test
+    public void testGame() throws IOException {
+        long id = createGame();
+        Answer rolled = request("POST", "/games/" + id + "/rolls", "{\"pins\": 10}");
+        assertEquals("rolled", 200, rolled.code);
+        rolled = request("POST", "/games/" + id + "/rolls", "{ \"rolls\" : [3, 4] }");
+        assertEquals("batch", 200, rolled.code);
+
+        BowlingGame game = new BowlingGame();
+        game.tryAddRoll(10);
+        game.tryAddRoll(3);
+        game.tryAddRoll(4);
+        String expected = "{\"id\":" + id + ",\"totalScore\":24,\"finished\":false,\"pinsUp\":10," +
+                "\"frames\":[{\"rolls\":[10],\"score\":17,\"scoreComplete\":true}," +
+                "{\"rolls\":[3,4],\"score\":7,\"scoreComplete\":true}]," +
+                "\"board\":\"" + game.toString() + "\"}";
+        assertEquals("game after batch", expected, rolled.body);
+        assertEquals("json type", "application/json; charset=utf-8",
+                rolled.connection.getHeaderField("Content-Type"));
+        assertEquals("get", expected, request("GET", "/games/" + id, null).body);
+
+        Answer board = request("GET", "/games/" + id + "/board", null);
+        assertEquals("board", 200, board.code);
+        assertEquals("board text", game.toString() + "\n", board.body);
+
+        assertEquals("delete", 204, request("DELETE", "/games/" + id, null).code);
+        assertEquals("deleted", 404, request("GET", "/games/" + id, null).code);
+    }
+
+    @Test
+    public void testBatchIsAllOrNothing() throws IOException {
+        long id = createGame();
+        request("POST", "/games/" + id + "/rolls", "{\"pins\":5}");
+
+        Answer rejected = request("POST", "/games/" + id + "/rolls", "{\"rolls\":[5,10,11]}");
+        assertEquals("rejected", 422, rejected.code);
+        assertEquals("reason", "{\"error\":\"too many pins\",\"status\":" + BowlingGame.ROLL_TOO_MANY_PINS +
+                ",\"rollIndex\":2}", rejected.body);
+        assertTrue("nothing of the batch kept",
+                request("GET", "/games/" + id, null).body.contains("\"totalScore\":5,"));
+
+        StringBuilder perfect = new StringBuilder("{\"rolls\":[");
+        for (int roll = 0; roll < 12; ++roll) {
+            perfect.append(roll == 0 ? "10" : ",10");
+        }
+        String secondGame = "/games/" + createGame() + "/rolls";
+        Answer finished = request("POST", secondGame, perfect.append("]}").toString());
+        assertTrue("perfect game", finished.body.contains("\"totalScore\":300,\"finished\":true,\"pinsUp\":0,"));
+        assertTrue("game finished", request("POST", secondGame, "{\"pins\":0}").body.contains("game finished"));
+        assertTrue("negative", request("POST", "/games/" + id + "/rolls", "{\"pins\":-1}").body
+                .contains("negative pins"));
+    }
+
+    @Test
+    public void testRejectedBatchNotCounted() throws IOException {
+        // nothing is counted with the metrics off
+        int counted = ScoringMetrics.ENABLED ? 1 : 0;
+        String rolls = "/games/" + createGame() + "/rolls";
+        long rollsAdded = ScoringMetrics.INSTANCE.getRollsAdded();
+        assertEquals("rejected", 422, request("POST", rolls, "{\"rolls\":[1,2,3,4,5,6,7]}").code);
+        assertEquals("no roll of the batch added", rollsAdded, ScoringMetrics.INSTANCE.getRollsAdded());
+        assertEquals("accepted", 200, request("POST", rolls, "{\"rolls\":[1,2,3]}").code);
+        assertEquals("the batch added", rollsAdded + 3 * counted, ScoringMetrics.INSTANCE.getRollsAdded());
+    }
+
+    @Test
+    public void testGameLimit() throws IOException {
+        server.close();
+        server = new ScoringHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2,
+                ScoringHttpServer.DEFAULT_IDLE_TIMEOUT);
+        server.start();
+
+        long finished = createGame();
+        long unfinished = createGame();
+        assertEquals("full", 503, request("POST", "/games", null).code);
+        StringBuilder perfect = new StringBuilder("{\"rolls\":[10");
+        for (int roll = 1; roll < 12; ++roll) {
+            perfect.append(",10");
+        }
+        request("POST", "/games/" + finished + "/rolls", perfect.append("]}").toString());
+        createGame();
+        assertEquals("finished game forgotten", 404, request("GET", "/games/" + finished, null).code);
+        assertEquals("unfinished game kept", 200, request("GET", "/games/" + unfinished, null).code);
+        assertEquals("games", 2, server.gameCount());
+
+        server.close();
+        server = new ScoringHttpServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 0);
+        server.start();
+        long idle = createGame();
+        createGame();
+        assertEquals("idle game forgotten", 404, request("GET", "/games/" + idle, null).code);
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        long id = createGame();
+        String rolls = "/games/" + id + "/rolls";
+        assertEquals("no such game", 404, request("GET", "/games/999999", null).code);
+        assertEquals("not an id", 404, request("GET", "/games/abc", null).code);
+        assertEquals("no such path", 404, request("GET", "/games/" + id + "/frames", null).code);
+        assertEquals("not under games", 404, request("POST", "/gamesx", null).code);
+        assertEquals("list not allowed", 405, request("GET", "/games", null).code);
+        assertEquals("allow", "GET", request("PUT", "/games/" + id + "/board", "{}").connection
+                .getHeaderField("Allow"));
+        assertEquals("bad json", 400, request("POST", rolls, "{\"pins\":").code);
+        assertEquals("unknown field", 400, request("POST", rolls, "{\"score\":3}").code);
+        assertEquals("trailing text", 400, request("POST", rolls, "{\"pins\":3} x").code);
+        assertEquals("error body", "{\"error\":\"expected a whole number at 8\"}",
+                request("POST", rolls, "{\"pins\":x}").body);
+
+        StringBuilder tooBig = new StringBuilder("{\"rolls\":[");
+        while (tooBig.length() <= ScoringHttpServer.MAX_BODY_SIZE) {
+            tooBig.append("0,");
+        }
+        assertEquals("too big", 400, request("POST", rolls, tooBig.append("0]}").toString()).code);
+        assertTrue("nothing rolled", request("GET", "/games/" + id, null).body.contains("\"frames\":[]"));
+    }
+
+    @Test
+    public void testParseRolls() {
+        assertArrayEquals("one", new int[] { 7 }, ScoringHttpServer.parseRolls("{\"pins\":7}"));
+        assertArrayEquals("empty batch", new int[0], ScoringHttpServer.parseRolls(" {\"rolls\" : [ ] } "));
+        int[] many = new int[BowlingGame.MAX_ROLLS * 3];
+        StringBuilder body = new StringBuilder("{\"rolls\":[");
+        for (int i = 0; i < many.length; ++i) {
+            many[i] = i % 11;
+            body.append(i == 0 ? "" : ",").append(i % 11);
+        }
+        assertArrayEquals("longer than a game", many, ScoringHttpServer.parseRolls(body.append("]}").toString()));
+    }
+
+    @Test
+    public void testConcurrentGames() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int client = 0; client < 64; ++client) {
+                results.add(clients.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        String rolls = "/games/" + createGame() + "/rolls";
+                        String body = null;
+                        for (int roll = 0; roll < 20; ++roll) {
+                            body = request("POST", rolls, "{\"pins\":4}").body;
+                        }
+                        return body;
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                assertTrue("every game finished", result.get().contains("\"totalScore\":80,\"finished\":true"));
+            }
+            assertEquals("games", 64, server.gameCount());
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class ScoringMetricsTest {
+    
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals("empty", 0, histogram.percentile(50));
+        assertEquals("empty max", 0, histogram.max());
+        for (long nanos = 1; nanos <= 1000; ++nanos) {
+            histogram.record(nanos);
+        }
+        histogram.record(1000000);
+        assertEquals("count", 1001, histogram.count());
+        assertEquals("mean", (500500 + 1000000) / 1001.0, histogram.mean(), 1e-9);
+        long median = histogram.percentile(50);
+        assertTrue("median within a bucket", median >= 501 && median <= 501 * 17 / 16);
+        long max = histogram.max();
+        assertTrue("max within a bucket", max >= 1000000 && max <= 1000000 * 17 / 16);
+        
+        // every time is at most the end of its own bucket, and close to it
+        for (long nanos = 0; nanos < 100000; nanos = nanos * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestTime(LatencyHistogram.bucket(nanos));
+            assertTrue("in bucket", highest >= nanos && highest <= nanos + nanos / 16);
+        }
+        
+        histogram.reset();
+        assertEquals("reset", 0, histogram.count());
+        histogram.record(Long.MAX_VALUE);
+        assertEquals("largest time", Long.MAX_VALUE, histogram.max());
+    }
+    
+    /**
+     * Play a game with rejected rolls and thrown exceptions of every kind.
+     * @return The finished game, with a score of 7.
+     */
+    static BowlingGame playGame() throws Exception {
+        BowlingGame game = new BowlingGame();
+        game.tryAddRoll(7);
+        game.tryAddRoll(4);
+        game.tryAddRoll(-1);
+        try {
+            game.addRoll(Roll.of(9));
+            fail("too many pins");
+        } catch (InvalidRollException e) {
+            // expected
+        }
+        while (!game.isFinished()) {
+            game.tryAddRoll(0);
+        }
+        try {
+            game.addRoll(Roll.of(0));
+            fail("game finished");
+        } catch (GameFinishedException e) {
+            // expected
+        }
+        return game;
+    }
+    
+    @Test
+    public void testCounts() throws Exception {
+        ScoringMetrics metrics = ScoringMetrics.INSTANCE;
+        metrics.reset();
+        
+        // games play the same with the metrics on or off
+        BowlingGame game = playGame();
+        assertEquals("score", 7, game.totalScore());
+        assertEquals("score board", "|(7) 7 | - |(0) - | - |(0) - | - |(0) - | - |(0) - | - |(0) - | - |(0) - | - "
+                + "|(0) - | - |(0) - | - |(0) - | - | . || Total: 7", game.toString());
+        
+        // with the metrics off, nothing is counted or timed
+        int on = ScoringMetrics.ENABLED ? 1 : 0;
+        assertEquals("added", 20 * on, metrics.getRollsAdded());
+        assertEquals("too many pins", 2 * on, metrics.getTooManyPinsRejections());
+        assertEquals("negative", on, metrics.getNegativePinsRejections());
+        assertEquals("finished", on, metrics.getGameFinishedRejections());
+        assertEquals("invalid roll exceptions", on, metrics.getInvalidRollExceptions());
+        assertEquals("game finished exceptions", on, metrics.getGameFinishedExceptions());
+        assertEquals("rolls timed", 24 * on, metrics.getAddRollCount());
+        assertEquals("renders", on, metrics.getRenderCount());
+        assertEquals("render time", ScoringMetrics.ENABLED, metrics.getRenderMaxNanos() > 0);
+        
+        // operations see the same numbers, and nothing at all with the metrics off
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ScoringMetrics.OBJECT_NAME);
+        assertEquals("registered", ScoringMetrics.ENABLED, server.isRegistered(name));
+        if (ScoringMetrics.ENABLED) {
+            assertEquals("through JMX", 20L, server.getAttribute(name, "RollsAdded"));
+            server.invoke(name, "reset", null, null);
+            assertEquals("reset through JMX", 0, metrics.getRollsAdded());
+        }
+    }
+}
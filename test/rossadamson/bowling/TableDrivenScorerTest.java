@@ -0,0 +1,112 @@
+package rossadamson.bowling;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Ross Adamson
+ */
+public class TableDrivenScorerTest {
+    
+    /**
+     * Replay rolls into a new game.
+     */
+    static BowlingGame replay(List<Integer> rolls) throws Exception {
+        BowlingGame game = new BowlingGame();
+        for (int pins : rolls) {
+            game.addRoll(Roll.of(pins));
+        }
+        return game;
+    }
+    
+    /**
+     * Get the index of the frame the next roll goes in.
+     */
+    static int nextRollFrameIndex(BowlingGame game) {
+        return Arrays.asList(game.frames).indexOf(game.nextRollFrame());
+    }
+    
+    @Test
+    public void testEveryState() throws Exception {
+        // visit each state once, along the first rolls found that reach it
+        List<List<Integer>> paths = new ArrayList<List<Integer>>();
+        int[] pathOfState = new int[TableDrivenScorer.stateCount()];
+        Arrays.fill(pathOfState, -1);
+        List<Integer> states = new ArrayList<Integer>();
+        paths.add(new ArrayList<Integer>());
+        states.add(TableDrivenScorer.START_STATE);
+        pathOfState[TableDrivenScorer.START_STATE] = 0;
+        
+        for (int index = 0; index < states.size(); ++index) {
+            int state = states.get(index);
+            List<Integer> path = paths.get(index);
+            BowlingGame game = replay(path);
+            assertEquals("pins up", Math.max(game.maxNextRoll(), 0), TableDrivenScorer.pinsUp(state));
+            
+            for (int pins = -1; pins <= BowlingGame.ALL_PINS + 1; ++pins) {
+                int entry = TableDrivenScorer.transition(state, pins);
+                assertEquals("valid roll", game.canRoll(pins), entry != TableDrivenScorer.INVALID_ROLL);
+                
+                if (entry != TableDrivenScorer.INVALID_ROLL) {
+                    BowlingGame next = replay(path);
+                    next.addRoll(Roll.of(pins));
+                    assertEquals("score delta", next.totalScore() - game.totalScore(),
+                            TableDrivenScorer.scoreDelta(entry));
+                    assertEquals("finished", next.isFinished(), TableDrivenScorer.isFinished(entry));
+                    
+                    // a full rack follows a new frame, or knocking down every pin
+                    int nextState = TableDrivenScorer.nextState(entry);
+                    boolean firstBall = !next.isFinished() &&
+                            (nextRollFrameIndex(next) != nextRollFrameIndex(game) || pins == game.maxNextRoll());
+                    assertEquals("first ball", firstBall, TableDrivenScorer.isFirstBall(nextState));
+                    if (pathOfState[nextState] < 0) {
+                        List<Integer> nextPath = new ArrayList<Integer>(path);
+                        nextPath.add(pins);
+                        pathOfState[nextState] = paths.size();
+                        paths.add(nextPath);
+                        states.add(nextState);
+                    }
+                }
+            }
+        }
+        
+        assertEquals("every state is reachable", TableDrivenScorer.stateCount(), states.size());
+    }
+    
+    @Test
+    public void testScoreGame() throws Exception {
+        assertEquals("perfect game", 300,
+                TableDrivenScorer.scoreGame(new int[] { 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10 }, 0, 12));
+        assertEquals("incomplete game", BatchScorer.INVALID_GAME,
+                TableDrivenScorer.scoreGame(new int[] { 10, 10, 10 }, 0, 3));
+        assertEquals("empty game", BatchScorer.INVALID_GAME, TableDrivenScorer.scoreGame(new int[0], 0, 0));
+        
+        for (int i = 0; i < 500; ++i) {
+            int rollsLimit = TestUtils.random.nextInt(BowlingGame.MAX_ROLLS * 2);
+            int errorAllowance = TestUtils.random.nextInt(TestUtils.MAX_ERROR_ALLOWANCE + 1);
+            BowlingGame game = TestUtils.randomGame(rollsLimit, errorAllowance);
+            
+            byte[] rolls = new byte[BowlingGame.MAX_ROLLS + 1];
+            int rollCount = 0;
+            Iterator<Roll> iterator = game.rollIterator();
+            while (iterator.hasNext()) {
+                rolls[rollCount++] = (byte) iterator.next().pins();
+            }
+            
+            int expected = BatchScorer.scoreGame(rolls, 0, rollCount, null, 0);
+            assertEquals("same as batch scorer", expected, TableDrivenScorer.scoreGame(rolls, 0, rollCount));
+            if (game.isFinished()) {
+                assertEquals("final score", game.totalScore(), expected);
+                rolls[rollCount] = 0;
+                assertEquals("roll after finished game", BatchScorer.INVALID_GAME,
+                        TableDrivenScorer.scoreGame(rolls, 0, rollCount + 1));
+            }
+        }
+    }
+}
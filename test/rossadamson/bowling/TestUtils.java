@@ -1,5 +1,6 @@
 package rossadamson.bowling;
 
+import java.util.Iterator;
 import java.util.Random;
 
 /**
@@ -52,17 +53,84 @@ public class TestUtils {
        
        for (int rollCount = 0; (rollCount < rollsLimit) && !game.isFinished(); ++rollCount) {
            // make a random, valid move
-           Roll[] validRolls = game.possibleRolls().toArray(new Roll[0]);
+           int maxPins = game.maxNextRoll();
            
-           int minRollIndex = validRolls.length - 1 - errorAllowance;
-           if (minRollIndex < 0) {
-               minRollIndex = 0;
+           int minPins = maxPins - errorAllowance;
+           if (minPins < 0) {
+               minPins = 0;
            }
            
-           Roll roll = validRolls[random.nextInt(validRolls.length - minRollIndex) + minRollIndex];
-           game.addRoll(roll);
+           game.addRoll(Roll.of(random.nextInt(maxPins + 1 - minPins) + minPins));
        }
        
        return game;
     }
+    
+    /**
+     * Get the pins of every roll of a game.
+     * @param game The game.
+     * @return The pins, one entry per roll.
+     */
+    public static int[] rollsOf(BowlingGame game) {
+        int[] pins = new int[BowlingGame.MAX_ROLLS];
+        int rollCount = 0;
+        Iterator<Roll> rolls = game.rollIterator();
+        while (rolls.hasNext()) {
+            pins[rollCount++] = rolls.next().pins();
+        }
+        int[] result = new int[rollCount];
+        System.arraycopy(pins, 0, result, 0, rollCount);
+        return result;
+    }
+    
+    /**
+     * Gets every way to finish a game from
+     * {@link TestUtils#forEveryFinish(CompactBowlingGame, PinFallModel, FinishVisitor)}.
+     */
+    public interface FinishVisitor {
+        /**
+         * Visit one way to finish the game.
+         * @param game The finished game. Only valid during the call.
+         * @param chance The chance of this finish under the pin fall model,
+         * or 1 without a model.
+         */
+        void finished(CompactBowlingGame game, double chance);
+    }
+    
+    /**
+     * Play every way to finish a game, one roll at a time, by brute force.
+     * Meant for games with only a few rolls left.
+     * @param game The game. It isn't changed.
+     * @param model Gives the chance of each roll, or null to leave every
+     * chance at 1.
+     * @param visitor Gets every finished game.
+     */
+    public static void forEveryFinish(CompactBowlingGame game, PinFallModel model, FinishVisitor visitor) {
+        boolean firstBall = TableDrivenScorer.isFirstBall(TableDrivenScorer.stateOf(game));
+        forEveryFinish(game, firstBall, 1.0, model, visitor);
+    }
+    
+    /**
+     * Play every way to finish a game from a known rack.
+     * @param firstBall Whether the next roll is at a full rack.
+     * @param chance The chance of the rolls so far.
+     */
+    private static void forEveryFinish(CompactBowlingGame game, boolean firstBall, double chance,
+            PinFallModel model, FinishVisitor visitor) {
+        if (game.isFinished()) {
+            visitor.finished(game, chance);
+        } else {
+            int pinsUp = game.pinsUp();
+            int frameIndex = game.nextRollFrameIndex();
+            CompactBowlingGame next = new CompactBowlingGame();
+            for (int pins = 0; pins <= pinsUp; ++pins) {
+                next.copyFrom(game);
+                next.tryAddRoll(pins);
+                // a full rack follows a new frame, or knocking down every pin
+                boolean nextFirstBall = next.nextRollFrameIndex() != frameIndex || pins == pinsUp;
+                double nextChance = (model == null) ? chance : chance * model.probability(firstBall, pinsUp, pins);
+                forEveryFinish(next, nextFirstBall, nextChance, model, visitor);
+            }
+        }
+    }
 }